@@ -0,0 +1,31 @@
+package tv.helixware.mico.config;
+
+import org.springframework.amqp.core.Queue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Declare the queue receiving the item-finished notifications, when they're enabled.
+ *
+ * @since 0.2.0
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "mico.amqp", name = "enabled", havingValue = "true")
+public class AmqpConfig {
+
+    /**
+     * The item-finished notifications queue.
+     *
+     * @param name The queue name.
+     * @return A durable {@link Queue}.
+     * @since 0.2.0
+     */
+    @Bean
+    public Queue itemFinishedQueue(@Value("${mico.amqp.queue:mico-gateway.item-finished}") final String name) {
+
+        return new Queue(name, true);
+    }
+
+}
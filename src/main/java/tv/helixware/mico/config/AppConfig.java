@@ -12,16 +12,20 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.ApplicationEventMulticaster;
 import org.springframework.context.event.SimpleApplicationEventMulticaster;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import tv.helixware.mico.services.HttpTransport;
+import tv.helixware.mico.services.PipelineStage;
 
 import java.util.concurrent.Executors;
 
 /**
- * Enable JPA auditing for Entity annotations such as createdAt.
+ * Enable JPA auditing for Entity annotations such as createdAt, and scheduling for the ingestion jobs.
  *
  * @since 0.1.0
  */
 @Configuration
 @EnableJpaAuditing
+@EnableScheduling
 public class AppConfig {
 
     @Value("${mico.server:demo}")
@@ -52,33 +56,133 @@ public class AppConfig {
 
     }
 
+    /**
+     * The pipeline stage downloading the files from HelixWare and uploading them to MICO (network bound).
+     *
+     * @param threads  The number of threads.
+     * @param capacity The queue capacity.
+     * @return A {@link PipelineStage} instance.
+     * @since 0.2.0
+     */
+    @Bean
+    public PipelineStage uploadStage(@Value("${mico.pipeline.upload.threads:4}") final Integer threads,
+                                     @Value("${mico.pipeline.upload.queue:20}") final Integer capacity) {
+
+        return new PipelineStage("upload", threads, capacity);
+
+    }
+
+    /**
+     * The pipeline stage submitting the items to MICO.
+     *
+     * @param threads  The number of threads.
+     * @param capacity The queue capacity.
+     * @return A {@link PipelineStage} instance.
+     * @since 0.2.0
+     */
+    @Bean
+    public PipelineStage submitStage(@Value("${mico.pipeline.submit.threads:2}") final Integer threads,
+                                     @Value("${mico.pipeline.submit.queue:100}") final Integer capacity) {
+
+        return new PipelineStage("submit", threads, capacity);
+
+    }
+
+    /**
+     * The pipeline stage extracting the fragments of the finished {@link tv.helixware.mico.model.Part}s.
+     *
+     * @param threads  The number of threads.
+     * @param capacity The queue capacity.
+     * @return A {@link PipelineStage} instance.
+     * @since 0.2.0
+     */
+    @Bean
+    public PipelineStage extractionStage(@Value("${mico.pipeline.extraction.threads:4}") final Integer threads,
+                                         @Value("${mico.pipeline.extraction.queue:100}") final Integer capacity) {
+
+        return new PipelineStage("extraction", threads, capacity);
+
+    }
+
+    /**
+     * The stage running the extractors (sequences, faces, entity mentions) of each {@link tv.helixware.mico.model.Part}
+     * concurrently. It's separate from the extraction stage, whose threads wait for the extractors.
+     *
+     * @param threads  The number of threads.
+     * @param capacity The queue capacity.
+     * @return A {@link PipelineStage} instance.
+     * @since 0.2.0
+     */
+    @Bean
+    public PipelineStage extractorStage(@Value("${mico.pipeline.extractors.threads:6}") final Integer threads,
+                                        @Value("${mico.pipeline.extractors.queue:100}") final Integer capacity) {
+
+        return new PipelineStage("extractors", threads, capacity);
+
+    }
+
+    /**
+     * The stage requesting the pages of the paged SPARQL queries in parallel.
+     *
+     * @param threads  The number of threads.
+     * @param capacity The queue capacity.
+     * @return A {@link PipelineStage} instance.
+     * @since 0.2.0
+     */
+    @Bean
+    public PipelineStage queryStage(@Value("${mico.pipeline.query.threads:8}") final Integer threads,
+                                    @Value("${mico.pipeline.query.queue:100}") final Integer capacity) {
+
+        return new PipelineStage("query", threads, capacity);
+
+    }
+
+    /**
+     * The stage building the timeline documents of the existing assets.
+     *
+     * @param threads  The number of threads.
+     * @param capacity The queue capacity.
+     * @return A {@link PipelineStage} instance.
+     * @since 0.2.0
+     */
+    @Bean
+    public PipelineStage backfillStage(@Value("${mico.pipeline.backfill.threads:4}") final Integer threads,
+                                       @Value("${mico.pipeline.backfill.queue:100}") final Integer capacity) {
+
+        return new PipelineStage("backfill", threads, capacity);
+
+    }
+
     /**
      * Provide an instance of {@link Anno4j}.
      *
+     * @param repository The {@link Repository} to query.
      * @return An {@link Anno4j} instance.
      * @throws RepositoryConfigException
      * @throws RepositoryException
      * @since 0.2.0
      */
     @Bean
-    public Anno4j anno4j() throws RepositoryConfigException, RepositoryException {
+    public Anno4j anno4j(final Repository repository) throws RepositoryConfigException, RepositoryException {
 
-        return new Anno4j(repository());
+        return new Anno4j(repository);
     }
 
     /**
      * Get a {@link Repository} for {@link Anno4j}.
      *
+     * @param transport The shared {@link HttpTransport}, so that SPARQL queries use the pooled connections.
      * @return A {@link Repository} instance set using the server/username/password configuration.
      * @throws RepositoryException
      * @since 0.2.0
      */
     @Bean
-    public Repository repository() throws RepositoryException {
+    public Repository repository(final HttpTransport transport) throws RepositoryException {
 
         // Configuring the repository for Anno4j, but using the default Anno4j IDGenerator
         val repository = new SPARQLRepository("http://" + server + "/marmotta/sparql/select", "http://" + server + "/marmotta/sparql/update");
         repository.setUsernameAndPassword(username, password);
+        repository.setHttpClient(transport.getClient());
         repository.initialize();
 
         return repository;
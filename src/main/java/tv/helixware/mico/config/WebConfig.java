@@ -0,0 +1,72 @@
+package tv.helixware.mico.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+import tv.helixware.mico.services.IngestionWorker;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Web configuration: refuse new assets while the ingestion pipeline is saturated.
+ *
+ * @since 0.2.0
+ */
+@Configuration
+public class WebConfig {
+
+    /**
+     * Apply the {@link BackpressureInterceptor} to the assets collection. A {@link MappedInterceptor} bean is picked up
+     * by all the handler mappings, including the Spring Data REST one.
+     *
+     * @param worker The {@link IngestionWorker}.
+     * @return A {@link MappedInterceptor} instance.
+     * @since 0.2.0
+     */
+    @Bean
+    public MappedInterceptor backpressureInterceptor(final IngestionWorker worker) {
+
+        return new MappedInterceptor(new String[]{"/assets", "/assets/"}, new BackpressureInterceptor(worker));
+    }
+
+    /**
+     * Respond with `503 Service Unavailable` and a `Retry-After` header to the asset creation requests while the
+     * {@link IngestionWorker} is saturated.
+     *
+     * @since 0.2.0
+     */
+    @Slf4j
+    @RequiredArgsConstructor
+    static class BackpressureInterceptor extends HandlerInterceptorAdapter {
+
+        /**
+         * The suggested delay in seconds before retrying.
+         *
+         * @since 0.2.0
+         */
+        private final static String RETRY_AFTER = "60";
+
+        private final IngestionWorker worker;
+
+        @Override
+        public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler) throws Exception {
+
+            if (!"POST".equals(request.getMethod()) || !worker.isSaturated())
+                return true;
+
+            log.warn(String.format("The ingestion pipeline is saturated, refusing the asset [ remote address :: %s ]", request.getRemoteAddr()));
+
+            response.setHeader("Retry-After", RETRY_AFTER);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "The ingestion pipeline is saturated, retry later.");
+
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package tv.helixware.mico.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import tv.helixware.mico.services.FragmentExporter;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Exports all the fragments of an asset in one request, e.g. `GET /exports/fragments?guid=...&format=csv`. The
+ * fragments are written to the response while they're read from the database.
+ *
+ * @since 0.2.0
+ */
+@RestController
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class ExportController {
+
+    private final FragmentExporter fragmentExporter;
+
+    /**
+     * Export the fragments of an asset.
+     *
+     * @param guid     The asset GUID.
+     * @param format   The format, `ndjson` (default) or `csv`.
+     * @param response The {@link HttpServletResponse}.
+     * @throws IOException if an error occurs while writing the response.
+     * @since 0.2.0
+     */
+    @GetMapping("/exports/fragments")
+    public void export(@RequestParam("guid") final String guid,
+                       @RequestParam(value = "format", defaultValue = "ndjson") final String format,
+                       final HttpServletResponse response) throws IOException {
+
+        final FragmentExporter.Format exportFormat;
+        try {
+            exportFormat = FragmentExporter.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unsupported format: " + format);
+            return;
+        }
+
+        response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                String.format("attachment; filename=\"fragments.%s\"", exportFormat.name().toLowerCase()));
+
+        fragmentExporter.export(guid, exportFormat, response.getOutputStream());
+    }
+
+}
@@ -0,0 +1,86 @@
+package tv.helixware.mico.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.rest.webmvc.PersistentEntityResource;
+import org.springframework.data.rest.webmvc.PersistentEntityResourceAssembler;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Resources;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tv.helixware.mico.helpers.FragmentCursor;
+import tv.helixware.mico.model.Fragment;
+import tv.helixware.mico.persist.FragmentRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Exposes the keyset pagination of the fragments of an asset next to the other fragment searches, e.g.
+ * `GET /fragments/search/findByAssetGUIDAfter?guid=...&after=...&size=20`. The continuation token is decoded here, so
+ * that an invalid token is a `400 Bad Request`, and the page and sort requested by the client are ignored.
+ *
+ * @since 0.2.0
+ */
+@RepositoryRestController
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class FragmentSearchController {
+
+    private final FragmentRepository<Fragment> fragmentRepository;
+
+    /**
+     * Get the fragments of an asset following a continuation token.
+     *
+     * @param guid      The asset GUID.
+     * @param after     The continuation token (the `cursor` of the last fragment of the previous page), none for the
+     *                  first page.
+     * @param size      The page size.
+     * @param assembler The {@link PersistentEntityResourceAssembler}.
+     * @return The fragments, with a `next` link when there are more, or `400 Bad Request` if the token or the size are
+     * invalid.
+     * @since 0.2.0
+     */
+    @GetMapping("/fragments/search/findByAssetGUIDAfter")
+    public ResponseEntity<Resources<PersistentEntityResource>> findByAssetGUIDAfter(
+            @RequestParam("guid") final String guid,
+            @RequestParam(value = "after", required = false) final String after,
+            @RequestParam(value = "size", defaultValue = "20") final int size,
+            final PersistentEntityResourceAssembler assembler) {
+
+        if (1 > size)
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+
+        final long start;
+        final long id;
+        try {
+            start = FragmentCursor.start(after);
+            id = FragmentCursor.id(after);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        final Slice<Fragment> slice = fragmentRepository.findByAssetGUIDAfter(guid, start, id, new PageRequest(0, size));
+
+        final List<PersistentEntityResource> content = slice.getContent().stream()
+                .map(assembler::toFullResource)
+                .collect(Collectors.toList());
+
+        final Resources<PersistentEntityResource> resources = new Resources<>(content,
+                new Link(ServletUriComponentsBuilder.fromCurrentRequest().build().toUriString()));
+
+        // The next page begins right after the last fragment of this one.
+        if (slice.hasNext())
+            resources.add(new Link(ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", slice.getContent().get(slice.getNumberOfElements() - 1).getCursor())
+                    .build().toUriString(), Link.REL_NEXT));
+
+        return ResponseEntity.ok(resources);
+    }
+
+}
@@ -0,0 +1,157 @@
+package tv.helixware.mico.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import tv.helixware.mico.helpers.TimelineCodec;
+import tv.helixware.mico.model.Fragment;
+import tv.helixware.mico.model.Timeline;
+import tv.helixware.mico.services.FragmentCache;
+import tv.helixware.mico.services.TimelineBackfill;
+import tv.helixware.mico.services.TimelineService;
+
+import javax.persistence.DiscriminatorValue;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Exposes the {@link Timeline} documents (`GET /timelines?guid=...`) and the time-range queries of the
+ * {@link TimelineService}, e.g. `GET /timelines/fragments?guid=...&start=60000&end=120000`. The GUID is a request
+ * parameter, like in the fragment searches, since a path variable doesn't match a `/` and is truncated at a `.`.
+ *
+ * @since 0.2.0
+ */
+@RestController
+@RequestMapping("/timelines")
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class TimelineController {
+
+    private final TimelineService timelineService;
+    private final TimelineBackfill timelineBackfill;
+
+    /**
+     * Get the {@link Timeline} document of an asset. The document changes only when the asset is extracted again, its
+     * revision is the ETag.
+     *
+     * @param guid    The asset GUID.
+     * @param request The {@link WebRequest}.
+     * @return The JSON document, `304 Not Modified` or `404 Not Found` if the document hasn't been built yet.
+     * @since 0.2.0
+     */
+    @GetMapping
+    public ResponseEntity<byte[]> document(@RequestParam("guid") final String guid, final WebRequest request) {
+
+        final Optional<Timeline> timeline = timelineService.document(guid);
+
+        if (!timeline.isPresent())
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+
+        final String etag = String.format("\"%d-%d\"", timeline.get().getFormat(), timeline.get().getRevision());
+
+        if (request.checkNotModified(etag))
+            return null;
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .body(timeline.get().getDocument());
+    }
+
+    /**
+     * Start building the {@link Timeline} documents of the existing assets in the background.
+     *
+     * @param force Whether to rebuild the documents which are already in the current format.
+     * @return `202 Accepted`, or `409 Conflict` if the backfill is already running.
+     * @since 0.2.0
+     */
+    @PostMapping("/backfill")
+    public ResponseEntity<Void> backfill(@RequestParam(value = "force", defaultValue = "false") final boolean force) {
+
+        return timelineBackfill.start(force)
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    /**
+     * Get the fragments of an asset which overlap a time range.
+     *
+     * @param guid  The asset GUID.
+     * @param start The range start in milliseconds (inclusive), by default all the fragments including the entities and
+     *              the topics, which aren't bound to a time range (their start and end are -1).
+     * @param end   The range end in milliseconds (inclusive).
+     * @return The overlapping fragments, sorted by start. The response varies by `Accept`, since the binary timeline is
+     * served at the same URL.
+     * @since 0.2.0
+     */
+    @GetMapping("/fragments")
+    public ResponseEntity<List<Fragment>> overlapping(@RequestParam("guid") final String guid,
+                                                      @RequestParam(value = "start", defaultValue = "" + Long.MIN_VALUE) final long start,
+                                                      @RequestParam(value = "end", defaultValue = "" + Long.MAX_VALUE) final long end) {
+
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(timelineService.overlapping(guid, start, end));
+    }
+
+    /**
+     * Get the binary timeline of an asset, when requested with the {@link TimelineCodec#MEDIA_TYPE} media type. The
+     * timeline is immutable until the asset is extracted again, its ETag allows clients to revalidate it cheaply.
+     *
+     * @param guid    The asset GUID.
+     * @param request The {@link WebRequest}.
+     * @return The binary timeline, or `304 Not Modified`.
+     * @since 0.2.0
+     */
+    @GetMapping(value = "/fragments", produces = TimelineCodec.MEDIA_TYPE)
+    public ResponseEntity<byte[]> binary(@RequestParam("guid") final String guid, final WebRequest request) {
+
+        final byte[] timeline = timelineService.binary(guid);
+        final String etag = String.format("\"%08x-%d\"", Arrays.hashCode(timeline), timeline.length);
+
+        if (request.checkNotModified(etag))
+            return null;
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(MediaType.parseMediaType(TimelineCodec.MEDIA_TYPE))
+                .body(timeline);
+    }
+
+    /**
+     * Get the fragments of one type of an asset which overlap a time range.
+     *
+     * @param guid  The asset GUID.
+     * @param type  The fragment type (`sequence`, `face`, `entity` or `topic`).
+     * @param start The range start in milliseconds (inclusive), by default all the fragments including the entities and
+     *              the topics, which aren't bound to a time range (their start and end are -1).
+     * @param end   The range end in milliseconds (inclusive).
+     * @return The overlapping fragments, sorted by start.
+     * @since 0.2.0
+     */
+    @GetMapping("/fragments/{type}")
+    public ResponseEntity<List<Fragment>> overlapping(@RequestParam("guid") final String guid,
+                                                      @PathVariable("type") final String type,
+                                                      @RequestParam(value = "start", defaultValue = "" + Long.MIN_VALUE) final long start,
+                                                      @RequestParam(value = "end", defaultValue = "" + Long.MAX_VALUE) final long end) {
+
+        final Optional<Class<? extends Fragment>> fragmentType = FragmentCache.TYPES.stream()
+                .filter(t -> t.getAnnotation(DiscriminatorValue.class).value().equals(type))
+                .findFirst();
+
+        if (!fragmentType.isPresent())
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+
+        return ResponseEntity.ok(timelineService.overlapping(guid, fragmentType.get(), start, end));
+    }
+
+}
@@ -0,0 +1,88 @@
+package tv.helixware.mico.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tv.helixware.mico.model.Item;
+import tv.helixware.mico.services.StatusPoller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Listens for item-finished notifications from MICO and completes the wait for the related {@link Item}, which
+ * triggers the extraction straight away. The {@link StatusPoller} keeps polling as a fallback for notifications which
+ * never arrive.
+ * <p>
+ * The message body is either the {@link Item} URI or a JSON object with an `itemUri` (or `uri`) property.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "mico.amqp", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class ItemFinishedListener implements MessageListener {
+
+    private final static String[] URI_PROPERTIES = {"itemUri", "uri"};
+
+    /**
+     * The {@link StatusPoller} with the {@link Item}s being waited for.
+     *
+     * @since 0.2.0
+     */
+    private final StatusPoller statusPoller;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    @RabbitListener(queues = "${mico.amqp.queue:mico-gateway.item-finished}")
+    public void onMessage(final Message message) {
+
+        val body = new String(message.getBody(), StandardCharsets.UTF_8).trim();
+
+        val uri = itemUri(body);
+
+        if (!uri.isPresent()) {
+            log.warn(String.format("Invalid item-finished notification [ body :: %s ]", body));
+            return;
+        }
+
+        if (!statusPoller.finished(uri.get()))
+            log.debug(String.format("Notification for an item not being waited for [ uri :: %s ]", uri.get()));
+    }
+
+    /**
+     * Get the {@link Item} URI from the notification body.
+     *
+     * @param body The notification body.
+     * @return The {@link Item} URI or empty if not found.
+     * @since 0.2.0
+     */
+    private Optional<String> itemUri(final String body) {
+
+        if (!body.startsWith("{"))
+            return body.isEmpty() ? Optional.empty() : Optional.of(body);
+
+        try {
+            val node = objectMapper.readTree(body);
+
+            for (final String property : URI_PROPERTIES)
+                if (node.hasNonNull(property))
+                    return Optional.of(node.get(property).asText());
+
+        } catch (Exception e) {
+            log.error(String.format("Cannot parse the notification [ body :: %s ]", body), e);
+        }
+
+        return Optional.empty();
+    }
+
+}
@@ -0,0 +1,72 @@
+package tv.helixware.mico.helpers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque continuation tokens of the keyset pagination of the fragments, which are ordered by
+ * start and id. A token is the position of the last fragment of a page, the next page begins right after it.
+ *
+ * @since 0.2.0
+ */
+public class FragmentCursor {
+
+    private FragmentCursor() {
+    }
+
+    /**
+     * Create the token of a position.
+     *
+     * @param start The fragment start.
+     * @param id    The fragment id.
+     * @return The token.
+     * @since 0.2.0
+     */
+    public static String encode(final long start, final long id) {
+
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((start + ":" + id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Get the start of the position of a token.
+     *
+     * @param token The token, null or empty for the first page.
+     * @return The start, or the minimum value for the first page.
+     * @throws IllegalArgumentException if the token is invalid.
+     * @since 0.2.0
+     */
+    public static long start(final String token) {
+
+        return decode(token)[0];
+    }
+
+    /**
+     * Get the id of the position of a token.
+     *
+     * @param token The token, null or empty for the first page.
+     * @return The id, or the minimum value for the first page.
+     * @throws IllegalArgumentException if the token is invalid.
+     * @since 0.2.0
+     */
+    public static long id(final String token) {
+
+        return decode(token)[1];
+    }
+
+    private static long[] decode(final String token) {
+
+        if (null == token || token.isEmpty())
+            return new long[]{Long.MIN_VALUE, Long.MIN_VALUE};
+
+        try {
+            final String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            final int separator = value.indexOf(':');
+
+            return new long[]{Long.parseLong(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1))};
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(String.format("Invalid cursor [ token :: %s ]", token), e);
+        }
+    }
+
+}
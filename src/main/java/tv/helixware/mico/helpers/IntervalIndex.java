@@ -0,0 +1,121 @@
+package tv.helixware.mico.helpers;
+
+import java.util.*;
+import java.util.function.ToLongFunction;
+
+/**
+ * An immutable index of intervals which finds the intervals overlapping a range in O(log n + m).
+ * <p>
+ * The intervals are sorted by start and laid out as an implicit balanced binary tree over the sorted array (the root
+ * of a range is its middle element), where each node also keeps the maximum end of its subtree. A query skips the
+ * subtrees which end before the range and stops at the elements which start after it.
+ *
+ * @param <T> The element type.
+ * @since 0.2.0
+ */
+public class IntervalIndex<T> {
+
+    private final List<T> elements;
+    private final long[] starts;
+    private final long[] ends;
+
+    /**
+     * The maximum end of the subtree of each node.
+     *
+     * @since 0.2.0
+     */
+    private final long[] maxEnds;
+
+    /**
+     * Create an {@link IntervalIndex}.
+     *
+     * @param elements The elements.
+     * @param start    A function returning the start of an element.
+     * @param end      A function returning the end of an element (inclusive).
+     * @since 0.2.0
+     */
+    public IntervalIndex(final Collection<T> elements, final ToLongFunction<T> start, final ToLongFunction<T> end) {
+
+        final List<T> sorted = new ArrayList<>(elements);
+        sorted.sort(Comparator.comparingLong(start));
+
+        this.elements = Collections.unmodifiableList(sorted);
+        this.starts = new long[sorted.size()];
+        this.ends = new long[sorted.size()];
+        this.maxEnds = new long[sorted.size()];
+
+        for (int i = 0; i < sorted.size(); i++) {
+            starts[i] = start.applyAsLong(sorted.get(i));
+            ends[i] = end.applyAsLong(sorted.get(i));
+        }
+
+        build(0, sorted.size());
+    }
+
+    /**
+     * Find the elements overlapping the range, i.e. which start before its end and end after its start.
+     *
+     * @param from The range start (inclusive).
+     * @param to   The range end (inclusive).
+     * @return The overlapping elements, sorted by start.
+     * @since 0.2.0
+     */
+    public List<T> overlapping(final long from, final long to) {
+
+        final List<T> result = new ArrayList<>();
+        query(0, elements.size(), from, to, result);
+
+        return result;
+    }
+
+    /**
+     * Get all the elements.
+     *
+     * @return All the elements, sorted by start.
+     * @since 0.2.0
+     */
+    public List<T> elements() {
+
+        return elements;
+    }
+
+    public int size() {
+
+        return elements.size();
+    }
+
+    private long build(final int low, final int high) {
+
+        if (low >= high)
+            return Long.MIN_VALUE;
+
+        final int middle = (low + high) >>> 1;
+        maxEnds[middle] = Math.max(ends[middle], Math.max(build(low, middle), build(middle + 1, high)));
+
+        return maxEnds[middle];
+    }
+
+    private void query(final int low, final int high, final long from, final long to, final List<T> result) {
+
+        if (low >= high)
+            return;
+
+        final int middle = (low + high) >>> 1;
+
+        // Nothing in this subtree ends after the range start.
+        if (maxEnds[middle] < from)
+            return;
+
+        query(low, middle, from, to, result);
+
+        // This element and the following ones start after the range end.
+        if (starts[middle] > to)
+            return;
+
+        if (ends[middle] >= from)
+            result.add(elements.get(middle));
+
+        query(middle + 1, high, from, to, result);
+    }
+
+}
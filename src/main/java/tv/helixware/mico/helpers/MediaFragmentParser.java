@@ -0,0 +1,271 @@
+package tv.helixware.mico.helpers;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Parses the temporal (`t=npt:...`) and spatial (`xywh=...`) dimensions of Media Fragment URIs, see
+ * https://www.w3.org/TR/media-frags/.
+ * <p>
+ * The values are read in place from the {@link CharSequence}, without regular expressions nor intermediate strings, and
+ * the results are kept in primitive fields which are overwritten by each call. An instance is therefore not thread
+ * safe and should be reused by a single thread, e.g. for all the rows of a query.
+ *
+ * @since 0.2.0
+ */
+@Getter
+public class MediaFragmentParser {
+
+    /**
+     * The value of {@link #getEnd()} when the temporal fragment has no end, i.e. it lasts until the end of the media.
+     *
+     * @since 0.2.0
+     */
+    public final static long UNBOUNDED = -1;
+
+    /**
+     * The start time in milliseconds.
+     *
+     * @since 0.2.0
+     */
+    private long start;
+
+    /**
+     * The end time in milliseconds, or {@link #UNBOUNDED}.
+     *
+     * @since 0.2.0
+     */
+    private long end;
+
+    private long x;
+    private long y;
+    private long width;
+    private long height;
+
+    /**
+     * Whether the spatial values are percentages of the frame size, otherwise they're pixels.
+     *
+     * @since 0.2.0
+     */
+    private boolean percent;
+
+    /**
+     * The read position, used while parsing.
+     *
+     * @since 0.2.0
+     */
+    @Getter(AccessLevel.NONE)
+    private int position;
+
+    /**
+     * Parse the temporal dimension in the Normal Play Time format, e.g. `#t=npt:10.5,20`, `t=10,1:02:03.25` or
+     * `npt:,20`. A missing start is 0, a missing end is {@link #UNBOUNDED}. Fractions of seconds beyond the
+     * millisecond are truncated.
+     *
+     * @param value The value, e.g. a selector value or a fragment URI.
+     * @return True if a temporal fragment has been found, in which case the start and the end are set.
+     * @since 0.2.0
+     */
+    public boolean parseTemporal(final CharSequence value) {
+
+        // Look for the `npt:` unit first, then for the `t=` name as the unit is optional.
+        int index = indexOf(value, "npt:");
+        if (-1 != index)
+            position = index + 4;
+        else if (-1 != (index = indexOfParameter(value, "t=")))
+            position = index + 2;
+        else
+            return false;
+
+        final int length = value.length();
+
+        // The start may be omitted.
+        final long start = (position < length && ',' == value.charAt(position)) ? 0 : time(value);
+        if (-1 == start)
+            return false;
+
+        long end = UNBOUNDED;
+        if (position < length && ',' == value.charAt(position)) {
+            position++;
+            if (-1 == (end = time(value)) || end < start)
+                return false;
+        }
+
+        this.start = start;
+        this.end = end;
+
+        return true;
+    }
+
+    /**
+     * Parse the spatial dimension, e.g. `#xywh=160,120,320,240`, `xywh=pixel:160,120,320,240` or
+     * `xywh=percent:25,25,50,50`.
+     *
+     * @param value The value, e.g. a selector value or a fragment URI.
+     * @return True if a spatial fragment has been found, in which case the box and the unit are set.
+     * @since 0.2.0
+     */
+    public boolean parseSpatial(final CharSequence value) {
+
+        final int index = indexOfParameter(value, "xywh=");
+        if (-1 == index)
+            return false;
+
+        position = index + 5;
+
+        // The unit is optional, pixels by default.
+        boolean percent = false;
+        if (startsWith(value, position, "percent:")) {
+            percent = true;
+            position += 8;
+        } else if (startsWith(value, position, "pixel:")) {
+            position += 6;
+        }
+
+        final long x = number(value);
+        if (-1 == x || !comma(value))
+            return false;
+
+        final long y = number(value);
+        if (-1 == y || !comma(value))
+            return false;
+
+        final long width = number(value);
+        if (-1 == width || !comma(value))
+            return false;
+
+        final long height = number(value);
+        if (-1 == height)
+            return false;
+
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.percent = percent;
+
+        return true;
+    }
+
+    /**
+     * Read a NPT time at the current position, in seconds (`10.5`) or as hours, minutes and seconds (`1:02:03.25`,
+     * `02:03`).
+     *
+     * @param value The value.
+     * @return The time in milliseconds, or -1 if there's no time at the current position.
+     * @since 0.2.0
+     */
+    private long time(final CharSequence value) {
+
+        long seconds = number(value);
+        if (-1 == seconds)
+            return -1;
+
+        // Up to two more `:` separated fields (minutes and seconds).
+        for (int i = 0; i < 2 && position < value.length() && ':' == value.charAt(position); i++) {
+            position++;
+
+            final long field = number(value);
+            if (-1 == field)
+                return -1;
+
+            seconds = seconds * 60 + field;
+        }
+
+        long millis = seconds * 1000;
+
+        if (position < value.length() && '.' == value.charAt(position)) {
+            position++;
+
+            // Keep the first three digits of the fraction, skip the others.
+            int scale = 100;
+            final int from = position;
+            for (char c; position < value.length() && (c = value.charAt(position)) >= '0' && c <= '9'; position++) {
+                millis += (c - '0') * scale;
+                scale /= 10;
+            }
+
+            if (from == position)
+                return -1;
+        }
+
+        return millis;
+    }
+
+    /**
+     * Read an unsigned integer at the current position.
+     *
+     * @param value The value.
+     * @return The number, or -1 if there's no digit at the current position.
+     * @since 0.2.0
+     */
+    private long number(final CharSequence value) {
+
+        final int from = position;
+
+        long number = 0;
+        for (char c; position < value.length() && (c = value.charAt(position)) >= '0' && c <= '9'; position++)
+            number = number * 10 + (c - '0');
+
+        return from == position ? -1 : number;
+    }
+
+    /**
+     * Skip a comma at the current position.
+     *
+     * @param value The value.
+     * @return True if a comma has been skipped, otherwise false.
+     * @since 0.2.0
+     */
+    private boolean comma(final CharSequence value) {
+
+        if (position >= value.length() || ',' != value.charAt(position))
+            return false;
+
+        position++;
+
+        return true;
+    }
+
+    /**
+     * Find a fragment parameter, i.e. the name must be at the start of the value or follow a `#`, `&` or `?`.
+     *
+     * @param value The value.
+     * @param name  The parameter name, including the `=`.
+     * @return The index of the parameter, or -1 if not found.
+     * @since 0.2.0
+     */
+    private static int indexOfParameter(final CharSequence value, final String name) {
+
+        for (int i = 0; i <= value.length() - name.length(); i++) {
+            if (startsWith(value, i, name) && (0 == i || '#' == value.charAt(i - 1) || '&' == value.charAt(i - 1) || '?' == value.charAt(i - 1)))
+                return i;
+        }
+
+        return -1;
+    }
+
+    private static int indexOf(final CharSequence value, final String token) {
+
+        for (int i = 0; i <= value.length() - token.length(); i++) {
+            if (startsWith(value, i, token))
+                return i;
+        }
+
+        return -1;
+    }
+
+    private static boolean startsWith(final CharSequence value, final int offset, final String token) {
+
+        if (offset + token.length() > value.length())
+            return false;
+
+        for (int i = 0; i < token.length(); i++) {
+            if (value.charAt(offset + i) != token.charAt(i))
+                return false;
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,329 @@
+package tv.helixware.mico.helpers;
+
+import tv.helixware.mico.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Encodes the fragments of an asset in a compact binary timeline.
+ * <p>
+ * The layout is:
+ * <ul>
+ * <li>the magic `HXTL` and the format version (1 byte),</li>
+ * <li>the string dictionary: the number of strings, then each string as its UTF-8 length and bytes,</li>
+ * <li>the sections, in order sequences, faces, entities and topics: the number of fragments, then the fragments
+ * (sorted by start) in columns:
+ * <ul>
+ * <li>all: the starts as the difference from the previous start and the ends as the difference from the start,</li>
+ * <li>faces: the x, y, width and height columns,</li>
+ * <li>entities: the label, reference and type columns (dictionary indexes), the confidence column,</li>
+ * <li>topics: the label and reference columns (dictionary indexes), the confidence column.</li>
+ * </ul>
+ * </li>
+ * </ul>
+ * Integers are unsigned LEB128 varints, signed values (the differences) are zig-zag encoded first; the dictionary
+ * indexes start at 1, 0 being a null string; the confidences are IEEE 754 single precision floats (big endian).
+ *
+ * @since 0.2.0
+ */
+public class TimelineCodec {
+
+    /**
+     * The timeline media type.
+     *
+     * @since 0.2.0
+     */
+    public final static String MEDIA_TYPE = "application/vnd.helixware.timeline";
+
+    private final static byte[] MAGIC = {'H', 'X', 'T', 'L'};
+
+    private final static int VERSION = 1;
+
+    private TimelineCodec() {
+    }
+
+    /**
+     * Encode the fragments of an asset.
+     *
+     * @param sequences The {@link SequenceFragment}s.
+     * @param faces     The {@link FaceFragment}s.
+     * @param entities  The {@link EntityFragment}s.
+     * @param topics    The {@link TopicFragment}s.
+     * @return The binary timeline.
+     * @since 0.2.0
+     */
+    public static byte[] encode(final Collection<SequenceFragment> sequences, final Collection<FaceFragment> faces,
+                                final Collection<EntityFragment> entities, final Collection<TopicFragment> topics) {
+
+        final List<SequenceFragment> sortedSequences = sorted(sequences);
+        final List<FaceFragment> sortedFaces = sorted(faces);
+        final List<EntityFragment> sortedEntities = sorted(entities);
+        final List<TopicFragment> sortedTopics = sorted(topics);
+
+        // Build the dictionary first, it precedes the sections.
+        final Map<String, Integer> dictionary = new LinkedHashMap<>();
+        sortedEntities.forEach(f -> {
+            index(dictionary, f.getLabel());
+            index(dictionary, f.getReference());
+            index(dictionary, f.getType());
+        });
+        sortedTopics.forEach(f -> {
+            index(dictionary, f.getLabel());
+            index(dictionary, f.getReference());
+        });
+
+        final Output out = new Output();
+        out.bytes(MAGIC);
+        out.write(VERSION);
+
+        out.varint(dictionary.size());
+        for (final String value : dictionary.keySet()) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.varint(bytes.length);
+            out.bytes(bytes);
+        }
+
+        times(out, sortedSequences);
+
+        times(out, sortedFaces);
+        sortedFaces.forEach(f -> out.varint(f.getX()));
+        sortedFaces.forEach(f -> out.varint(f.getY()));
+        sortedFaces.forEach(f -> out.varint(f.getWidth()));
+        sortedFaces.forEach(f -> out.varint(f.getHeight()));
+
+        times(out, sortedEntities);
+        sortedEntities.forEach(f -> out.varint(index(dictionary, f.getLabel())));
+        sortedEntities.forEach(f -> out.varint(index(dictionary, f.getReference())));
+        sortedEntities.forEach(f -> out.varint(index(dictionary, f.getType())));
+        sortedEntities.forEach(f -> out.float32(f.getConfidence()));
+
+        times(out, sortedTopics);
+        sortedTopics.forEach(f -> out.varint(index(dictionary, f.getLabel())));
+        sortedTopics.forEach(f -> out.varint(index(dictionary, f.getReference())));
+        sortedTopics.forEach(f -> out.float32(f.getConfidence()));
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a binary timeline. The decoded fragments have no id and no {@link Part}.
+     *
+     * @param bytes The binary timeline.
+     * @return The decoded fragments, sorted by start.
+     * @throws IllegalArgumentException if the bytes aren't a supported timeline.
+     * @since 0.2.0
+     */
+    public static List<Fragment> decode(final byte[] bytes) {
+
+        final Input in = new Input(bytes);
+
+        for (final byte b : MAGIC) {
+            if (b != in.read())
+                throw new IllegalArgumentException("Not a timeline");
+        }
+
+        if (VERSION != in.read())
+            throw new IllegalArgumentException("Unsupported timeline version");
+
+        final String[] dictionary = new String[(int) in.varint() + 1];
+        for (int i = 1; i < dictionary.length; i++)
+            dictionary[i] = in.string((int) in.varint());
+
+        final List<Fragment> fragments = new ArrayList<>();
+
+        long[][] times = times(in);
+        for (int i = 0; i < times[0].length; i++)
+            fragments.add(new SequenceFragment(times[0][i], times[1][i], null));
+
+        times = times(in);
+        final int faces = times[0].length;
+        final long[][] boxes = new long[4][faces];
+        for (final long[] column : boxes) {
+            for (int i = 0; i < faces; i++)
+                column[i] = in.varint();
+        }
+        for (int i = 0; i < faces; i++)
+            fragments.add(new FaceFragment(times[0][i], times[1][i], boxes[0][i], boxes[1][i], boxes[2][i], boxes[3][i], null));
+
+        times = times(in);
+        final int entities = times[0].length;
+        final int[][] entityStrings = strings(in, 3, entities);
+        for (int i = 0; i < entities; i++) {
+            final EntityFragment fragment = new EntityFragment(dictionary[entityStrings[0][i]], dictionary[entityStrings[1][i]],
+                    dictionary[entityStrings[2][i]], 0, null);
+            fragment.setStart(times[0][i]);
+            fragment.setEnd(times[1][i]);
+            fragments.add(fragment);
+        }
+        for (int i = 0; i < entities; i++)
+            ((EntityFragment) fragments.get(fragments.size() - entities + i)).setConfidence(in.float32());
+
+        times = times(in);
+        final int topics = times[0].length;
+        final int[][] topicStrings = strings(in, 2, topics);
+        for (int i = 0; i < topics; i++) {
+            final TopicFragment fragment = new TopicFragment(dictionary[topicStrings[0][i]], dictionary[topicStrings[1][i]], 0, null);
+            fragment.setStart(times[0][i]);
+            fragment.setEnd(times[1][i]);
+            fragments.add(fragment);
+        }
+        for (int i = 0; i < topics; i++)
+            ((TopicFragment) fragments.get(fragments.size() - topics + i)).setConfidence(in.float32());
+
+        fragments.sort(Comparator.comparing(Fragment::getStart));
+
+        return fragments;
+    }
+
+    private static <T extends Fragment> List<T> sorted(final Collection<T> fragments) {
+
+        final List<T> sorted = new ArrayList<>(fragments);
+        sorted.sort(Comparator.comparing(Fragment::getStart));
+
+        return sorted;
+    }
+
+    private static int index(final Map<String, Integer> dictionary, final String value) {
+
+        return null == value ? 0 : dictionary.computeIfAbsent(value, k -> dictionary.size() + 1);
+    }
+
+    /**
+     * Write the number of fragments and the start and end columns.
+     *
+     * @since 0.2.0
+     */
+    private static void times(final Output out, final List<? extends Fragment> fragments) {
+
+        out.varint(fragments.size());
+
+        long previous = 0;
+        for (final Fragment fragment : fragments) {
+            out.zigzag(fragment.getStart() - previous);
+            previous = fragment.getStart();
+        }
+
+        fragments.forEach(f -> out.zigzag(f.getEnd() - f.getStart()));
+    }
+
+    /**
+     * Read the number of fragments and the start and end columns.
+     *
+     * @since 0.2.0
+     */
+    private static long[][] times(final Input in) {
+
+        final int count = (int) in.varint();
+        final long[][] times = new long[2][count];
+
+        long previous = 0;
+        for (int i = 0; i < count; i++)
+            times[0][i] = previous += in.zigzag();
+
+        for (int i = 0; i < count; i++)
+            times[1][i] = times[0][i] + in.zigzag();
+
+        return times;
+    }
+
+    private static int[][] strings(final Input in, final int columns, final int count) {
+
+        final int[][] strings = new int[columns][count];
+        for (final int[] column : strings) {
+            for (int i = 0; i < count; i++)
+                column[i] = (int) in.varint();
+        }
+
+        return strings;
+    }
+
+    private static class Output extends ByteArrayOutputStream {
+
+        private void varint(long value) {
+
+            while (0 != (value & ~0x7FL)) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        private void zigzag(final long value) {
+
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        private void float32(final double value) {
+
+            final int bits = Float.floatToIntBits((float) value);
+            write(bits >>> 24);
+            write(bits >>> 16);
+            write(bits >>> 8);
+            write(bits);
+        }
+
+        private void bytes(final byte[] bytes) {
+
+            write(bytes, 0, bytes.length);
+        }
+
+    }
+
+    private static class Input {
+
+        private final byte[] bytes;
+        private int position;
+
+        private Input(final byte[] bytes) {
+
+            this.bytes = bytes;
+        }
+
+        private int read() {
+
+            if (position >= bytes.length)
+                throw new IllegalArgumentException("Truncated timeline");
+
+            return bytes[position++] & 0xFF;
+        }
+
+        private long varint() {
+
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if (0 == (b & 0x80))
+                    return value;
+            }
+
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        private long zigzag() {
+
+            final long value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private double float32() {
+
+            return Float.intBitsToFloat(read() << 24 | read() << 16 | read() << 8 | read());
+        }
+
+        private String string(final int length) {
+
+            if (position + length > bytes.length)
+                throw new IllegalArgumentException("Truncated timeline");
+
+            final String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+
+            return value;
+        }
+
+    }
+
+}
@@ -2,6 +2,7 @@ package tv.helixware.mico.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.*;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.hibernate.annotations.Type;
 import org.joda.time.DateTime;
 import org.springframework.data.annotation.CreatedDate;
@@ -16,12 +17,13 @@ import javax.persistence.*;
  */
 @Data
 @Entity
+@Table(indexes = @Index(name = "idx_asset_guid_hash", columnList = "guid_hash"))
 // Generated constructors
 @AllArgsConstructor
 @NoArgsConstructor
 @RequiredArgsConstructor
 // JSON configuration: ignore the following properties when creating a new class instance from JSON payloads.
-@JsonIgnoreProperties({"id", "version", "createdDate", "lastModifiedDate"})
+@JsonIgnoreProperties({"id", "guidHash", "version", "createdDate", "lastModifiedDate"})
 public class Asset {
 
     @Id
@@ -39,6 +41,14 @@ public class Asset {
     @Column(length = 1024)
     private String guid;
 
+    /**
+     * The SHA-1 hash of the GUID, indexed since the GUID is too long to be indexed efficiently.
+     *
+     * @since 0.2.0
+     */
+    @Column(name = "guid_hash", length = 40)
+    private String guidHash;
+
     @Version
     private Long version;
 
@@ -52,4 +62,23 @@ public class Asset {
     @Column(name = "last_modified_date")
     private DateTime lastModifiedDate;
 
+    @PrePersist
+    @PreUpdate
+    private void updateGuidHash() {
+
+        guidHash = hash(guid);
+    }
+
+    /**
+     * Get the hash of a GUID, as stored in the `guid_hash` column.
+     *
+     * @param guid The GUID.
+     * @return The SHA-1 hash of the GUID, or null if the GUID is null.
+     * @since 0.2.0
+     */
+    public static String hash(final String guid) {
+
+        return null == guid ? null : DigestUtils.sha1Hex(guid);
+    }
+
 }
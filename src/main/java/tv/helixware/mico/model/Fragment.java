@@ -1,10 +1,15 @@
 package tv.helixware.mico.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.Type;
 import org.joda.time.DateTime;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import tv.helixware.mico.helpers.FragmentCursor;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -16,14 +21,29 @@ import java.io.Serializable;
  */
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_fragment_asset_id", columnList = "asset_id, start, id"),
+        @Index(name = "idx_fragment_asset_interval", columnList = "asset_id, start, end")
+})
 @Inheritance(strategy = InheritanceType.JOINED)
 @DiscriminatorColumn(name = "fragment_type")
 public abstract class Fragment implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * The ID, from a sequence (or a table where sequences aren't supported) with a pooled optimizer, so that a whole
+     * block of IDs is reserved with one round-trip and the inserts can be sent in JDBC batches.
+     *
+     * @since 0.2.0
+     */
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "fragment_id")
+    @GenericGenerator(name = "fragment_id", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "fragment_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled")
+    })
     private Long id;
 
     @Column(name = "start", nullable = false)
@@ -36,6 +56,17 @@ public abstract class Fragment implements Serializable {
     @JoinColumn(name = "part_id")
     private Part part;
 
+    /**
+     * The ID of the {@link Asset} of the {@link Part}, denormalized so that the fragments of an {@link Asset} are
+     * found with an index lookup instead of joining the parts, items and assets. It's set when the fragment is
+     * inserted.
+     *
+     * @since 0.2.0
+     */
+    @JsonIgnore
+    @Column(name = "asset_id")
+    private Long assetId;
+
     @Version
     private Long version;
 
@@ -60,4 +91,24 @@ public abstract class Fragment implements Serializable {
 
     }
 
+    /**
+     * Get the continuation token of the keyset pagination which points right after this fragment.
+     *
+     * @return The continuation token, or null if the fragment isn't persisted yet.
+     * @since 0.2.0
+     */
+    @JsonProperty("cursor")
+    public String getCursor() {
+
+        return null == id || null == start ? null : FragmentCursor.encode(start, id);
+    }
+
+    @PrePersist
+    private void updateAssetId() {
+
+        if (null == assetId && null != part && null != part.getItem() && null != part.getItem().getAsset())
+            assetId = part.getItem().getAsset().getId();
+
+    }
+
 }
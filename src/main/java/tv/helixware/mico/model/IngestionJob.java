@@ -0,0 +1,153 @@
+package tv.helixware.mico.model;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+import org.joda.time.DateTime;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+
+import javax.persistence.*;
+
+/**
+ * The ingestion of an {@link Asset} into MICO. The job records the last completed stage, so that the ingestion can be
+ * resumed after a restart or retried after a failure.
+ *
+ * @since 0.2.0
+ */
+@Data
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "ingestion_job", indexes = @Index(name = "idx_ingestion_job_state", columnList = "state,next_attempt_at"))
+public class IngestionJob {
+
+    /**
+     * The stages of the ingestion, in order. Each state tells which stage is to be run next.
+     *
+     * @since 0.2.0
+     */
+    public enum State {
+
+        /**
+         * The {@link Item} and the {@link Part} are to be created (by downloading the file and uploading it to MICO).
+         */
+        DOWNLOADING,
+
+        /**
+         * The {@link Part} has been uploaded, the {@link Item} is to be submitted.
+         */
+        UPLOADED,
+
+        /**
+         * The {@link Item} has been submitted.
+         */
+        SUBMITTED,
+
+        /**
+         * Waiting for MICO to finish processing the {@link Item}.
+         */
+        POLLING,
+
+        /**
+         * MICO finished, the fragments are being extracted.
+         */
+        EXTRACTING,
+
+        /**
+         * The ingestion completed.
+         */
+        DONE,
+
+        /**
+         * The ingestion failed after the maximum number of attempts.
+         */
+        FAILED;
+
+        /**
+         * Whether the job is over.
+         *
+         * @return True if the state is {@link #DONE} or {@link #FAILED}.
+         * @since 0.2.0
+         */
+        public boolean isTerminal() {
+
+            return DONE == this || FAILED == this;
+        }
+
+    }
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @OneToOne(optional = false)
+    @JoinColumn(name = "asset_id", nullable = false, unique = true)
+    private Asset asset;
+
+    @ManyToOne
+    @JoinColumn(name = "item_id")
+    private Item item;
+
+    @ManyToOne
+    @JoinColumn(name = "part_id")
+    private Part part;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private State state = State.DOWNLOADING;
+
+    /**
+     * The number of failed attempts at the current stage.
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * When the job can be attempted again, null if immediately.
+     */
+    @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    @Column(name = "next_attempt_at")
+    private DateTime nextAttemptAt;
+
+    /**
+     * The worker instance which claimed the job.
+     */
+    @Column(length = 64)
+    private String owner;
+
+    /**
+     * When the claim expires, the owner renews it while the job is running.
+     */
+    @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    @Column(name = "locked_until")
+    private DateTime lockedUntil;
+
+    @Column(name = "last_error", length = 1024)
+    private String lastError;
+
+    @Version
+    private Long version;
+
+    @CreatedDate
+    @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    @Column(name = "created_date")
+    private DateTime createdDate;
+
+    @LastModifiedDate
+    @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    @Column(name = "last_modified_date")
+    private DateTime lastModifiedDate;
+
+    /**
+     * Create an {@link IngestionJob} for the {@link Asset}, starting from the first stage.
+     *
+     * @param asset The {@link Asset}.
+     * @since 0.2.0
+     */
+    public IngestionJob(final Asset asset) {
+
+        this.asset = asset;
+    }
+
+}
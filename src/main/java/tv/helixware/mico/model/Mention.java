@@ -0,0 +1,143 @@
+package tv.helixware.mico.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import javax.persistence.*;
+
+/**
+ * An entry of the inverted index of the entities and topics: a reference (the entity or topic URI) mentioned by a
+ * {@link Part}, with the highest confidence of its mentions in the {@link Part}.
+ * <p>
+ * The entries are indexed by the hash of the reference and the confidence, so that the {@link Part}s mentioning a
+ * reference are found with an index range scan in confidence order, which stops after the first K entries.
+ *
+ * @since 0.2.0
+ */
+@Data
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = {
+        @Index(name = "idx_mention_reference", columnList = "reference_hash, confidence"),
+        @Index(name = "idx_mention_part", columnList = "part_id")
+})
+public class Mention {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    /**
+     * The SHA-1 hash of the reference, indexed since the reference is too long to be indexed efficiently.
+     *
+     * @since 0.2.0
+     */
+    @JsonIgnore
+    @Column(name = "reference_hash", nullable = false, length = 40)
+    private String referenceHash;
+
+    /**
+     * The entity or topic URI.
+     *
+     * @since 0.2.0
+     */
+    @Column(nullable = false, length = 1024)
+    private String reference;
+
+    /**
+     * The fragment type, `entity` or `topic`.
+     *
+     * @since 0.2.0
+     */
+    @Column(nullable = false, length = 16)
+    private String kind;
+
+    private String label;
+
+    /**
+     * The highest confidence of the mentions.
+     *
+     * @since 0.2.0
+     */
+    private double confidence;
+
+    /**
+     * The number of mentions in the {@link Part}.
+     *
+     * @since 0.2.0
+     */
+    private long mentions;
+
+    @ManyToOne
+    @JoinColumn(name = "asset_id")
+    private Asset asset;
+
+    @ManyToOne
+    @JoinColumn(name = "part_id", nullable = false)
+    private Part part;
+
+    /**
+     * Create a {@link Mention} instance, with no mentions yet.
+     *
+     * @param reference The entity or topic URI, see {@link #normalize(String)}.
+     * @param kind      The fragment type, `entity` or `topic`.
+     * @param label     The label.
+     * @param part      The {@link Part}.
+     * @since 0.2.0
+     */
+    public Mention(final String reference, final String kind, final String label, final Part part) {
+
+        this.reference = normalize(reference);
+        this.referenceHash = hash(this.reference);
+        this.kind = kind;
+        this.label = label;
+        this.part = part;
+        this.asset = null == part.getItem() ? null : part.getItem().getAsset();
+    }
+
+    /**
+     * Add a mention, keeping the highest confidence.
+     *
+     * @param confidence The confidence of the mention.
+     * @since 0.2.0
+     */
+    public void add(final double confidence) {
+
+        if (0 == mentions++ || confidence > this.confidence)
+            this.confidence = confidence;
+    }
+
+    /**
+     * Normalize a reference to the bare IRI, as stored in the `reference` column: the extractors may return the
+     * references in the SPARQL/N-Triples form, e.g. `<http://dbpedia.org/resource/Rome>`.
+     *
+     * @param reference The reference.
+     * @return The bare IRI, or null if the reference is null.
+     * @since 0.2.0
+     */
+    public static String normalize(final String reference) {
+
+        if (null == reference)
+            return null;
+
+        final String trimmed = reference.trim();
+
+        return trimmed.startsWith("<") && trimmed.endsWith(">") ? trimmed.substring(1, trimmed.length() - 1).trim() : trimmed;
+    }
+
+    /**
+     * Get the hash of a reference, as stored in the `reference_hash` column.
+     *
+     * @param reference The reference.
+     * @return The SHA-1 hash of the reference, or null if the reference is null.
+     * @since 0.2.0
+     */
+    public static String hash(final String reference) {
+
+        return null == reference ? null : DigestUtils.sha1Hex(reference);
+    }
+
+}
@@ -22,8 +22,8 @@ public class SequenceFragment extends Fragment {
     /**
      * Create an instance of the Sequence Fragment.
      *
-     * @param start The start time in seconds.
-     * @param end   The end time in seconds.
+     * @param start The start time in milliseconds.
+     * @param end   The end time in milliseconds.
      * @param part  The {@link Part} this fragments refers to.
      * @since 0.1.0
      */
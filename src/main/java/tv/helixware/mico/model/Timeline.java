@@ -0,0 +1,92 @@
+package tv.helixware.mico.model;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Type;
+import org.joda.time.DateTime;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+
+import javax.persistence.*;
+
+/**
+ * The materialized timeline of an {@link Asset}: one denormalized JSON document with all the shots, faces, entities
+ * and topics sorted by time, built when the extraction ends and served with a single key lookup.
+ *
+ * @since 0.2.0
+ */
+@Data
+@Entity
+@ToString(exclude = "document")
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "timeline", indexes = @Index(name = "idx_timeline_guid_hash", columnList = "guid_hash"))
+public class Timeline {
+
+    /**
+     * The version of the document format, the documents with an older format are rebuilt by the backfill.
+     *
+     * @since 0.2.0
+     */
+    public final static int FORMAT = 1;
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @OneToOne(optional = false)
+    @JoinColumn(name = "asset_id", nullable = false, unique = true)
+    private Asset asset;
+
+    /**
+     * The hash of the {@link Asset} GUID, see {@link Asset#hash(String)}.
+     */
+    @Column(name = "guid_hash", nullable = false, length = 40)
+    private String guidHash;
+
+    /**
+     * The format of the document.
+     */
+    @Column(nullable = false)
+    private int format;
+
+    /**
+     * The number of times the document has been built, used as the ETag.
+     */
+    @Column(nullable = false)
+    private long revision;
+
+    /**
+     * The number of fragments in the document.
+     */
+    @Column(nullable = false)
+    private long fragments;
+
+    /**
+     * The JSON document (UTF-8).
+     */
+    @Lob
+    @Column(nullable = false)
+    private byte[] document;
+
+    @Version
+    private Long version;
+
+    @CreatedDate
+    @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    @Column(name = "created_date")
+    private DateTime createdDate;
+
+    @LastModifiedDate
+    @Type(type = "org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    @Column(name = "last_modified_date")
+    private DateTime lastModifiedDate;
+
+    public Timeline(final Asset asset) {
+
+        this.asset = asset;
+        this.guidHash = Asset.hash(asset.getGuid());
+    }
+
+}
@@ -1,8 +1,17 @@
 package tv.helixware.mico.persist;
 
+import org.joda.time.DateTime;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RestResource;
 import tv.helixware.mico.model.Asset;
 
+import javax.persistence.LockModeType;
+import java.util.List;
+
 /**
  * Provides persistence and REST (via Spring Data REST) access to {@link Asset}s.
  *
@@ -10,4 +19,45 @@ import tv.helixware.mico.model.Asset;
  */
 public interface AssetRepository extends PagingAndSortingRepository<Asset, Long> {
 
+    /**
+     * Find the {@link Asset}s following the specified id, e.g. to walk all the assets in batches.
+     *
+     * @param id   The id after which to start.
+     * @param page The maximum number of {@link Asset}s.
+     * @return A list of {@link Asset}s, sorted by id.
+     * @since 0.2.0
+     */
+    @RestResource(exported = false)
+    List<Asset> findByIdGreaterThanOrderByIdAsc(@Param("id") Long id, Pageable page);
+
+    /**
+     * Find an {@link Asset} and lock it until the end of the transaction, e.g. to serialize the updates of the data
+     * derived from the asset across threads and instances.
+     *
+     * @param id The {@link Asset} id.
+     * @return The {@link Asset}, or null if not found.
+     * @since 0.2.0
+     */
+    @RestResource(exported = false)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Asset a where a.id = :id")
+    Asset findOneForUpdate(@Param("id") Long id);
+
+    /**
+     * Find the {@link Asset}s created before the specified time which have neither an
+     * {@link tv.helixware.mico.model.IngestionJob} nor an {@link tv.helixware.mico.model.Item}, i.e. whose job has been
+     * lost. The assets ingested before the jobs were introduced have an item and aren't returned.
+     *
+     * @param before The time before which the assets have been created.
+     * @param page   The maximum number of {@link Asset}s.
+     * @return A list of {@link Asset}s, sorted by id.
+     * @since 0.2.0
+     */
+    @RestResource(exported = false)
+    @Query("select a from Asset a where a.createdDate < :before"
+            + " and not exists (select j from IngestionJob j where j.asset = a)"
+            + " and not exists (select i from Item i where i.asset = a)"
+            + " order by a.id")
+    List<Asset> findWithoutJob(@Param("before") DateTime before, Pageable page);
+
 }
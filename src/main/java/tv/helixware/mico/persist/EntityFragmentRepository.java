@@ -1,11 +1,25 @@
 package tv.helixware.mico.persist;
 
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RestResource;
 import tv.helixware.mico.model.EntityFragment;
 
+import java.util.List;
+
 /**
  * Manage persistence and data REST operations for {@link EntityFragment}s.
  *
  * @since 0.2.0
  */
 public interface EntityFragmentRepository extends FragmentRepository<EntityFragment> {
+
+    /**
+     * The query selects the fragments of all the types, it's exported only by the {@link FragmentRepository}.
+     *
+     * @since 0.2.0
+     */
+    @Override
+    @RestResource(exported = false)
+    List<EntityFragment> findByAssetGUIDOverlapping(@Param("guid") String guid, @Param("start") Long start, @Param("end") Long end);
+
 }
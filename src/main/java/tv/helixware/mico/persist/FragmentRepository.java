@@ -2,12 +2,16 @@ package tv.helixware.mico.persist;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RestResource;
 import tv.helixware.mico.model.Fragment;
 import tv.helixware.mico.model.Part;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -18,9 +22,110 @@ import java.util.stream.Stream;
  */
 public interface FragmentRepository<T extends Fragment> extends PagingAndSortingRepository<T, Long> {
 
-    @Query("select f from Fragment f where f.part.item.asset.guid = :guid")
+    /**
+     * Find the fragments of the assets with the specified GUID. The assets are looked up by the indexed GUID hash and
+     * the fragments by their (indexed) asset id, without joining the parts and the items.
+     *
+     * @param guid The asset GUID.
+     * @param page The {@link Pageable}.
+     * @return A {@link Page} of fragments.
+     * @since 0.1.0
+     */
+    @Query(value = "select f from Fragment f where f.assetId in ("
+            + "select a.id from Asset a where a.guidHash = :#{T(tv.helixware.mico.model.Asset).hash(#guid)} and a.guid = :guid)",
+            countQuery = "select count(f) from Fragment f where f.assetId in ("
+                    + "select a.id from Asset a where a.guidHash = :#{T(tv.helixware.mico.model.Asset).hash(#guid)} and a.guid = :guid)")
     Page<T> findByAssetGUID(@Param("guid") String guid, Pageable page);
 
+    /**
+     * Find the fragments of the assets with the specified GUID using keyset pagination: the fragments are ordered by
+     * start and id, and each page begins right after the provided position (the start and the id of the last fragment
+     * of the previous page, see {@link tv.helixware.mico.helpers.FragmentCursor}). Unlike
+     * {@link #findByAssetGUID(String, Pageable)}, the cost of a page doesn't grow with its depth and no count query is
+     * run.
+     * <p>
+     * It's exposed by the {@link tv.helixware.mico.controllers.FragmentSearchController}, which decodes the continuation
+     * token and always requests the first page with no sort: only the page size is taken from the {@link Pageable}.
+     *
+     * @param guid  The asset GUID.
+     * @param start The start of the last fragment of the previous page, {@link Long#MIN_VALUE} for the first page.
+     * @param id    The id of the last fragment of the previous page, {@link Long#MIN_VALUE} for the first page.
+     * @param page  The {@link Pageable}, page 0 with no sort.
+     * @return A {@link Slice} of fragments.
+     * @since 0.2.0
+     */
+    @RestResource(exported = false)
+    @Query("select f from Fragment f where f.assetId in ("
+            + "select a.id from Asset a where a.guidHash = :#{T(tv.helixware.mico.model.Asset).hash(#guid)} and a.guid = :guid)"
+            + " and (f.start > :start or (f.start = :start and f.id > :id))"
+            + " order by f.start, f.id")
+    Slice<T> findByAssetGUIDAfter(@Param("guid") String guid, @Param("start") long start, @Param("id") long id, Pageable page);
+
+    /**
+     * Find the fragments of the assets with the specified GUID which overlap a time range, i.e. which start before
+     * the end of the range and end after its start.
+     *
+     * @param guid  The asset GUID.
+     * @param start The range start in milliseconds (inclusive).
+     * @param end   The range end in milliseconds (inclusive).
+     * @return The overlapping fragments, sorted by start.
+     * @since 0.2.0
+     */
+    @Query("select f from Fragment f where f.assetId in ("
+            + "select a.id from Asset a where a.guidHash = :#{T(tv.helixware.mico.model.Asset).hash(#guid)} and a.guid = :guid)"
+            + " and f.start <= :end and f.end >= :start"
+            + " order by f.start, f.id")
+    List<T> findByAssetGUIDOverlapping(@Param("guid") String guid, @Param("start") Long start, @Param("end") Long end);
+
+    /**
+     * Find all the fragments of one type of the assets with the specified GUID.
+     *
+     * @param guid The asset GUID.
+     * @param type The fragment type.
+     * @return The fragments, sorted by start.
+     * @since 0.2.0
+     */
+    @RestResource(exported = false)
+    @Query("select f from Fragment f where f.assetId in ("
+            + "select a.id from Asset a where a.guidHash = :#{T(tv.helixware.mico.model.Asset).hash(#guid)} and a.guid = :guid)"
+            + " and type(f) = :type"
+            + " order by f.start, f.id")
+    List<T> findAllByAssetGUIDAndType(@Param("guid") String guid, @Param("type") Class<? extends Fragment> type);
+
+    /**
+     * Stream all the fragments of the assets with the specified GUID, fetching the rows in blocks. It must be called
+     * in a transaction and the {@link Stream} must be closed.
+     *
+     * @param guid The asset GUID.
+     * @return A {@link Stream} of fragments, sorted by start.
+     * @since 0.2.0
+     */
+    @RestResource(exported = false)
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select f from Fragment f where f.assetId in ("
+            + "select a.id from Asset a where a.guidHash = :#{T(tv.helixware.mico.model.Asset).hash(#guid)} and a.guid = :guid)"
+            + " order by f.start, f.id")
+    Stream<T> streamAllByAssetGUID(@Param("guid") String guid);
+
+    /**
+     * Stream all the fragments of an asset, fetching the rows in blocks. It must be called in a transaction and the
+     * {@link Stream} must be closed.
+     *
+     * @param assetId The asset id.
+     * @return A {@link Stream} of fragments, sorted by start.
+     * @since 0.2.0
+     */
+    @RestResource(exported = false)
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select f from Fragment f where f.assetId = :assetId order by f.start, f.id")
+    Stream<T> streamAllByAssetId(@Param("assetId") Long assetId);
+
     @Query("select f from Fragment f where f.part = :part")
     List<T> findAllWherePartEquals(@Param("part") Part part);
 
@@ -0,0 +1,89 @@
+package tv.helixware.mico.persist;
+
+import org.joda.time.DateTime;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
+import org.springframework.transaction.annotation.Transactional;
+import tv.helixware.mico.model.IngestionJob;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Provides persistence to {@link IngestionJob}s. The jobs aren't exported by Spring Data REST, since they're driven by
+ * the {@link tv.helixware.mico.services.IngestionWorker} and a client changing or deleting a claimed job would break
+ * the ingestion.
+ *
+ * @since 0.2.0
+ */
+@RepositoryRestResource(exported = false)
+public interface IngestionJobRepository extends PagingAndSortingRepository<IngestionJob, Long> {
+
+    /**
+     * Find the jobs which are not over, not claimed (or whose claim expired) and due for an attempt.
+     *
+     * @param terminal The terminal states.
+     * @param now      The current time.
+     * @param page     The maximum number of jobs.
+     * @return A list of {@link IngestionJob}s, oldest first.
+     * @since 0.2.0
+     */
+    @RestResource(exported = false)
+    @Query("select j from IngestionJob j where j.state not in :terminal"
+            + " and (j.lockedUntil is null or j.lockedUntil < :now)"
+            + " and (j.nextAttemptAt is null or j.nextAttemptAt <= :now)"
+            + " order by j.id")
+    List<IngestionJob> findDue(@Param("terminal") Collection<IngestionJob.State> terminal, @Param("now") DateTime now, Pageable page);
+
+    /**
+     * Count the jobs in the provided state.
+     *
+     * @param state The {@link IngestionJob.State}.
+     * @return The number of jobs.
+     * @since 0.2.0
+     */
+    @RestResource(exported = false)
+    long countByState(IngestionJob.State state);
+
+    /**
+     * Claim a job, unless another worker claimed it meanwhile. The bulk update bypasses the optimistic locking, the
+     * version is therefore incremented explicitly: a copy of the job loaded before the claim (e.g. by a worker whose
+     * claim expired) can't be saved over it anymore.
+     *
+     * @param id    The job id.
+     * @param owner The worker instance.
+     * @param now   The current time.
+     * @param until When the claim expires.
+     * @return 1 if the job has been claimed, otherwise 0.
+     * @since 0.2.0
+     */
+    @Modifying
+    @Transactional
+    @RestResource(exported = false)
+    @Query("update IngestionJob j set j.owner = :owner, j.lockedUntil = :until, j.version = j.version + 1"
+            + " where j.id = :id and (j.lockedUntil is null or j.lockedUntil < :now)")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("now") DateTime now, @Param("until") DateTime until);
+
+    /**
+     * Extend the claims of a worker on its running jobs. Unlike {@link #claim(Long, String, DateTime, DateTime)}, the
+     * version is deliberately left unchanged: the owner keeps saving the copies of the jobs it loaded before the
+     * renewal, and only the owner's claims are renewed.
+     *
+     * @param ids   The running job ids.
+     * @param owner The worker instance.
+     * @param until When the claims expire.
+     * @return The number of renewed claims.
+     * @since 0.2.0
+     */
+    @Modifying
+    @Transactional
+    @RestResource(exported = false)
+    @Query("update IngestionJob j set j.lockedUntil = :until where j.id in :ids and j.owner = :owner")
+    int renew(@Param("ids") Collection<Long> ids, @Param("owner") String owner, @Param("until") DateTime until);
+
+}
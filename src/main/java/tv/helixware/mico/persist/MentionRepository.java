@@ -0,0 +1,64 @@
+package tv.helixware.mico.persist;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RestResource;
+import tv.helixware.mico.model.Mention;
+import tv.helixware.mico.model.Part;
+
+import java.util.List;
+
+/**
+ * Provides persistence and REST (via Spring Data REST) access to the {@link Mention}s, i.e. the inverted index of the
+ * entities and topics. The index is maintained by the {@link tv.helixware.mico.services.MentionIndex}, therefore it's
+ * read-only over REST.
+ *
+ * @since 0.2.0
+ */
+public interface MentionRepository extends PagingAndSortingRepository<Mention, Long> {
+
+    /**
+     * Find the {@link Mention}s of a reference, the most confident first, e.g.
+     * `/mentions/search/findByReference?reference=http://dbpedia.org/resource/Rome&size=10`. The entries are read
+     * from the index in confidence order and only the first K (the page size) are read, no count query is run. The
+     * reference is normalized like the indexed ones, i.e. it may be enclosed in angle brackets.
+     *
+     * @param reference The entity or topic URI.
+     * @param page      The {@link Pageable}.
+     * @return The {@link Mention}s, sorted by confidence (descending).
+     * @since 0.2.0
+     */
+    @Query("select m from Mention m"
+            + " where m.referenceHash = :#{T(tv.helixware.mico.model.Mention).hash(T(tv.helixware.mico.model.Mention).normalize(#reference))}"
+            + " and m.reference = :#{T(tv.helixware.mico.model.Mention).normalize(#reference)}"
+            + " order by m.confidence desc, m.id")
+    List<Mention> findByReference(@Param("reference") String reference, Pageable page);
+
+    /**
+     * Delete the {@link Mention}s of a {@link Part}, before indexing its fragments again.
+     *
+     * @param part The {@link Part}.
+     * @return The number of deleted {@link Mention}s.
+     * @since 0.2.0
+     */
+    @Modifying
+    @RestResource(exported = false)
+    @Query("delete from Mention m where m.part = :part")
+    int deleteByPart(@Param("part") Part part);
+
+    @Override
+    @RestResource(exported = false)
+    <S extends Mention> S save(S mention);
+
+    @Override
+    @RestResource(exported = false)
+    void delete(Long id);
+
+    @Override
+    @RestResource(exported = false)
+    void delete(Mention mention);
+
+}
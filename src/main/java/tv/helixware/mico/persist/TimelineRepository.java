@@ -0,0 +1,40 @@
+package tv.helixware.mico.persist;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import tv.helixware.mico.model.Asset;
+import tv.helixware.mico.model.Timeline;
+
+import java.util.List;
+
+/**
+ * Provides persistence to {@link Timeline}s, which are served by the timeline controller rather than Spring Data REST.
+ *
+ * @since 0.2.0
+ */
+@RepositoryRestResource(exported = false)
+public interface TimelineRepository extends PagingAndSortingRepository<Timeline, Long> {
+
+    /**
+     * Find the {@link Timeline}s of the assets with the specified GUID, using the indexed GUID hash.
+     *
+     * @param guid The asset GUID.
+     * @return The {@link Timeline}s, most recent asset first.
+     * @since 0.2.0
+     */
+    @Query("select t from Timeline t where t.guidHash = :#{T(tv.helixware.mico.model.Asset).hash(#guid)}"
+            + " and t.asset.guid = :guid order by t.id desc")
+    List<Timeline> findByGuid(@Param("guid") String guid);
+
+    /**
+     * Find the {@link Timeline} of an {@link Asset}.
+     *
+     * @param asset The {@link Asset}.
+     * @return The {@link Timeline}, or null if not found.
+     * @since 0.2.0
+     */
+    Timeline findByAsset(Asset asset);
+
+}
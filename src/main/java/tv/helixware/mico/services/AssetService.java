@@ -1,13 +1,13 @@
 package tv.helixware.mico.services;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.RandomStringUtils;
+import lombok.val;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import tv.helixware.mico.model.Asset;
-
-import java.net.MalformedURLException;
-import java.net.URL;
+import tv.helixware.mico.model.IngestionJob;
+import tv.helixware.mico.persist.IngestionJobRepository;
 
 /**
  * @since 0.1.0
@@ -16,51 +16,38 @@ import java.net.URL;
 @Service
 public class AssetService {
 
-    private final static String MICO_TYPE = "mico:Video";
-    private final static String MIME_TYPE = "video/mp4";
-
-    private final ItemService itemService;
-    private final PartService partService;
+    private final IngestionJobRepository jobRepository;
 
     /**
      * Create an instance of the AssetService.
      *
-     * @param itemService
-     * @param partService
+     * @param jobRepository
      * @since 0.1.0
      */
     @Autowired
-    public AssetService(final ItemService itemService, final PartService partService) {
+    public AssetService(final IngestionJobRepository jobRepository) {
 
-        this.itemService = itemService;
-        this.partService = partService;
+        this.jobRepository = jobRepository;
     }
 
     /**
-     * Have MICO process an {@link Asset}.
+     * Have MICO process an {@link Asset}. This only queues an {@link IngestionJob}, the {@link IngestionWorker} runs it.
+     * Nothing is queued if the asset already has a job, e.g. when the job of the asset has been queued by the
+     * {@link IngestionWorker#reconcile()} meanwhile.
      *
      * @param asset
      * @since 0.1.0
      */
     public void upload(final Asset asset) {
 
-        // Get the URL for the asset.
-        final URL url;
         try {
-            url = new URL(asset.getUrl());
-        } catch (MalformedURLException e) {
-            log.error(String.format("The URL is invalid [ url :: %s ]", asset.getUrl()), e);
-            return;
-        }
+            val job = jobRepository.save(new IngestionJob(asset));
 
-        // Create a content item, if successful create a content part with the file and then process the annotations.
-        itemService.create(asset).ifPresent(ci -> partService
-                .create(ci, MICO_TYPE, MIME_TYPE, RandomStringUtils.randomAlphanumeric(12) + ".mp4", url)
-                .ifPresent(cp -> {
-                    itemService.submit(ci); // Submit the content item.
-                    partService.process(cp); // Process the results for the content part.
-                }));
+            log.info(String.format("Ingestion job queued [ asset id :: %d ][ job id :: %d ]", asset.getId(), job.getId()));
 
+        } catch (DataIntegrityViolationException e) {
+            log.info(String.format("The ingestion job is already queued [ asset id :: %d ]", asset.getId()));
+        }
     }
 
 }
@@ -0,0 +1,248 @@
+package tv.helixware.mico.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import tv.helixware.mico.model.Asset;
+import tv.helixware.mico.model.Item;
+import tv.helixware.mico.model.Part;
+import tv.helixware.mico.response.CheckStatusResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A non-blocking variant of the {@link MicoClient}: requests are sent using the shared async Http client and each
+ * method returns immediately with a {@link CompletableFuture}.
+ * <p>
+ * Errors are handled as in the {@link MicoClient}: they are logged and the future completes with an empty result, it
+ * never completes exceptionally. The futures complete on the Http I/O dispatcher threads, therefore blocking work
+ * should be chained using the *async* variants of the {@link CompletableFuture} methods.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class AsyncMicoClient {
+
+    /**
+     * The {@link MicoClient}, which provides the URLs and parses the responses.
+     *
+     * @since 0.2.0
+     */
+    private final MicoClient client;
+
+    /**
+     * The shared {@link HttpTransport}.
+     *
+     * @since 0.2.0
+     */
+    private final HttpTransport transport;
+
+    /**
+     * Create a {@link Item}.
+     *
+     * @param asset The {@link Asset}.
+     * @return A future with the {@link Item} or empty in case of errors.
+     * @since 0.2.0
+     */
+    public CompletableFuture<Optional<Item>> create(final Asset asset) {
+
+        val url = client.createUrl();
+
+        log.debug(String.format("Creating item [ url :: %s ]", url));
+
+        return request(new HttpPost(url))
+                .thenApply(response -> response.flatMap(body -> client.parseItem(asset, url, body)));
+    }
+
+    /**
+     * Add a {@link Part} to a {@link Item}. The file is streamed from disk without blocking.
+     *
+     * @param item     The {@link Item}.
+     * @param micoType The MICO type.
+     * @param mimeType The mime type.
+     * @param name     The part name.
+     * @param file     The file.
+     * @return A future with the {@link Part} or empty in case of errors.
+     * @since 0.2.0
+     */
+    public CompletableFuture<Optional<Part>> addContentPart(final Item item, final String micoType, final String mimeType, final String name, final File file) {
+
+        final URI url;
+        final HttpAsyncRequestProducer producer;
+        try {
+            url = client.addContentPartUrl(item, micoType, name);
+            producer = HttpAsyncMethods.createZeroCopyPost(url, file, ContentType.DEFAULT_BINARY);
+        } catch (Exception e) {
+            log.error(String.format("Cannot create the request [ item uri :: %s ][ file :: %s ]", item.getUri(), file), e);
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        log.debug(String.format("Creating part [ url :: %s ]", url));
+
+        return request(producer, url)
+                .thenApply(response -> response.flatMap(body -> client.parsePart(item, micoType, name, url.toString(), body)));
+    }
+
+    /**
+     * Submit the {@link Item} for processing.
+     *
+     * @param item The {@link Item}.
+     * @return A future with true if the submission succeeded, otherwise false.
+     * @since 0.2.0
+     */
+    public CompletableFuture<Boolean> submit(final Item item) {
+
+        final URI url;
+        try {
+            url = client.submitUrl(item);
+        } catch (Exception e) {
+            log.error(String.format("An error occurred while submitting a Content Item [ item uri :: %s ]", item.getUri()), e);
+            return CompletableFuture.completedFuture(false);
+        }
+
+        log.debug(String.format("Submitting item [ url :: %s ]", url));
+
+        // If the response is present (although empty), it's a success.
+        return request(new HttpPost(url)).thenApply(Optional::isPresent);
+    }
+
+    /**
+     * Check the status of an {@link Item}.
+     *
+     * @param item  The {@link Item}.
+     * @param parts Whether to include the parts in the response.
+     * @return A future with the list of {@link CheckStatusResponse}s, empty in case of errors.
+     * @since 0.2.0
+     */
+    public CompletableFuture<List<CheckStatusResponse>> checkStatus(final Item item, final boolean parts) {
+
+        final URI url;
+        try {
+            url = client.checkStatusUrl(item, parts);
+        } catch (Exception e) {
+            log.error("Cannot build url", e);
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        log.debug(String.format("Checking status [ url :: %s ]", url));
+
+        return request(new HttpGet(url))
+                .thenApply(response -> response
+                        .map(body -> client.parseCheckStatus(url, body))
+                        .orElse(Collections.emptyList()));
+    }
+
+    /**
+     * Check the status of many {@link Item}s with one request. When the collection is empty, the status of all the
+     * items known to the broker is returned.
+     *
+     * @param items The {@link Item}s.
+     * @param parts Whether to include the parts in the response.
+     * @return A future with the list of {@link CheckStatusResponse}s, empty in case of errors.
+     * @since 0.2.0
+     */
+    public CompletableFuture<List<CheckStatusResponse>> checkStatus(final Collection<Item> items, final boolean parts) {
+
+        final URI url;
+        try {
+            url = client.checkStatusUrl(items, parts);
+        } catch (Exception e) {
+            log.error("Cannot build url", e);
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        log.debug(String.format("Checking status [ items :: %d ][ url :: %s ]", items.size(), url));
+
+        return request(new HttpGet(url))
+                .thenApply(response -> response
+                        .map(body -> client.parseCheckStatus(url, body))
+                        .orElse(Collections.emptyList()));
+    }
+
+    private CompletableFuture<Optional<String>> request(final HttpGet get) {
+
+        return request(HttpAsyncMethods.create(get), get.getURI());
+    }
+
+    private CompletableFuture<Optional<String>> request(final HttpPost post) {
+
+        return request(HttpAsyncMethods.create(post), post.getURI());
+    }
+
+    /**
+     * Send the request and complete the future with the response body. The future completes with an empty if an
+     * error occurred or the status code is not 200.
+     *
+     * @param producer The {@link HttpAsyncRequestProducer}.
+     * @param url      The request URL (for logging).
+     * @return A future with the response body.
+     * @since 0.2.0
+     */
+    private CompletableFuture<Optional<String>> request(final HttpAsyncRequestProducer producer, final URI url) {
+
+        val future = new CompletableFuture<Optional<String>>();
+
+        try {
+            transport.getAsyncClient().execute(producer, HttpAsyncMethods.createConsumer(), new FutureCallback<HttpResponse>() {
+
+                @Override
+                public void completed(final HttpResponse response) {
+
+                    // If the status code is not 200 return an empty.
+                    if (200 != response.getStatusLine().getStatusCode()) {
+                        log.error(String.format("An error occurred while querying the remote server [ url :: %s ][ status line :: %s ]", url, response.getStatusLine().toString()));
+                        future.complete(Optional.empty());
+                        return;
+                    }
+
+                    try {
+                        future.complete(Optional.of(EntityUtils.toString(response.getEntity())));
+                    } catch (IOException e) {
+                        log.error(String.format("An error occurred while parsing the response [ url :: %s ]", url), e);
+                        future.complete(Optional.empty());
+                    }
+                }
+
+                @Override
+                public void failed(final Exception e) {
+
+                    log.error(String.format("An error occurred while querying the remote server [ url :: %s ]", url), e);
+                    future.complete(Optional.empty());
+                }
+
+                @Override
+                public void cancelled() {
+
+                    log.warn(String.format("Request cancelled [ url :: %s ]", url));
+                    future.complete(Optional.empty());
+                }
+
+            });
+        } catch (Exception e) {
+            log.error(String.format("An error occurred while sending the request [ url :: %s ]", url), e);
+            future.complete(Optional.empty());
+        }
+
+        return future;
+    }
+
+}
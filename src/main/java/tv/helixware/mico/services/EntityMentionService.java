@@ -11,7 +11,8 @@ import tv.helixware.mico.model.Part;
 import tv.helixware.mico.model.TopicFragment;
 import tv.helixware.mico.persist.FragmentRepository;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 
 /**
@@ -50,6 +51,13 @@ public class EntityMentionService {
             + "  ] ]"
             + " } }";
 
+    /**
+     * The variables selected by the statement.
+     *
+     * @since 0.2.0
+     */
+    private final static String[] VARS = {"label", "entityReference", "type", "confidence"};
+
     /**
      * A {@link QueryService} instance used to post queries to MICO.
      *
@@ -64,15 +72,54 @@ public class EntityMentionService {
      */
     private final FragmentRepository<Fragment> repository;
 
+    /**
+     * The {@link MentionIndex} updated with the retrieved {@link EntityFragment}s and {@link TopicFragment}s.
+     *
+     * @since 0.2.0
+     */
+    private final MentionIndex mentionIndex;
+
     /**
      * Retrieves the {@link EntityFragment}s and {@link TopicFragment}s from the remote MICO server and persist them
-     * to the local data store.
+     * to the local data store, updating the {@link MentionIndex}.
      *
      * @param part The {@link Part}.
      * @since 0.2.0
      */
     public void retrieve(final Part part) {
 
+        val fragments = extract(part);
+
+        repository.save(fragments);
+        mentionIndex.replace(part, fragments);
+
+    }
+
+    /**
+     * Retrieves the {@link EntityFragment}s and {@link TopicFragment}s from the remote MICO server without persisting
+     * them, so that the caller can save them in a short transaction once the remote query completed.
+     *
+     * @param part The {@link Part}.
+     * @return A list of {@link EntityFragment}s and {@link TopicFragment}s, not yet persisted.
+     * @throws IllegalStateException if the remote query fails.
+     * @since 0.2.0
+     */
+    public List<Fragment> extract(final Part part) {
+
+        return extract(part, queryService::selectPaged);
+    }
+
+    /**
+     * Retrieves the {@link EntityFragment}s and {@link TopicFragment}s using the specified {@link QueryService.Selector},
+     * e.g. an {@link ItemSnapshot}, without persisting them.
+     *
+     * @param part     The {@link Part}.
+     * @param selector The {@link QueryService.Selector}.
+     * @return A list of {@link EntityFragment}s and {@link TopicFragment}s, not yet persisted.
+     * @since 0.2.0
+     */
+    public List<Fragment> extract(final Part part, final QueryService.Selector selector) {
+
         // Get the item URI.
         val uri = part.getItem().getUri();
 
@@ -81,24 +128,26 @@ public class EntityMentionService {
         // Create the statement.
         val statement = String.format(STATEMENT, uri);
 
-        // Query the remote MICO instance and get the string response (which is a tsv).
-        val response = queryService.query(statement, "text/tab-separated-values");
-
-        log.trace(String.format("Received Entity Mentions response [ response :: %s ]", response));
-
-        // Split the whole file in lines, and skip the header.
-        Arrays.stream(response.split("\n")).skip(1)
-                // Split each line into fields.
-                .map(x -> x.split("\t"))
-                // Filter out rows with no fields.
-                .filter(x -> 4 == x.length)
-                // Create a TopicFragment or an EntityFragment, based on whether the `type` field is set (EntityFragment)
-                // or not (TopicFragment).
-                .map(x -> x[2].isEmpty()
-                        ? new TopicFragment(cleanLabel(x[0]), x[1], Double.valueOf(x[3]), part)
-                        : new EntityFragment(cleanLabel(x[0]), x[1], x[2], Double.valueOf(x[3]), part))
-                // Finally save each fragment.
-                .forEach(repository::save);
+        final List<Fragment> fragments = new ArrayList<>();
+
+        // Query the remote MICO instance, the rows are handled as they are received.
+        final long rows = selector.select(statement, VARS, x -> {
+
+            // Skip the rows with no confidence.
+            if (x[3].isEmpty())
+                return;
+
+            // Create a TopicFragment or an EntityFragment, based on whether the `type` field is set (EntityFragment)
+            // or not (TopicFragment).
+            fragments.add(x[2].isEmpty()
+                    ? new TopicFragment(cleanLabel(x[0]), x[1], Double.valueOf(x[3]), part)
+                    : new EntityFragment(cleanLabel(x[0]), x[1], x[2], Double.valueOf(x[3]), part));
+
+        }).orElseThrow(() -> new IllegalStateException(String.format("Cannot retrieve the Entity Mentions [ uri :: %s ]", uri)));
+
+        log.trace(String.format("Received Entity Mentions [ rows :: %d ][ fragments :: %d ]", rows, fragments.size()));
+
+        return fragments;
 
     }
 
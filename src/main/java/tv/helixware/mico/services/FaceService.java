@@ -0,0 +1,155 @@
+package tv.helixware.mico.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import tv.helixware.mico.helpers.MediaFragmentParser;
+import tv.helixware.mico.model.FaceFragment;
+import tv.helixware.mico.model.Part;
+
+import java.util.*;
+
+/**
+ * The {@link FaceService} queries MICO for the face detections of a {@link Part} and their temporal fragments.
+ * <p>
+ * Instead of one query for the face annotations followed by one query for the temporal fragment of each face, two
+ * queries are sent for the whole {@link Part}: one for the face boxes and one for the temporal fragments of all the
+ * faces. The results are joined locally on the face annotation URI.
+ *
+ * @since 0.2.0
+ */
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+@Service
+@Slf4j
+public class FaceService {
+
+    private final static String PREFIXES = "PREFIX mmm: <http://www.mico-project.eu/ns/mmm/2.0/schema#>\n"
+            + "PREFIX mmmterms: <http://www.mico-project.eu/ns/mmmterms/2.0/schema#>\n"
+            + "PREFIX oa: <http://www.w3.org/ns/oa#>\n"
+            + "PREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#>\n"
+            + "\n";
+
+    /**
+     * The statement template for the face boxes: the face annotation and the value of its fragment selector.
+     *
+     * @since 0.2.0
+     */
+    private final static String FACES_STATEMENT = PREFIXES
+            + "SELECT ?face ?xywh WHERE {"
+            + "  <%1$s> mmm:hasPart ?face ."
+            + "  ?face mmm:hasBody [ a mmmterms:FaceDetectionBody ] ;"
+            + "    mmm:hasTarget [ (oa:hasSelector|mmm:hasSelector) [ rdf:value ?xywh ] ] ."
+            + "}";
+
+    /**
+     * The statement template for the temporal fragments: the shot boundary or key frame annotations which are parts of
+     * the face annotations, with the value of their fragment selector.
+     *
+     * @since 0.2.0
+     */
+    private final static String FRAMES_STATEMENT = PREFIXES
+            + "SELECT ?face ?npt WHERE {"
+            + "  <%1$s> mmm:hasPart ?face ."
+            + "  ?face mmm:hasBody [ a mmmterms:FaceDetectionBody ] ;"
+            + "    mmm:hasPart ?frame ."
+            + "  ?frame mmm:hasBody ?frameBody ;"
+            + "    mmm:hasTarget [ (oa:hasSelector|mmm:hasSelector) [ rdf:value ?npt ] ] ."
+            + "  ?frameBody a ?frameType ."
+            + "  FILTER (?frameType IN (mmmterms:TVSShotBoundaryFrameBody, mmmterms:TVSKeyFrameBody))"
+            + "}";
+
+    /**
+     * A {@link QueryService} instance used to post queries to MICO.
+     *
+     * @since 0.2.0
+     */
+    private final QueryService queryService;
+
+    /**
+     * Retrieves the {@link FaceFragment}s of the {@link Part} from the remote MICO server, without persisting them.
+     * A {@link FaceFragment} is created for each face box and each of the temporal fragments of the face.
+     *
+     * @param part The {@link Part}.
+     * @return A list of {@link FaceFragment}s, not yet persisted.
+     * @since 0.2.0
+     */
+    public List<FaceFragment> extract(final Part part) {
+
+        return extract(part, queryService::selectPaged);
+    }
+
+    /**
+     * Retrieves the {@link FaceFragment}s of the {@link Part} using the specified {@link QueryService.Selector}, e.g. an
+     * {@link ItemSnapshot}, without persisting them.
+     *
+     * @param part     The {@link Part}.
+     * @param selector The {@link QueryService.Selector}.
+     * @return A list of {@link FaceFragment}s, not yet persisted.
+     * @since 0.2.0
+     */
+    public List<FaceFragment> extract(final Part part, final QueryService.Selector selector) {
+
+        val uri = part.getUri();
+
+        log.trace(String.format("Retrieving faces [ uri :: %s ]", uri));
+
+        final MediaFragmentParser parser = new MediaFragmentParser();
+
+        // Get the temporal fragments of each face annotation first.
+        final Map<String, List<long[]>> frames = new HashMap<>();
+        for (val row : select(selector, String.format(FRAMES_STATEMENT, uri), "face", "npt")) {
+
+            if (parser.parseTemporal(row[1]) && MediaFragmentParser.UNBOUNDED != parser.getEnd())
+                frames.computeIfAbsent(row[0], k -> new ArrayList<>())
+                        .add(new long[]{parser.getStart(), parser.getEnd()});
+        }
+
+        // Then join the face boxes with the temporal fragments.
+        final List<FaceFragment> fragments = new ArrayList<>();
+        for (val row : select(selector, String.format(FACES_STATEMENT, uri), "face", "xywh")) {
+
+            // The boxes are stored in pixels, the boxes in percent can't be converted without the frame size.
+            if (!parser.parseSpatial(row[1]) || parser.isPercent())
+                continue;
+
+            final long x = parser.getX();
+            final long y = parser.getY();
+            final long w = parser.getWidth();
+            final long h = parser.getHeight();
+
+            // Faces without temporal fragments are skipped, they are available only when the server is configured
+            // with Face Detection (video-keyframes).
+            frames.getOrDefault(row[0], Collections.emptyList())
+                    .forEach(npt -> fragments.add(new FaceFragment(npt[0], npt[1], x, y, w, h, part)));
+        }
+
+        log.debug(String.format("Found %d face fragment(s) [ uri :: %s ]", fragments.size(), uri));
+
+        return fragments;
+    }
+
+    /**
+     * Query the remote MICO instance (or a snapshot) and collect the rows of two fields.
+     *
+     * @param selector  The {@link QueryService.Selector}.
+     * @param statement The SPARQL statement.
+     * @param vars      The two variable names.
+     * @return A list of rows.
+     * @since 0.2.0
+     */
+    private List<String[]> select(final QueryService.Selector selector, final String statement, final String... vars) {
+
+        final List<String[]> rows = new ArrayList<>();
+
+        // Skip the rows with missing fields.
+        selector.select(statement, vars, x -> {
+            if (!x[0].isEmpty() && !x[1].isEmpty())
+                rows.add(x);
+        }).orElseThrow(() -> new IllegalStateException("Cannot query the faces"));
+
+        return rows;
+    }
+
+}
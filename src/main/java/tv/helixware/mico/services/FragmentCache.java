@@ -0,0 +1,175 @@
+package tv.helixware.mico.services;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Service;
+import tv.helixware.mico.helpers.IntervalIndex;
+import tv.helixware.mico.model.*;
+import tv.helixware.mico.persist.FragmentRepository;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * A read-through cache of the fragments of an asset by asset GUID and fragment type, in front of the
+ * {@link FragmentRepository}.
+ * <p>
+ * The fragments of an asset don't change once the extraction finished, therefore they're kept until they expire or
+ * until the cache is full; the cache is bounded by the total number of fragments (weight) rather than by the number of
+ * assets. The fragments of an asset are invalidated when a part of the asset is (re-)extracted and, optionally,
+ * loaded again right away. The hits, misses and evictions are published on `/metrics` as `cache.fragments.*`.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@Service
+public class FragmentCache implements PublicMetrics {
+
+    /**
+     * The fragment types, each cached separately.
+     *
+     * @since 0.2.0
+     */
+    public final static List<Class<? extends Fragment>> TYPES = Collections.unmodifiableList(Arrays.asList(
+            SequenceFragment.class, FaceFragment.class, EntityFragment.class, TopicFragment.class));
+
+    private final FragmentRepository<Fragment> fragmentRepository;
+
+    private final LoadingCache<Key, IntervalIndex<Fragment>> cache;
+
+    /**
+     * Whether to load the fragments again as soon as they're invalidated.
+     *
+     * @since 0.2.0
+     */
+    private final boolean warm;
+
+    /**
+     * Create a {@link FragmentCache} instance.
+     *
+     * @param fragmentRepository The {@link FragmentRepository}.
+     * @param maxWeight          The maximum number of cached fragments.
+     * @param ttl                The time in milliseconds after which the fragments of an asset are loaded again.
+     * @param warm               Whether to load the fragments again as soon as they're invalidated.
+     * @since 0.2.0
+     */
+    @Autowired
+    public FragmentCache(final FragmentRepository<Fragment> fragmentRepository,
+                         @Value("${mico.cache.fragments.max-weight:1000000}") final long maxWeight,
+                         @Value("${mico.cache.fragments.ttl:3600000}") final long ttl,
+                         @Value("${mico.cache.fragments.warm:true}") final boolean warm) {
+
+        this.fragmentRepository = fragmentRepository;
+        this.warm = warm;
+
+        // Each entry weighs at least 1, so that empty entries are bounded as well.
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Key key, IntervalIndex<Fragment> index) -> 1 + index.size())
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build(this::load);
+    }
+
+    /**
+     * Get the fragments of an asset of the specified type, loading them if they're not cached.
+     *
+     * @param guid The asset GUID.
+     * @param type The fragment type.
+     * @return An {@link IntervalIndex} with the fragments.
+     * @since 0.2.0
+     */
+    public IntervalIndex<Fragment> get(final String guid, final Class<? extends Fragment> type) {
+
+        return cache.get(new Key(guid, type));
+    }
+
+    /**
+     * Get the fragments of an asset of all the types.
+     *
+     * @param guid The asset GUID.
+     * @return A map of {@link IntervalIndex}es by fragment type.
+     * @since 0.2.0
+     */
+    public Map<Class<? extends Fragment>, IntervalIndex<Fragment>> getAll(final String guid) {
+
+        final Map<Key, IntervalIndex<Fragment>> all = cache.getAll(keys(guid));
+
+        final Map<Class<? extends Fragment>, IntervalIndex<Fragment>> byType = new LinkedHashMap<>();
+        all.forEach((key, index) -> byType.put(key.getType(), index));
+
+        return byType;
+    }
+
+    /**
+     * Invalidate the fragments of an asset, e.g. because a part has been extracted again, and load them again if
+     * warming is enabled.
+     *
+     * @param guid The asset GUID.
+     * @since 0.2.0
+     */
+    public void invalidate(final String guid) {
+
+        val keys = keys(guid);
+        cache.invalidateAll(keys);
+
+        log.debug(String.format("Fragments invalidated [ guid :: %s ]", guid));
+
+        if (warm)
+            cache.getAll(keys);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+
+        val stats = cache.stats();
+
+        final Collection<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("cache.fragments.size", cache.estimatedSize()));
+        metrics.add(new Metric<>("cache.fragments.hits", stats.hitCount()));
+        metrics.add(new Metric<>("cache.fragments.misses", stats.missCount()));
+        metrics.add(new Metric<>("cache.fragments.hit-rate", stats.hitRate()));
+        metrics.add(new Metric<>("cache.fragments.evictions", stats.evictionCount()));
+        metrics.add(new Metric<>("cache.fragments.load-failures", stats.loadFailureCount()));
+        metrics.add(new Metric<>("cache.fragments.load-time", TimeUnit.NANOSECONDS.toMillis(stats.totalLoadTime())));
+
+        return metrics;
+    }
+
+    private IntervalIndex<Fragment> load(final Key key) {
+
+        val fragments = fragmentRepository.findAllByAssetGUIDAndType(key.getGuid(), key.getType());
+
+        log.debug(String.format("Fragments loaded [ guid :: %s ][ type :: %s ][ fragments :: %d ]",
+                key.getGuid(), key.getType().getSimpleName(), fragments.size()));
+
+        return new IntervalIndex<>(fragments, Fragment::getStart, Fragment::getEnd);
+    }
+
+    private static List<Key> keys(final String guid) {
+
+        return TYPES.stream().map(type -> new Key(guid, type)).collect(Collectors.toList());
+    }
+
+    /**
+     * The cache key.
+     *
+     * @since 0.2.0
+     */
+    @Data
+    private static class Key {
+
+        private final String guid;
+        private final Class<? extends Fragment> type;
+
+    }
+
+}
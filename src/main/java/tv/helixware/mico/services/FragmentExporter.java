@@ -0,0 +1,242 @@
+package tv.helixware.mico.services;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tv.helixware.mico.model.*;
+import tv.helixware.mico.persist.FragmentRepository;
+
+import javax.persistence.DiscriminatorValue;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * Exports all the fragments of an asset as NDJSON (one JSON object per line) or CSV.
+ * <p>
+ * The fragments are read with a {@link Stream} query (with a JDBC fetch size) in a read-only transaction and written
+ * to the output stream one by one. Each fragment is detached once written, so that the memory doesn't grow with the
+ * number of fragments.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class FragmentExporter {
+
+    /**
+     * The export formats.
+     *
+     * @since 0.2.0
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Format {
+
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+    }
+
+    /**
+     * The exported fields, which are also the CSV header.
+     *
+     * @since 0.2.0
+     */
+    private final static String[] FIELDS = {"type", "id", "part", "start", "end", "x", "y", "width", "height",
+            "label", "reference", "entityType", "confidence"};
+
+    /**
+     * The number of fragments after which the output is flushed.
+     *
+     * @since 0.2.0
+     */
+    private final static int FLUSH_INTERVAL = 1000;
+
+    private final static JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final FragmentRepository<Fragment> fragmentRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Write all the fragments of an asset to the output stream.
+     *
+     * @param guid   The asset GUID.
+     * @param format The {@link Format}.
+     * @param output The {@link OutputStream}, which isn't closed.
+     * @return The number of exported fragments.
+     * @throws IOException if an error occurs while writing.
+     * @since 0.2.0
+     */
+    @Transactional(readOnly = true)
+    public long export(final String guid, final Format format, final OutputStream output) throws IOException {
+
+        val start = System.currentTimeMillis();
+
+        final RowWriter writer = Format.CSV == format ? new CsvWriter(output) : new NdjsonWriter(output);
+
+        long count = 0;
+        try (final Stream<Fragment> fragments = fragmentRepository.streamAllByAssetGUID(guid)) {
+            for (final Fragment fragment : (Iterable<Fragment>) fragments::iterator) {
+                writer.write(row(fragment));
+                entityManager.detach(fragment);
+
+                if (0 == ++count % FLUSH_INTERVAL)
+                    writer.flush();
+            }
+        }
+
+        writer.flush();
+
+        log.info(String.format("Fragments exported [ guid :: %s ][ format :: %s ][ fragments :: %d ][ elapsed :: %d ms ]",
+                guid, format, count, System.currentTimeMillis() - start));
+
+        return count;
+    }
+
+    /**
+     * Get the values of the {@link #FIELDS} of a fragment, null when the field doesn't apply to the fragment type.
+     *
+     * @param fragment The {@link Fragment}.
+     * @return The values.
+     * @since 0.2.0
+     */
+    private static Object[] row(final Fragment fragment) {
+
+        final Object[] row = new Object[FIELDS.length];
+        row[0] = fragment.getClass().getAnnotation(DiscriminatorValue.class).value();
+        row[1] = fragment.getId();
+        row[2] = null == fragment.getPart() ? null : fragment.getPart().getUri();
+        row[3] = fragment.getStart();
+        row[4] = fragment.getEnd();
+
+        if (fragment instanceof FaceFragment) {
+            val face = (FaceFragment) fragment;
+            row[5] = face.getX();
+            row[6] = face.getY();
+            row[7] = face.getWidth();
+            row[8] = face.getHeight();
+        } else if (fragment instanceof EntityFragment) {
+            val entity = (EntityFragment) fragment;
+            row[9] = entity.getLabel();
+            row[10] = entity.getReference();
+            row[11] = entity.getType();
+            row[12] = entity.getConfidence();
+        } else if (fragment instanceof TopicFragment) {
+            val topic = (TopicFragment) fragment;
+            row[9] = topic.getLabel();
+            row[10] = topic.getReference();
+            row[12] = topic.getConfidence();
+        }
+
+        return row;
+    }
+
+    private interface RowWriter {
+
+        void write(Object[] row) throws IOException;
+
+        void flush() throws IOException;
+
+    }
+
+    /**
+     * Writes each row as a JSON object on its own line, skipping the null fields.
+     *
+     * @since 0.2.0
+     */
+    private static class NdjsonWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        private NdjsonWriter(final OutputStream output) throws IOException {
+
+            generator = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(final Object[] row) throws IOException {
+
+            generator.writeStartObject();
+            for (int i = 0; i < FIELDS.length; i++) {
+                if (row[i] instanceof String)
+                    generator.writeStringField(FIELDS[i], (String) row[i]);
+                else if (row[i] instanceof Long)
+                    generator.writeNumberField(FIELDS[i], (Long) row[i]);
+                else if (row[i] instanceof Double)
+                    generator.writeNumberField(FIELDS[i], (Double) row[i]);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+
+            generator.flush();
+        }
+
+    }
+
+    /**
+     * Writes a header and a line for each row, quoting the values when needed (RFC 4180).
+     *
+     * @since 0.2.0
+     */
+    private static class CsvWriter implements RowWriter {
+
+        private final Writer writer;
+
+        private CsvWriter(final OutputStream output) throws IOException {
+
+            writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            writer.write(String.join(",", FIELDS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(final Object[] row) throws IOException {
+
+            for (int i = 0; i < row.length; i++) {
+                if (0 < i)
+                    writer.write(',');
+
+                if (null != row[i])
+                    writer.write(escape(row[i].toString()));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void flush() throws IOException {
+
+            writer.flush();
+        }
+
+        private static String escape(final String value) {
+
+            if (-1 == value.indexOf(',') && -1 == value.indexOf('"') && -1 == value.indexOf('\n') && -1 == value.indexOf('\r'))
+                return value;
+
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+    }
+
+}
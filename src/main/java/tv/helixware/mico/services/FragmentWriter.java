@@ -0,0 +1,68 @@
+package tv.helixware.mico.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tv.helixware.mico.model.Fragment;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+
+/**
+ * Persists large numbers of {@link Fragment}s in JDBC batches.
+ * <p>
+ * The fragments are persisted in chunks of the JDBC batch size: each chunk is flushed, so that Hibernate sends the
+ * (ordered) inserts in batches, and then cleared from the persistence context, so that its size (and the cost of
+ * dirty checking) doesn't grow with the number of fragments. All the entities of the persistence context are detached
+ * after a write.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@Service
+public class FragmentWriter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * The number of fragments flushed at once, which should match the JDBC batch size.
+     *
+     * @since 0.2.0
+     */
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    /**
+     * Persist the new {@link Fragment}s.
+     *
+     * @param fragments The {@link Fragment}s.
+     * @return The number of persisted {@link Fragment}s.
+     * @since 0.2.0
+     */
+    @Transactional
+    public int write(final Collection<? extends Fragment> fragments) {
+
+        final long start = System.currentTimeMillis();
+
+        int count = 0;
+        for (final Fragment fragment : fragments) {
+            entityManager.persist(fragment);
+
+            if (0 == ++count % batchSize) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        log.debug(String.format("Fragments written [ count :: %d ][ elapsed :: %d ms ]", count, System.currentTimeMillis() - start));
+
+        return count;
+    }
+
+}
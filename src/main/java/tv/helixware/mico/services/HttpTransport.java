@@ -0,0 +1,234 @@
+package tv.helixware.mico.services;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The shared outbound Http transport used by all the calls to MICO and HelixWare. Connections are kept alive and
+ * pooled per route, idle and expired connections are evicted in background and the pool statistics are published as
+ * metrics (see the `/metrics` endpoint).
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@Component
+public class HttpTransport implements PublicMetrics, DisposableBean {
+
+    /**
+     * The pooling connection manager.
+     *
+     * @since 0.2.0
+     */
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    /**
+     * The shared {@link CloseableHttpClient}, callers must never close it.
+     *
+     * @since 0.2.0
+     */
+    private final CloseableHttpClient client;
+
+    /**
+     * The non-blocking connection manager, used by the {@link CloseableHttpAsyncClient}.
+     *
+     * @since 0.2.0
+     */
+    private final PoolingNHttpClientConnectionManager asyncConnectionManager;
+
+    /**
+     * The shared non-blocking {@link CloseableHttpAsyncClient}, a few I/O dispatcher threads drive all the requests.
+     *
+     * @since 0.2.0
+     */
+    private final CloseableHttpAsyncClient asyncClient;
+
+    /**
+     * Evicts idle and expired connections from the non-blocking pool (the async client builder doesn't do it).
+     *
+     * @since 0.2.0
+     */
+    private final ScheduledExecutorService asyncEvictor;
+
+    /**
+     * Create an instance of the {@link HttpTransport}.
+     *
+     * @param maxTotal                 The maximum number of connections in the pool.
+     * @param maxPerRoute              The maximum number of connections per route.
+     * @param connectTimeout           The connect timeout in milliseconds.
+     * @param socketTimeout            The socket (read) timeout in milliseconds.
+     * @param connectionRequestTimeout The maximum time in milliseconds to wait for a connection from the pool.
+     * @param keepAlive                The keep-alive duration in milliseconds when the server doesn't send one.
+     * @param idleTimeout              The time in milliseconds after which idle connections are evicted.
+     * @param ioThreads                The number of I/O dispatcher threads of the async client.
+     * @throws IOReactorException
+     * @since 0.2.0
+     */
+    @Autowired
+    public HttpTransport(@Value("${http.pool.max-total:100}") final int maxTotal,
+                         @Value("${http.pool.max-per-route:20}") final int maxPerRoute,
+                         @Value("${http.connect-timeout:5000}") final int connectTimeout,
+                         @Value("${http.socket-timeout:300000}") final int socketTimeout,
+                         @Value("${http.connection-request-timeout:30000}") final int connectionRequestTimeout,
+                         @Value("${http.keep-alive:30000}") final long keepAlive,
+                         @Value("${http.idle-timeout:60000}") final long idleTimeout,
+                         @Value("${http.io-threads:2}") final int ioThreads) throws IOReactorException {
+
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        this.connectionManager.setMaxTotal(maxTotal);
+        this.connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        // Check stale connections before leasing them when they have been idle for a while.
+        this.connectionManager.setValidateAfterInactivity(2000);
+
+        val requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(socketTimeout)
+                .setConnectionRequestTimeout(connectionRequestTimeout)
+                .build();
+
+        this.client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                // Honor the server Keep-Alive header, otherwise keep the connection for `keepAlive` ms.
+                .setKeepAliveStrategy((response, context) -> {
+                    final long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return 0 < duration ? duration : keepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout, TimeUnit.MILLISECONDS)
+                .build();
+
+        val ioReactor = new DefaultConnectingIOReactor(IOReactorConfig.custom()
+                .setIoThreadCount(ioThreads)
+                .setConnectTimeout(connectTimeout)
+                .setSoTimeout(socketTimeout)
+                .setSoKeepAlive(true)
+                .build());
+
+        this.asyncConnectionManager = new PoolingNHttpClientConnectionManager(ioReactor);
+        this.asyncConnectionManager.setMaxTotal(maxTotal);
+        this.asyncConnectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+        this.asyncClient = HttpAsyncClients.custom()
+                .setConnectionManager(asyncConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    final long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return 0 < duration ? duration : keepAlive;
+                })
+                .build();
+        this.asyncClient.start();
+
+        this.asyncEvictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "http-async-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.asyncEvictor.scheduleWithFixedDelay(() -> {
+            asyncConnectionManager.closeExpiredConnections();
+            asyncConnectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+        }, idleTimeout, idleTimeout, TimeUnit.MILLISECONDS);
+
+        log.info(String.format("Http transport ready [ max total :: %d ][ max per route :: %d ][ io threads :: %d ]", maxTotal, maxPerRoute, ioThreads));
+    }
+
+    /**
+     * Get the shared {@link CloseableHttpClient}. Callers must release connections by closing the responses (or
+     * consuming their entities), but they must never close the client.
+     *
+     * @return The shared {@link CloseableHttpClient}.
+     * @since 0.2.0
+     */
+    public CloseableHttpClient getClient() {
+
+        return client;
+    }
+
+    /**
+     * Get the shared non-blocking {@link CloseableHttpAsyncClient}. Callbacks are invoked on the I/O dispatcher threads
+     * and therefore must not block. Callers must never close the client.
+     *
+     * @return The shared {@link CloseableHttpAsyncClient}.
+     * @since 0.2.0
+     */
+    public CloseableHttpAsyncClient getAsyncClient() {
+
+        return asyncClient;
+    }
+
+    /**
+     * Get the pool statistics.
+     *
+     * @return A {@link PoolStats} instance.
+     * @since 0.2.0
+     */
+    public PoolStats getStats() {
+
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * Publish the pool statistics.
+     *
+     * @return A collection of {@link Metric}s.
+     * @since 0.2.0
+     */
+    @Override
+    public Collection<Metric<?>> metrics() {
+
+        val stats = getStats();
+
+        final Collection<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("http.pool.leased", stats.getLeased()));
+        metrics.add(new Metric<>("http.pool.pending", stats.getPending()));
+        metrics.add(new Metric<>("http.pool.available", stats.getAvailable()));
+        metrics.add(new Metric<>("http.pool.max", stats.getMax()));
+
+        val asyncStats = asyncConnectionManager.getTotalStats();
+        metrics.add(new Metric<>("http.async.pool.leased", asyncStats.getLeased()));
+        metrics.add(new Metric<>("http.async.pool.pending", asyncStats.getPending()));
+        metrics.add(new Metric<>("http.async.pool.available", asyncStats.getAvailable()));
+        metrics.add(new Metric<>("http.async.pool.max", asyncStats.getMax()));
+
+        return metrics;
+    }
+
+    /**
+     * Close the clients and the connection pools.
+     *
+     * @throws IOException
+     * @since 0.2.0
+     */
+    @Override
+    public void destroy() throws IOException {
+
+        asyncEvictor.shutdownNow();
+        asyncClient.close();
+        client.close();
+    }
+
+}
@@ -0,0 +1,467 @@
+package tv.helixware.mico.services;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.joda.time.DateTime;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tv.helixware.mico.model.IngestionJob;
+import tv.helixware.mico.model.IngestionJob.State;
+import tv.helixware.mico.persist.AssetRepository;
+import tv.helixware.mico.persist.IngestionJobRepository;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs the {@link IngestionJob}s: the worker periodically claims the due jobs and runs each one from its last
+ * completed stage, saving the job after every stage. A job is therefore resumed after a restart (once the claim of
+ * the previous instance expired) and a failed stage is retried with an exponential backoff.
+ * <p>
+ * Each stage runs on its own {@link PipelineStage}, with its own threads and bounded queue: the upload stage
+ * (download from HelixWare and upload to MICO), the submit stage, the waiting stage (the {@link StatusPoller}, which
+ * doesn't hold any thread, limited to a maximum number of in-flight items) and the extraction stage. A job is claimed
+ * only when its stage has room, and a job which cannot move to a full stage is released and claimed again later. When
+ * the backlog of jobs waiting for the upload stage grows beyond the limit, the worker is saturated and new assets are
+ * refused (see {@link tv.helixware.mico.config.WebConfig}).
+ * <p>
+ * The job of a new asset is queued by an asynchronous event handler, after the asset has been committed. The worker
+ * therefore periodically queues the jobs which have been lost, e.g. when the instance stopped in between.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@Service
+public class IngestionWorker implements PublicMetrics, DisposableBean {
+
+    private final static String MICO_TYPE = "mico:Video";
+    private final static String MIME_TYPE = "video/mp4";
+
+    private final static Collection<State> TERMINAL = Arrays.asList(State.DONE, State.FAILED);
+
+    private final IngestionJobRepository jobRepository;
+    private final AssetRepository assetRepository;
+    private final AssetService assetService;
+    private final ItemService itemService;
+    private final PartService partService;
+    private final StatusPoller statusPoller;
+
+    private final PipelineStage uploadStage;
+    private final PipelineStage submitStage;
+    private final PipelineStage extractionStage;
+
+    private final int batchSize;
+    private final int maxPolling;
+    private final long maxBacklog;
+    private final long lease;
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final long reconcileDelay;
+
+    /**
+     * This worker instance, used to claim the jobs.
+     *
+     * @since 0.2.0
+     */
+    private final String owner = UUID.randomUUID().toString();
+
+    /**
+     * The ids of the jobs claimed by this instance and not over yet.
+     *
+     * @since 0.2.0
+     */
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Records the outcome of the waits for MICO, so that the {@link StatusPoller} and the HTTP client threads never
+     * run the database updates. The queue isn't bounded, so that an outcome is never rejected: there's at most one per
+     * job being waited for.
+     *
+     * @since 0.2.0
+     */
+    private final ExecutorService completions = Executors.newSingleThreadExecutor(r -> new Thread(r, "mico-completions"));
+
+    /**
+     * The number of jobs waiting to be uploaded, as of the last poll.
+     *
+     * @since 0.2.0
+     */
+    private volatile long backlog;
+
+    /**
+     * Create an instance of the {@link IngestionWorker}.
+     *
+     * @param jobRepository   The {@link IngestionJobRepository}.
+     * @param assetRepository The {@link AssetRepository}.
+     * @param assetService    The {@link AssetService}.
+     * @param itemService     The {@link ItemService}.
+     * @param partService     The {@link PartService}.
+     * @param statusPoller    The {@link StatusPoller}.
+     * @param uploadStage     The {@link PipelineStage} downloading and uploading the files.
+     * @param submitStage     The {@link PipelineStage} submitting the items.
+     * @param extractionStage The {@link PipelineStage} extracting the fragments.
+     * @param batchSize       The maximum number of jobs considered at each poll.
+     * @param maxPolling      The maximum number of items being waited for.
+     * @param maxBacklog      The number of jobs waiting to be uploaded above which new assets are refused.
+     * @param lease           How long in milliseconds a claim lasts without being renewed.
+     * @param maxAttempts     The number of attempts at a stage before the job fails.
+     * @param initialBackoff  The delay in milliseconds before the first retry.
+     * @param maxBackoff      The maximum delay in milliseconds between retries.
+     * @param reconcileDelay  How long in milliseconds after its creation an asset without a job gets one queued.
+     * @since 0.2.0
+     */
+    @Autowired
+    public IngestionWorker(final IngestionJobRepository jobRepository, final AssetRepository assetRepository,
+                           final AssetService assetService, final ItemService itemService,
+                           final PartService partService, final StatusPoller statusPoller,
+                           @Qualifier("uploadStage") final PipelineStage uploadStage,
+                           @Qualifier("submitStage") final PipelineStage submitStage,
+                           @Qualifier("extractionStage") final PipelineStage extractionStage,
+                           @Value("${mico.jobs.batch-size:50}") final int batchSize,
+                           @Value("${mico.pipeline.polling.max-in-flight:1000}") final int maxPolling,
+                           @Value("${mico.pipeline.max-backlog:1000}") final long maxBacklog,
+                           @Value("${mico.jobs.lease:60000}") final long lease,
+                           @Value("${mico.jobs.max-attempts:5}") final int maxAttempts,
+                           @Value("${mico.jobs.initial-backoff:30000}") final long initialBackoff,
+                           @Value("${mico.jobs.max-backoff:3600000}") final long maxBackoff,
+                           @Value("${mico.jobs.reconcile-delay:60000}") final long reconcileDelay) {
+
+        this.jobRepository = jobRepository;
+        this.assetRepository = assetRepository;
+        this.assetService = assetService;
+        this.itemService = itemService;
+        this.partService = partService;
+        this.statusPoller = statusPoller;
+        this.uploadStage = uploadStage;
+        this.submitStage = submitStage;
+        this.extractionStage = extractionStage;
+        this.batchSize = batchSize;
+        this.maxPolling = maxPolling;
+        this.maxBacklog = maxBacklog;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.reconcileDelay = reconcileDelay;
+    }
+
+    /**
+     * Whether the pipeline is saturated, in which case new assets should be refused.
+     *
+     * @return True if the backlog of jobs waiting to be uploaded reached the limit.
+     * @since 0.2.0
+     */
+    public boolean isSaturated() {
+
+        return backlog >= maxBacklog;
+    }
+
+    /**
+     * Renew the claims on the running jobs and claim the due jobs whose stage has room.
+     *
+     * @since 0.2.0
+     */
+    @Scheduled(fixedDelayString = "${mico.jobs.poll-interval:5000}")
+    public void poll() {
+
+        try {
+            val now = DateTime.now();
+
+            if (!running.isEmpty())
+                jobRepository.renew(running, owner, now.plus(lease));
+
+            backlog = jobRepository.countByState(State.DOWNLOADING);
+
+            for (val job : jobRepository.findDue(TERMINAL, now, new PageRequest(0, batchSize))) {
+
+                // Already running here, the stage is full, or claimed meanwhile by another worker.
+                if (running.contains(job.getId()) || !hasCapacity(job.getState())
+                        || 0 == jobRepository.claim(job.getId(), owner, now, now.plus(lease)))
+                    continue;
+
+                log.info(String.format("Job claimed [ id :: %d ][ state :: %s ][ attempts :: %d ]", job.getId(), job.getState(), job.getAttempts()));
+
+                running.add(job.getId());
+                dispatch(job.getId(), job.getState());
+            }
+
+        } catch (Exception e) {
+            log.error("An error occurred while polling the ingestion jobs", e);
+        }
+    }
+
+    /**
+     * Queue the jobs of the assets which have been created more than the reconcile delay ago and have neither a job
+     * nor an item, i.e. whose job has been lost between the creation of the asset and the event handler.
+     *
+     * @since 0.2.0
+     */
+    @Scheduled(fixedDelayString = "${mico.jobs.reconcile-interval:60000}")
+    public void reconcile() {
+
+        try {
+            for (val asset : assetRepository.findWithoutJob(DateTime.now().minus(reconcileDelay), new PageRequest(0, batchSize))) {
+                log.warn(String.format("The ingestion job of the asset has been lost [ asset id :: %d ]", asset.getId()));
+                assetService.upload(asset);
+            }
+
+        } catch (Exception e) {
+            log.error("An error occurred while reconciling the ingestion jobs", e);
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+
+        final Collection<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("pipeline.backlog", backlog));
+        metrics.add(new Metric<>("pipeline.running", running.size()));
+
+        return metrics;
+    }
+
+    @Override
+    public void destroy() {
+
+        completions.shutdownNow();
+    }
+
+    /**
+     * Whether the stage running the jobs in the provided state has room for one more job.
+     *
+     * @param state The job {@link State}.
+     * @return True if the job can be dispatched.
+     * @since 0.2.0
+     */
+    private boolean hasCapacity(final State state) {
+
+        switch (state) {
+            case DOWNLOADING:
+                return uploadStage.hasCapacity();
+            case UPLOADED:
+            case SUBMITTED:
+                return submitStage.hasCapacity();
+            default:
+                return statusPoller.size() < maxPolling;
+        }
+    }
+
+    /**
+     * Hand the job to the stage running the jobs in the provided state. When the stage is full the job is released
+     * and it'll be claimed again at a later poll.
+     *
+     * @param id    The job id.
+     * @param state The job {@link State}.
+     * @since 0.2.0
+     */
+    private void dispatch(final Long id, final State state) {
+
+        try {
+            switch (state) {
+                case DOWNLOADING:
+                    uploadStage.execute(() -> upload(id));
+                    break;
+                case UPLOADED:
+                case SUBMITTED:
+                    submitStage.execute(() -> submit(id));
+                    break;
+                default:
+                    // POLLING or EXTRACTING: wait (again) for MICO, then extract.
+                    await(id);
+            }
+        } catch (RejectedExecutionException e) {
+            log.info(String.format("The stage is full, the job will be retried [ id :: %d ][ state :: %s ]", id, state));
+            release(jobRepository.findOne(id));
+        }
+    }
+
+    /**
+     * Create the {@link tv.helixware.mico.model.Item}, unless already created by a previous attempt, and upload the
+     * file.
+     *
+     * @param id The job id.
+     * @since 0.2.0
+     */
+    private void upload(final Long id) {
+
+        try {
+            IngestionJob job = jobRepository.findOne(id);
+
+            val url = new URL(job.getAsset().getUrl());
+
+            if (null == job.getItem()) {
+                job.setItem(itemService.create(job.getAsset())
+                        .orElseThrow(() -> new IllegalStateException("Cannot create the item")));
+                job = save(job);
+            }
+
+            job.setPart(partService.create(job.getItem(), MICO_TYPE, MIME_TYPE, RandomStringUtils.randomAlphanumeric(12) + ".mp4", url)
+                    .orElseThrow(() -> new IllegalStateException("Cannot create the part")));
+
+            transition(job, State.UPLOADED);
+
+        } catch (MalformedURLException | RuntimeException e) {
+            fail(id, e);
+            return;
+        }
+
+        dispatch(id, State.UPLOADED);
+    }
+
+    /**
+     * Submit the {@link tv.helixware.mico.model.Item} for processing.
+     *
+     * @param id The job id.
+     * @since 0.2.0
+     */
+    private void submit(final Long id) {
+
+        try {
+            IngestionJob job = jobRepository.findOne(id);
+
+            if (State.UPLOADED == job.getState()) {
+
+                if (!itemService.submit(job.getItem()))
+                    throw new IllegalStateException("Cannot submit the item");
+
+                job = transition(job, State.SUBMITTED);
+            }
+
+            transition(job, State.POLLING);
+
+        } catch (RuntimeException e) {
+            fail(id, e);
+            return;
+        }
+
+        dispatch(id, State.POLLING);
+    }
+
+    /**
+     * Wait for MICO to finish without holding a thread, then extract the fragments on the extraction stage.
+     *
+     * @param id The job id.
+     * @since 0.2.0
+     */
+    private void await(final Long id) {
+
+        statusPoller.await(jobRepository.findOne(id).getItem())
+                .thenRunAsync(() -> {
+                    final IngestionJob job = transition(jobRepository.findOne(id), State.EXTRACTING);
+                    partService.extract(job.getPart());
+                    release(transition(job, State.DONE));
+                }, extractionStage)
+                .whenCompleteAsync((v, e) -> {
+                    if (null == e)
+                        return;
+
+                    if (e instanceof CompletionException && e.getCause() instanceof RejectedExecutionException) {
+                        log.info(String.format("The extraction stage is full, the job will be retried [ id :: %d ]", id));
+                        release(jobRepository.findOne(id));
+                    } else
+                        fail(id, e);
+                }, completions);
+    }
+
+    /**
+     * Move the job to the next stage and save it, resetting the attempts.
+     *
+     * @param job   The {@link IngestionJob}.
+     * @param state The new {@link State}.
+     * @return The saved {@link IngestionJob}.
+     * @since 0.2.0
+     */
+    private IngestionJob transition(final IngestionJob job, final State state) {
+
+        log.info(String.format("Job moved to the next stage [ id :: %d ][ from :: %s ][ to :: %s ]", job.getId(), job.getState(), state));
+
+        job.setState(state);
+        job.setAttempts(0);
+        job.setNextAttemptAt(null);
+        job.setLastError(null);
+
+        return save(job);
+    }
+
+    /**
+     * Save the job, extending the claim.
+     *
+     * @param job The {@link IngestionJob}.
+     * @return The saved {@link IngestionJob}.
+     * @since 0.2.0
+     */
+    private IngestionJob save(final IngestionJob job) {
+
+        // The claim may have been renewed in the meantime, do not overwrite it with the older value.
+        job.setLockedUntil(DateTime.now().plus(lease));
+
+        return jobRepository.save(job);
+    }
+
+    /**
+     * Record a failed attempt: the job is retried from the same stage after a backoff, or fails when it reached the
+     * maximum number of attempts.
+     *
+     * @param id The job id.
+     * @param e  The error.
+     * @since 0.2.0
+     */
+    private void fail(final Long id, final Throwable e) {
+
+        try {
+            val job = jobRepository.findOne(id);
+            val attempts = job.getAttempts() + 1;
+
+            job.setAttempts(attempts);
+            job.setLastError(StringUtils.abbreviate(String.valueOf(e.getMessage()), 1024));
+
+            if (attempts >= maxAttempts) {
+                log.error(String.format("Job failed [ id :: %d ][ state :: %s ][ attempts :: %d ]", id, job.getState(), attempts), e);
+                job.setState(State.FAILED);
+            } else {
+                val backoff = Math.min(maxBackoff, initialBackoff * (1L << Math.min(30, attempts - 1)));
+                log.warn(String.format("Job attempt failed, retrying [ id :: %d ][ state :: %s ][ attempts :: %d ][ backoff :: %d ]", id, job.getState(), attempts, backoff), e);
+                job.setNextAttemptAt(DateTime.now().plus(backoff));
+            }
+
+            release(job);
+
+        } catch (Exception ex) {
+            // The claim will expire and the job will be attempted again.
+            log.error(String.format("Cannot record the failed attempt [ id :: %d ]", id), ex);
+            running.remove(id);
+        }
+    }
+
+    /**
+     * Release the claim on the job.
+     *
+     * @param job The {@link IngestionJob}.
+     * @since 0.2.0
+     */
+    private void release(final IngestionJob job) {
+
+        job.setOwner(null);
+        job.setLockedUntil(null);
+
+        jobRepository.save(job);
+        running.remove(job.getId());
+    }
+
+}
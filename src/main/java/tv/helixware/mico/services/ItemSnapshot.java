@@ -0,0 +1,114 @@
+package tv.helixware.mico.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Value;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQueryResultHandlerBase;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.rio.ntriples.NTriplesUtil;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * An in-memory copy of the annotations of an {@link tv.helixware.mico.model.Item}, see {@link SnapshotService}. The
+ * SELECT queries of the extractors run against the local store, with the same row format as
+ * {@link QueryService#select}.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+public class ItemSnapshot implements QueryService.Selector, AutoCloseable {
+
+    /**
+     * The XML Schema numeric datatypes, whose literals are written without quotes in the TSV format.
+     *
+     * @since 0.2.0
+     */
+    private final static Set<String> NUMERIC_DATATYPES = new HashSet<>(Arrays.asList(
+            "http://www.w3.org/2001/XMLSchema#integer",
+            "http://www.w3.org/2001/XMLSchema#decimal",
+            "http://www.w3.org/2001/XMLSchema#double"));
+
+    /**
+     * The in-memory {@link Repository}.
+     *
+     * @since 0.2.0
+     */
+    private final Repository repository;
+
+    ItemSnapshot(final Repository repository) {
+
+        this.repository = repository;
+    }
+
+    @Override
+    public Optional<Long> select(final String statement, final String[] vars, final Consumer<String[]> consumer) {
+
+        final long[] count = {0};
+
+        try {
+            final RepositoryConnection connection = repository.getConnection();
+            try {
+                connection.prepareTupleQuery(QueryLanguage.SPARQL, statement).evaluate(new TupleQueryResultHandlerBase() {
+
+                    @Override
+                    public void handleSolution(final BindingSet bindings) {
+
+                        final String[] row = new String[vars.length];
+                        for (int i = 0; i < vars.length; i++)
+                            row[i] = term(bindings.getValue(vars[i]));
+
+                        consumer.accept(row);
+                        count[0]++;
+                    }
+
+                });
+            } finally {
+                connection.close();
+            }
+        } catch (Exception e) {
+            log.error("An error occurred while querying the snapshot", e);
+            return Optional.empty();
+        }
+
+        return Optional.of(count[0]);
+    }
+
+    @Override
+    public void close() {
+
+        try {
+            repository.shutDown();
+        } catch (RepositoryException e) {
+            log.warn("Cannot shut down the snapshot", e);
+        }
+    }
+
+    /**
+     * Write a value in the SPARQL TSV syntax.
+     *
+     * @param value The {@link Value}, null if unbound.
+     * @return The value in the TSV syntax, an empty string if unbound.
+     * @since 0.2.0
+     */
+    private static String term(final Value value) {
+
+        if (null == value)
+            return "";
+
+        if (value instanceof Literal && null != ((Literal) value).getDatatype()
+                && NUMERIC_DATATYPES.contains(((Literal) value).getDatatype().stringValue()))
+            return value.stringValue();
+
+        return NTriplesUtil.toNTriplesString(value);
+    }
+
+}
@@ -0,0 +1,72 @@
+package tv.helixware.mico.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tv.helixware.mico.model.*;
+import tv.helixware.mico.persist.MentionRepository;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maintains the inverted index from the entity and topic references to the {@link Part}s (and {@link Asset}s) which
+ * mention them, see {@link Mention}.
+ * <p>
+ * The index is kept in the database, so that it covers any number of mentions with bounded memory: each {@link Part}
+ * has one {@link Mention} per reference, which is replaced whenever the entity mentions of the {@link Part} are
+ * extracted again.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class MentionIndex {
+
+    private final MentionRepository mentionRepository;
+
+    /**
+     * Replace the {@link Mention}s of a {@link Part} with the ones of its {@link EntityFragment}s and
+     * {@link TopicFragment}s. The other fragments are ignored, the references are normalized with
+     * {@link Mention#normalize(String)}.
+     *
+     * @param part      The {@link Part}.
+     * @param fragments The fragments of the {@link Part}.
+     * @return The number of {@link Mention}s of the {@link Part}.
+     * @since 0.2.0
+     */
+    @Transactional
+    public int replace(final Part part, final Collection<? extends Fragment> fragments) {
+
+        val deleted = mentionRepository.deleteByPart(part);
+
+        // One mention per kind and reference, with the highest confidence.
+        final Map<String, Mention> mentions = new LinkedHashMap<>();
+        for (final Fragment fragment : fragments) {
+            if (fragment instanceof EntityFragment && null != ((EntityFragment) fragment).getReference()) {
+                val entity = (EntityFragment) fragment;
+                mention(mentions, part, "entity", entity.getReference(), entity.getLabel()).add(entity.getConfidence());
+            } else if (fragment instanceof TopicFragment && null != ((TopicFragment) fragment).getReference()) {
+                val topic = (TopicFragment) fragment;
+                mention(mentions, part, "topic", topic.getReference(), topic.getLabel()).add(topic.getConfidence());
+            }
+        }
+
+        mentionRepository.save(mentions.values());
+
+        log.debug(String.format("Mentions indexed [ uri :: %s ][ deleted :: %d ][ mentions :: %d ]", part.getUri(), deleted, mentions.size()));
+
+        return mentions.size();
+    }
+
+    private static Mention mention(final Map<String, Mention> mentions, final Part part, final String kind, final String reference, final String label) {
+
+        return mentions.computeIfAbsent(kind + ' ' + Mention.normalize(reference), key -> new Mention(reference, kind, label, part));
+    }
+
+}
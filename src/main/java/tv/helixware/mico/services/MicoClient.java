@@ -5,7 +5,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.apache.commons.codec.binary.Base64;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
@@ -14,7 +16,6 @@ import org.apache.http.client.utils.HttpClientUtils;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.FileEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,6 +29,8 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -43,6 +46,13 @@ public class MicoClient {
 
     private final ObjectMapper objectMapper;
 
+    /**
+     * The shared {@link HttpTransport}.
+     *
+     * @since 0.2.0
+     */
+    private final HttpTransport transport;
+
     private final static String INJECT_CREATE_PATH = "inject/create";
     private final static String INJECT_ADD_PATH = "inject/add";
     private final static String INJECT_SUBMIT_PATH = "inject/submit";
@@ -71,14 +81,17 @@ public class MicoClient {
      * @param server   The MICO server name.
      * @param username The username to access the server.
      * @param password The password to access the server.
+     * @param transport The shared {@link HttpTransport}.
      * @since 0.1.0
      */
     @Autowired
-    public MicoClient(@Value("${mico.server}") final String server, @Value("${mico.path:broker/}") final String path, @Value("${mico.username}") final String username, @Value("${mico.password}") final String password) {
+    public MicoClient(@Value("${mico.server}") final String server, @Value("${mico.path:broker/}") final String path, @Value("${mico.username}") final String username, @Value("${mico.password}") final String password, final HttpTransport transport) {
 
         this.serverURL = String.format("http://%s:%s@%s/%s", username, password, server, path);
 
         this.objectMapper = new ObjectMapper();
+
+        this.transport = transport;
     }
 
     /**
@@ -89,51 +102,11 @@ public class MicoClient {
      */
     public Optional<Item> create(final Asset asset) {
 
-        val url = serverURL + INJECT_CREATE_PATH;
+        val url = createUrl();
 
         log.debug(String.format("Creating item [ url :: %s ]", url));
 
-        // Prepare the client and send the POST request.
-        final CloseableHttpClient client = HttpClients.createDefault();
-        final HttpPost post = new HttpPost(url);
-        final CloseableHttpResponse response;
-
-        // Get the response, return an empty if an error occurred.
-        try {
-            response = client.execute(post);
-        } catch (IOException e) {
-            log.error(String.format("An error occurred while querying the remote server [ url :: %s ]", url), e);
-            return Optional.empty();
-        }
-
-        // If the status code is not 200 return an empty.
-        if (200 != response.getStatusLine().getStatusCode()) {
-            log.error(String.format("An error occurred while querying the remote server [ url :: %s ][ status line :: %s ]", url, response.getStatusLine().toString()));
-            HttpClientUtils.closeQuietly(response);
-            return Optional.empty();
-        }
-
-        // Get the entity.
-        try {
-            final String responseBody = EntityUtils.toString(response.getEntity());
-            HttpClientUtils.closeQuietly(response);
-
-            final JsonNode node = objectMapper.readTree(responseBody);
-
-            // If the *uri* field is missing from the JSON return an empty.
-            if (!node.has(ITEM_URI)) {
-                log.error(String.format("The JSON is invalid [ url :: %s ][ response body :: %s ][ missing property :: %s ]", url, responseBody, ITEM_URI));
-                return Optional.empty();
-            }
-
-            // Get the URI and create a new ContentItem.
-            return Optional.of(createContentItem(asset, node.get(ITEM_URI).asText()));
-
-        } catch (Exception e) {
-            log.error(String.format("An error occurred while parsing the response [ url :: %s ]", url));
-        }
-
-        return Optional.empty();
+        return post(url).flatMap(body -> parseItem(asset, url, body));
     }
 
     /**
@@ -147,41 +120,35 @@ public class MicoClient {
      */
     public Optional<Part> addContentPart(final Item item, final String micoType, final String mimeType, final String name, final File file) {
 
-        try {
-            // Build the URI and get the response.
-            val url = new URIBuilder(serverURL + INJECT_ADD_PATH)
-                    .setParameter(ITEM_URI, item.getUri())
-                    .setParameter("type", micoType)
-                    .setParameter("name", name)
-                    // As of 6th Oct 2016, Marcel says not to send the mimeType parameter anymore.
-                    // .setParameter("mimeType", mimeType)
-                    .build();
-
-            log.debug(String.format("Creating part [ url :: %s ]", url));
-
-            val entity = new FileEntity(file);
-
-            val response = post(url.toString(), Optional.of(entity));
+        return addContentPart(item, micoType, mimeType, name, new FileEntity(file));
+    }
 
-            // If the response is empty, we return an empty.
-            if (!response.isPresent())
-                return Optional.empty();
+    /**
+     * Add a {@link Part} to a {@link Item} sending the provided {@link HttpEntity}. The entity is streamed to MICO,
+     * therefore non-repeatable entities (such as an {@link org.apache.http.entity.InputStreamEntity}) can be used to pipe
+     * content without storing it locally, but they cannot be replayed in case of errors.
+     *
+     * @param item     The {@link Item}.
+     * @param micoType The MICO type.
+     * @param mimeType The mime type.
+     * @param name     The part name.
+     * @param entity   The {@link HttpEntity} with the part content.
+     * @return A {@link Part} or empty in case of errors.
+     * @since 0.2.0
+     */
+    public Optional<Part> addContentPart(final Item item, final String micoType, final String mimeType, final String name, final HttpEntity entity) {
 
-            val node = objectMapper.readTree(response.get());
+        try {
+            // Build the URI and get the response.
+            val url = addContentPartUrl(item, micoType, name);
 
-            // If the *uri* field is missing from the JSON return an empty.
-            if (!node.has(CONTENT_PART_ITEM_URI)) {
-                log.error(String.format("The JSON is invalid [ url :: %s ][ response body :: %s ]", url, response.get()));
-                return Optional.empty();
-            }
+            log.debug(String.format("Creating part [ url :: %s ][ repeatable :: %b ]", url, entity.isRepeatable()));
 
-            // Get the URI and create a new ContentItem.
-            return Optional.of(createContentPart(item, node.get(CONTENT_PART_ITEM_URI).asText(), micoType, name));
+            return post(url.toString(), Optional.of(entity))
+                    .flatMap(body -> parsePart(item, micoType, name, url.toString(), body));
 
         } catch (URISyntaxException e) {
             log.error(String.format("The URL is invalid [ url :: %s ]", serverURL + INJECT_ADD_PATH), e);
-        } catch (IOException e) {
-            log.error(String.format("An error occurred while parsing the response [ url :: %s ]", serverURL + INJECT_ADD_PATH), e);
         }
 
         return Optional.empty();
@@ -197,10 +164,7 @@ public class MicoClient {
 
         // Build the URI and get the response.
         try {
-            val url = new URIBuilder(serverURL + INJECT_SUBMIT_PATH)
-                    .setParameter("item", item.getUri())
-                    .setParameter("route", routeId)
-                    .build();
+            val url = submitUrl(item);
 
             log.debug(String.format("Submitting item [ url :: %s ]", url));
 
@@ -238,10 +202,7 @@ public class MicoClient {
         try {
 
             // Build the URI and get the response.
-            url = new URIBuilder(serverURL + STATUS_ITEMS_PATH)
-                    .setParameter("uri", item.getUri())
-                    .setParameter("parts", parts ? "true" : "false")
-                    .build();
+            url = checkStatusUrl(item, parts);
 
         } catch (Exception e) {
 
@@ -249,20 +210,201 @@ public class MicoClient {
             return null;
         }
 
+        log.debug(String.format("Checking status [ url :: %s ]", url));
+
+        // If the response is empty, return empty, otherwise map the response to a CheckStatusResponse.
+        return get(url.toString())
+                .map(body -> parseCheckStatus(url, body))
+                .orElse(Collections.emptyList());
+    }
+
+    /**
+     * Check the status of many {@link Item}s with one request. When the collection is empty, the status of all the
+     * items known to the broker is returned.
+     *
+     * @param items The {@link Item}s.
+     * @param parts Whether to include the parts in the response.
+     * @return A list of {@link CheckStatusResponse}s, empty in case of errors.
+     * @since 0.2.0
+     */
+    public List<CheckStatusResponse> checkStatus(final Collection<Item> items, final boolean parts) {
+
+        final URI url;
+
         try {
+            url = checkStatusUrl(items, parts);
+        } catch (URISyntaxException e) {
+            log.error("Cannot build url", e);
+            return Collections.emptyList();
+        }
 
-            log.debug(String.format("Checking status [ url :: %s ]", url));
+        log.debug(String.format("Checking status [ items :: %d ][ url :: %s ]", items.size(), url));
 
-            val response = get(url.toString());
+        return get(url.toString())
+                .map(body -> parseCheckStatus(url, body))
+                .orElse(Collections.emptyList());
+    }
 
-            // If the response is empty, return empty.
-            if (!response.isPresent())
-                return Collections.emptyList();
+    /**
+     * Get the URL to create an {@link Item}.
+     *
+     * @return The URL.
+     * @since 0.2.0
+     */
+    String createUrl() {
 
-            // Map the response to a CheckStatusResponse.
-            return objectMapper.readValue(response.get(), new TypeReference<List<CheckStatusResponse>>() {
-            });
+        return serverURL + INJECT_CREATE_PATH;
+    }
+
+    /**
+     * Build the URL to add a {@link Part} to an {@link Item}.
+     *
+     * @param item     The {@link Item}.
+     * @param micoType The MICO type.
+     * @param name     The part name.
+     * @return The {@link URI}.
+     * @throws URISyntaxException
+     * @since 0.2.0
+     */
+    URI addContentPartUrl(final Item item, final String micoType, final String name) throws URISyntaxException {
+
+        return new URIBuilder(serverURL + INJECT_ADD_PATH)
+                .setParameter(ITEM_URI, item.getUri())
+                .setParameter("type", micoType)
+                .setParameter("name", name)
+                // As of 6th Oct 2016, Marcel says not to send the mimeType parameter anymore.
+                // .setParameter("mimeType", mimeType)
+                .build();
+    }
+
+    /**
+     * Build the URL to submit an {@link Item}.
+     *
+     * @param item The {@link Item}.
+     * @return The {@link URI}.
+     * @throws URISyntaxException
+     * @since 0.2.0
+     */
+    URI submitUrl(final Item item) throws URISyntaxException {
+
+        return new URIBuilder(serverURL + INJECT_SUBMIT_PATH)
+                .setParameter("item", item.getUri())
+                .setParameter("route", routeId)
+                .build();
+    }
+
+    /**
+     * Build the URL to check the status of an {@link Item}.
+     *
+     * @param item  The {@link Item}.
+     * @param parts Whether to include the parts in the response.
+     * @return The {@link URI}.
+     * @throws URISyntaxException
+     * @since 0.2.0
+     */
+    URI checkStatusUrl(final Item item, final boolean parts) throws URISyntaxException {
+
+        return new URIBuilder(serverURL + STATUS_ITEMS_PATH)
+                .setParameter("uri", item.getUri())
+                .setParameter("parts", parts ? "true" : "false")
+                .build();
+    }
+
+    /**
+     * Build the URL to check the status of many {@link Item}s, one `uri` parameter per {@link Item}. When the
+     * collection is empty, the URL checks the status of all the items.
+     *
+     * @param items The {@link Item}s.
+     * @param parts Whether to include the parts in the response.
+     * @return The {@link URI}.
+     * @throws URISyntaxException
+     * @since 0.2.0
+     */
+    URI checkStatusUrl(final Collection<Item> items, final boolean parts) throws URISyntaxException {
+
+        val builder = new URIBuilder(serverURL + STATUS_ITEMS_PATH);
+        items.forEach(item -> builder.addParameter("uri", item.getUri()));
+
+        return builder
+                .setParameter("parts", parts ? "true" : "false")
+                .build();
+    }
+
+    /**
+     * Parse the response to the create {@link Item} request.
+     *
+     * @param asset The {@link Asset}.
+     * @param url   The request URL (for logging).
+     * @param body  The response body.
+     * @return An {@link Item} or empty if the response is invalid.
+     * @since 0.2.0
+     */
+    Optional<Item> parseItem(final Asset asset, final String url, final String body) {
+
+        try {
+            final JsonNode node = objectMapper.readTree(body);
+
+            // If the *uri* field is missing from the JSON return an empty.
+            if (!node.has(ITEM_URI)) {
+                log.error(String.format("The JSON is invalid [ url :: %s ][ response body :: %s ][ missing property :: %s ]", url, body, ITEM_URI));
+                return Optional.empty();
+            }
+
+            // Get the URI and create a new ContentItem.
+            return Optional.of(createContentItem(asset, node.get(ITEM_URI).asText()));
 
+        } catch (Exception e) {
+            log.error(String.format("An error occurred while parsing the response [ url :: %s ]", url));
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Parse the response to the add {@link Part} request.
+     *
+     * @param item     The {@link Item}.
+     * @param micoType The MICO type.
+     * @param name     The part name.
+     * @param url      The request URL (for logging).
+     * @param body     The response body.
+     * @return A {@link Part} or empty if the response is invalid.
+     * @since 0.2.0
+     */
+    Optional<Part> parsePart(final Item item, final String micoType, final String name, final String url, final String body) {
+
+        try {
+            val node = objectMapper.readTree(body);
+
+            // If the *uri* field is missing from the JSON return an empty.
+            if (!node.has(CONTENT_PART_ITEM_URI)) {
+                log.error(String.format("The JSON is invalid [ url :: %s ][ response body :: %s ]", url, body));
+                return Optional.empty();
+            }
+
+            // Get the URI and create a new ContentItem.
+            return Optional.of(createContentPart(item, node.get(CONTENT_PART_ITEM_URI).asText(), micoType, name));
+
+        } catch (IOException e) {
+            log.error(String.format("An error occurred while parsing the response [ url :: %s ]", url), e);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Parse the response to the check status request.
+     *
+     * @param url  The request URL (for logging).
+     * @param body The response body.
+     * @return A list of {@link CheckStatusResponse}s, empty in case of errors.
+     * @since 0.2.0
+     */
+    List<CheckStatusResponse> parseCheckStatus(final URI url, final String body) {
+
+        try {
+            return objectMapper.readValue(body, new TypeReference<List<CheckStatusResponse>>() {
+            });
         } catch (Exception e) {
             log.error(String.format("An error occurred while parsing a response [ url :: %s ]", url), e);
         }
@@ -304,8 +446,14 @@ public class MicoClient {
 
     private Optional<String> request(final HttpRequestBase request) {
 
+        // Send the credentials preemptively: this saves the 401 round-trip and it's required by streamed (non-repeatable)
+        // entities, which cannot be sent again once the server challenges the request.
+        val userInfo = request.getURI().getUserInfo();
+        if (null != userInfo)
+            request.setHeader(HttpHeaders.AUTHORIZATION, "Basic " + Base64.encodeBase64String(userInfo.getBytes(StandardCharsets.UTF_8)));
+
         // Prepare the client and send the POST request.
-        final CloseableHttpClient client = HttpClients.createDefault();
+        final CloseableHttpClient client = transport.getClient();
         final CloseableHttpResponse response;
 
         // Get the response, return an empty if an error occurred.
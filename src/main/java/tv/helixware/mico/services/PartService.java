@@ -1,46 +1,36 @@
 package tv.helixware.mico.services;
 
-import com.github.anno4j.model.Annotation;
-import com.github.anno4j.model.impl.selector.FragmentSelector;
-import com.github.anno4j.model.impl.targets.SpecificResource;
-import com.github.anno4j.querying.QueryService;
-import eu.mico.platform.anno4j.model.PartMMM;
-import eu.mico.platform.anno4j.model.impl.targetmmm.SpecificResourceMMM;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.apache.commons.io.FileUtils;
+import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.marmotta.ldpath.parser.ParseException;
-import org.openrdf.query.MalformedQueryException;
-import org.openrdf.query.QueryEvaluationException;
-import org.openrdf.repository.RepositoryException;
-import org.openrdf.repository.config.RepositoryConfigException;
+import org.apache.http.entity.InputStreamEntity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import tv.helixware.mico.factories.QueryServiceFactory;
-import tv.helixware.mico.helpers.AnnotationHelper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import tv.helixware.mico.model.*;
-import tv.helixware.mico.persist.FaceFragmentRepository;
+import tv.helixware.mico.persist.FragmentRepository;
 import tv.helixware.mico.persist.PartRepository;
-import tv.helixware.mico.persist.SequenceFragmentRepository;
-import tv.helixware.mico.response.CheckStatusResponse;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -48,21 +38,21 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class PartService {
 
+    private final MicoClient client;
+
+    private final PlatformTransactionManager transactionManager;
+
     /**
-     * A {@link QueryServiceFactory} instance to create {@link QueryService}s.
+     * The shared {@link HttpTransport} used to download files from HelixWare.
      *
      * @since 0.2.0
      */
-    private final QueryServiceFactory queryServiceFactory;
-
-    private final MicoClient client;
+    private final HttpTransport transport;
 
     private final PartRepository partRepository;
-    private final SequenceFragmentRepository sequenceFragmentRepository;
-    private final FaceFragmentRepository faceFragmentRepository;
+    private final FragmentRepository<Fragment> fragmentRepository;
 
     /**
      * An {@link EntityMentionService} instance used to query the remote MICO platform and persist locally {@link TopicFragment}s
@@ -72,14 +62,130 @@ public class PartService {
      */
     private final EntityMentionService entityMentionService;
 
+    /**
+     * A {@link SequenceService} instance used to query the remote MICO platform for {@link SequenceFragment}s.
+     *
+     * @since 0.2.0
+     */
+    private final SequenceService sequenceService;
+
+    /**
+     * A {@link FaceService} instance used to query the remote MICO platform for {@link FaceFragment}s.
+     *
+     * @since 0.2.0
+     */
+    private final FaceService faceService;
+
+    /**
+     * A {@link QueryService} instance used to query the remote MICO platform.
+     *
+     * @since 0.2.0
+     */
+    private final QueryService queryService;
+
+    /**
+     * A {@link SnapshotService} instance used to copy the annotations of an {@link Item} to a local store.
+     *
+     * @since 0.2.0
+     */
+    private final SnapshotService snapshotService;
+
+    /**
+     * A {@link FragmentWriter} instance used to insert the fragments in batches.
+     *
+     * @since 0.2.0
+     */
+    private final FragmentWriter fragmentWriter;
+
+    /**
+     * A {@link TimelineService} instance, whose cached fragments and timeline of the asset are invalidated once the
+     * fragments change.
+     *
+     * @since 0.2.0
+     */
+    private final TimelineService timelineService;
+
+    /**
+     * A {@link TimelineBuilder} instance used to store the {@link Timeline} document of the asset once the fragments
+     * change.
+     *
+     * @since 0.2.0
+     */
+    private final TimelineBuilder timelineBuilder;
+
+    /**
+     * A {@link MentionIndex} instance, updated when the entity mentions of a {@link Part} are replaced.
+     *
+     * @since 0.2.0
+     */
+    private final MentionIndex mentionIndex;
+
+    /**
+     * The {@link PipelineStage} running the extractors of each {@link Part} concurrently.
+     *
+     * @since 0.2.0
+     */
+    private final Executor extractorExecutor;
+
     @Value("${helixware.application.key}")
     private String applicationKey;
 
     @Value("${helixware.application.secret}")
     private String applicationSecret;
 
-    private final static Pattern XYWH_PATTERN = Pattern.compile("#xywh=(\\d+),(\\d+),(\\d+),(\\d+)");
-    private final static Pattern NPT_PATTERN = Pattern.compile("npt:(\\d+)(?:\\.\\d+)?,(\\d+)(?:\\.\\d+)?");
+
+    /**
+     * Whether to pipe the HelixWare downloads straight into the MICO uploads.
+     *
+     * @since 0.2.0
+     */
+    @Value("${mico.upload.streaming:true}")
+    private boolean uploadStreaming;
+
+    /**
+     * The size of the buffer between the download and the upload streams.
+     *
+     * @since 0.2.0
+     */
+    @Value("${mico.upload.buffer-size:65536}")
+    private int uploadBufferSize;
+
+    /**
+     * Whether to copy the annotations of the {@link Item} to an in-memory store with one query and run the extractors
+     * against it, instead of querying MICO for each extractor.
+     *
+     * @since 0.2.0
+     */
+    @Value("${mico.extraction.snapshot:false}")
+    private boolean snapshotEnabled;
+
+    @Autowired
+    public PartService(final MicoClient client, final PlatformTransactionManager transactionManager,
+                       final HttpTransport transport, final PartRepository partRepository,
+                       final FragmentRepository<Fragment> fragmentRepository,
+                       final EntityMentionService entityMentionService, final SequenceService sequenceService,
+                       final FaceService faceService, final QueryService queryService,
+                       final SnapshotService snapshotService, final FragmentWriter fragmentWriter,
+                       final TimelineService timelineService, final TimelineBuilder timelineBuilder,
+                       final MentionIndex mentionIndex,
+                       @Qualifier("extractorStage") final Executor extractorExecutor) {
+
+        this.client = client;
+        this.transactionManager = transactionManager;
+        this.transport = transport;
+        this.partRepository = partRepository;
+        this.fragmentRepository = fragmentRepository;
+        this.entityMentionService = entityMentionService;
+        this.sequenceService = sequenceService;
+        this.faceService = faceService;
+        this.queryService = queryService;
+        this.snapshotService = snapshotService;
+        this.fragmentWriter = fragmentWriter;
+        this.timelineService = timelineService;
+        this.timelineBuilder = timelineBuilder;
+        this.mentionIndex = mentionIndex;
+        this.extractorExecutor = extractorExecutor;
+    }
 
     /**
      * Create a {@link Part} with the provided file.
@@ -101,6 +207,11 @@ public class PartService {
 
     /**
      * Create a {@link Part} using the file at the specified URL.
+     * <p>
+     * When the size of the remote file is known, the download is piped straight into the MICO upload through a bounded
+     * buffer. The file is spilled to a local temporary file only when the size is unknown, since MICO doesn't accept
+     * chunked uploads: the same download is copied to the file, it's not requested again. A failed download or upload
+     * isn't retried here, the ingestion job retries the whole stage.
      *
      * @param item
      * @param micoType
@@ -111,41 +222,25 @@ public class PartService {
      */
     public Optional<Part> create(final Item item, final String micoType, final String mimeType, final String name, final URL url) {
 
-        try {
-
-            // Copy locally the remote file and create a content part.
-            final File tempFile = File.createTempFile("mico-", "tmp");
-
-            // Copy the remote file to a local temp file.
-            try (final CloseableHttpClient client = HttpClients.createDefault()) {
+        try (final CloseableHttpResponse response = transport.getClient().execute(download(url))) {
 
-                final HttpGet get = new HttpGet(url.toURI());
-
-                // Set the HelixWare headers required for authentication.
-                get.addHeader("X-Application-Key", applicationKey);
-                get.addHeader("X-Application-Secret", applicationSecret);
-
-                try (final CloseableHttpResponse response = client.execute(get)) {
-                    FileUtils.copyInputStreamToFile(response.getEntity().getContent(), tempFile);
-                }
+            if (200 != response.getStatusLine().getStatusCode()) {
+                log.error(String.format("Cannot download the file [ url :: %s ][ status line :: %s ]", url, response.getStatusLine()));
+                return Optional.empty();
             }
 
-            val part = create(item, micoType, mimeType, name, tempFile);
+            val length = response.getEntity().getContentLength();
 
-            tempFile.delete();
+            if (uploadStreaming && 0 <= length)
+                return logPart(stream(item, micoType, mimeType, name, response.getEntity().getContent(), length));
 
-            // Add some trace logging, just in case.
-            if (log.isDebugEnabled()) {
-                if (part.isPresent())
-                    log.debug(String.format("Part created [ uri :: %s ]", part.get().getUri()));
-                else
-                    log.debug("Part not created");
-            }
+            if (uploadStreaming)
+                log.info(String.format("The file size is unknown, spilling to disk [ url :: %s ]", url));
 
-            return part;
+            return logPart(spill(item, micoType, mimeType, name, response.getEntity().getContent()));
 
         } catch (IOException | URISyntaxException e) {
-            log.error("An error occurred", e);
+            log.error(String.format("An error occurred while creating the part [ url :: %s ]", url), e);
         }
 
         // If we got here something went wrong.
@@ -156,196 +251,229 @@ public class PartService {
     }
 
     /**
-     * Process the {@link Part} by saving the related annotations.
+     * Pipe the downloaded file into the MICO upload.
      *
-     * @param part
-     * @since 0.1.0
+     * @param item     The {@link Item}.
+     * @param micoType The MICO type.
+     * @param mimeType The mime type.
+     * @param name     The part name.
+     * @param content  The download {@link InputStream}.
+     * @param length   The file size.
+     * @return A {@link Part} or empty if the upload failed.
+     * @since 0.2.0
      */
-    @Transactional
-    public void process(final Part part) {
+    private Optional<Part> stream(final Item item, final String micoType, final String mimeType, final String name, final InputStream content, final long length) {
 
-        blockUntilComplete(client, part.getItem());
+        val entity = new InputStreamEntity(new BufferedInputStream(content, uploadBufferSize), length);
 
-        try {
-            getAnnotationsInternal(part);
-        } catch (RepositoryException | RepositoryConfigException | QueryEvaluationException | MalformedQueryException | ParseException e) {
-            log.error(e.getMessage(), e);
-        }
+        return create(item, micoType, mimeType, name, entity);
     }
 
+    /**
+     * Copy the downloaded file to a local temporary file and upload it to MICO. The temporary file is always deleted.
+     *
+     * @param item     The {@link Item}.
+     * @param micoType The MICO type.
+     * @param mimeType The mime type.
+     * @param name     The part name.
+     * @param content  The download {@link InputStream}.
+     * @return A {@link Part} or empty if the upload failed.
+     * @throws IOException
+     * @since 0.2.0
+     */
+    private Optional<Part> spill(final Item item, final String micoType, final String mimeType, final String name, final InputStream content) throws IOException {
 
-    private void blockUntilComplete(final MicoClient client, final Item item) {
-
-        List<CheckStatusResponse> response;
-        while ((response = client.checkStatus(item, true)).isEmpty() || !response.get(0).isFinished()) {
-            log.info(String.format("Still running..."));
+        // Copy locally the remote file and create a content part.
+        final File tempFile = File.createTempFile("mico-", "tmp");
 
-            try {
-                Thread.sleep(1000L);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+        try {
 
-        }
+            FileUtils.copyInputStreamToFile(content, tempFile);
 
-        log.info("Content Part is finished");
+            return create(item, micoType, mimeType, name, tempFile);
 
+        } finally {
+            if (!tempFile.delete())
+                log.warn(String.format("Cannot delete the temporary file [ file :: %s ]", tempFile));
+        }
     }
 
-    private void getAnnotationsInternal(final Part part) throws RepositoryException, RepositoryConfigException, ParseException, MalformedQueryException, QueryEvaluationException {
-
-        // Annotations > Targets(/Resources) -> Selectors
-
-        // In the following code, we collect to list each time in order to have some debugging data and understand how
-        // many of each annotation, target, resource, selector we get from the query.
+    /**
+     * Create the request to download a file from HelixWare.
+     *
+     * @param url The file URL.
+     * @return An {@link HttpGet} request.
+     * @throws URISyntaxException
+     * @since 0.2.0
+     */
+    private HttpGet download(final URL url) throws URISyntaxException {
 
-        // Get the temporal video segmentation fragments.
-        val annotations = query(part, "TVSShotBoundaryFrameBody");
+        final HttpGet get = new HttpGet(url.toURI());
 
-        // Get the targets.
-        val targets = annotations.stream()
-                .flatMap(a -> a.getTarget().stream())
-                .collect(Collectors.toList());
+        // Set the HelixWare headers required for authentication.
+        get.addHeader("X-Application-Key", applicationKey);
+        get.addHeader("X-Application-Secret", applicationSecret);
 
-        // Get the resources associated with the annotations.
-        val resources = targets.stream()
-                .filter(t -> t instanceof SpecificResourceMMM)
-                .map(t -> (SpecificResourceMMM) t)
-                .collect(Collectors.toList());
+        return get;
+    }
 
-        // Get the selectors from the resources.
-        val selectors = resources.stream()
-                .filter(r -> r.getSelector() instanceof FragmentSelector)
-                .map(r -> (FragmentSelector) r.getSelector())
-                .collect(Collectors.toList());
+    /**
+     * Create a {@link Part} with the provided {@link HttpEntity}.
+     *
+     * @param item     The {@link Item}.
+     * @param micoType The MICO type.
+     * @param mimeType The mime type.
+     * @param name     The part name.
+     * @param entity   The {@link HttpEntity}.
+     * @return A {@link Part} or empty if the upload failed.
+     * @since 0.2.0
+     */
+    private Optional<Part> create(final Item item, final String micoType, final String mimeType, final String name, final HttpEntity entity) {
 
-        log.debug(String.format("Found %d annotation(s), %d target(s), %d resource(s) and %d selector(s)", annotations.size(), targets.size(), resources.size(), selectors.size()));
+        // Return the content part persisted to the database.
+        return client.addContentPart(item, micoType, mimeType, name, entity)
+                .map(partRepository::save);
 
-        // For each selector, save a fragment.
-        selectors.stream()
-                .map(FragmentSelector::getValue)
-                .distinct()
-                .forEach(v -> saveFragment(v, part));
+    }
 
-        // Running the prototype for insideout
-        query(part, "FaceDetectionBody").forEach(a -> {
+    private Optional<Part> logPart(final Optional<Part> part) {
 
-            log.info(String.format("FaceAnnotation :: %s", a.toString()));
+        // Add some trace logging, just in case.
+        if (log.isDebugEnabled()) {
+            if (part.isPresent())
+                log.debug(String.format("Part created [ uri :: %s ]", part.get().getUri()));
+            else
+                log.debug("Part not created");
+        }
 
-            a.getTarget().stream()
-                    .map(t -> (SpecificResource) t)
-                    .forEach(target -> {
-                        // final SpecificResource target = (SpecificResource) AnnotationHelper.target(a);
+        return part;
+    }
 
-                        final FragmentSelector selector = (FragmentSelector) target.getSelector();
-                        log.info(String.format(" * Selector :: %s", selector));
+    /**
+     * Extract and save the annotations of a finished {@link Part}.
+     * <p>
+     * The sequences, the faces and the entity mentions are extracted concurrently on the extractors stage, outside of
+     * any transaction, so that no database connection is held while waiting for MICO. Once all the extractors
+     * completed, the results are saved in a single short transaction. A failing extractor doesn't prevent the others
+     * from being saved.
+     * <p>
+     * The fragments saved by a previous extraction of the same {@link Part} are replaced, kind by kind, only by the
+     * extractors which succeeded, so that the extraction can be safely repeated.
+     * <p>
+     * When snapshots are enabled, the annotations are copied first to an in-memory {@link ItemSnapshot} which the
+     * extractors query instead of MICO. If the snapshot can't be created, the extractors query MICO.
+     * <p>
+     * Finally the {@link Timeline} document of the asset is rebuilt.
+     *
+     * @param part The {@link Part}.
+     * @since 0.2.0
+     */
+    public void extract(final Part part) {
 
-                        final Matcher xywhMatcher = XYWH_PATTERN.matcher(selector.getValue());
+        log.info(String.format("Content Part is finished [ uri :: %s ]", part.getUri()));
 
-                        if (xywhMatcher.find()) {
+        final Optional<ItemSnapshot> snapshot = snapshotEnabled ? snapshotService.create(part) : Optional.empty();
+        final QueryService.Selector selector = snapshot.isPresent() ? snapshot.get() : queryService::selectPaged;
 
-                            final Long x = Long.valueOf(xywhMatcher.group(1));
-                            final Long y = Long.valueOf(xywhMatcher.group(2));
-                            final Long w = Long.valueOf(xywhMatcher.group(3));
-                            final Long h = Long.valueOf(xywhMatcher.group(4));
+        final CompletableFuture<Optional<List<SequenceFragment>>> sequences =
+                extractAsync(part, "sequence", p -> sequenceService.extract(p, selector));
+        final CompletableFuture<Optional<List<FaceFragment>>> faces =
+                extractAsync(part, "face", p -> faceService.extract(p, selector));
+        final CompletableFuture<Optional<List<Fragment>>> mentions =
+                extractAsync(part, "entity mention", p -> entityMentionService.extract(p, selector));
 
-                            // This is required only when the server is configured with Face Detection (video-keyframes).
-                            try {
-                                getTemporalFragment(a).forEach(f -> {
+        try {
+            CompletableFuture.allOf(sequences, faces, mentions).join();
+        } finally {
+            snapshot.ifPresent(ItemSnapshot::close);
+        }
 
-                                    final Matcher nptMatcher = NPT_PATTERN.matcher(f.getValue());
+        new TransactionTemplate(transactionManager).execute(status -> {
 
-                                    if (nptMatcher.find()) {
-                                        final Long start = Long.valueOf(nptMatcher.group(1));
-                                        final Long end = Long.valueOf(nptMatcher.group(2));
+            final List<Fragment> existing = fragmentRepository.findAllWherePartEquals(part);
+            final List<Fragment> fragments = new ArrayList<>();
 
-                                        faceFragmentRepository.save(new FaceFragment(start, end, x, y, w, h, part));
+            replace(part, existing, f -> f instanceof SequenceFragment, sequences.join(), fragments);
+            replace(part, existing, f -> f instanceof FaceFragment, faces.join(), fragments);
+            replace(part, existing, f -> f instanceof EntityFragment || f instanceof TopicFragment, mentions.join(), fragments);
 
-                                        log.info(String.format(" ** TemporalFragment :: %s ", f));
-                                    }
-                                });
-                            } catch (RepositoryConfigException | RepositoryException | QueryEvaluationException | MalformedQueryException | ParseException e) {
-                                e.printStackTrace();
-                            }
+            // Index the references of the entity mentions, unless the extractor failed.
+            mentions.join().ifPresent(m -> mentionIndex.replace(part, m));
 
-                        }
-                    });
+            // The new fragments are inserted in JDBC batches.
+            fragmentWriter.write(fragments);
 
+            return null;
         });
 
-        // Retrieve and persist locally Entity and Topic Fragments.
-        entityMentionService.retrieve(part);
+        // Rebuild the timeline document of the asset, a failure leaves the previous one (the backfill can rebuild it).
+        val asset = part.getItem().getAsset();
+        try {
+            timelineBuilder.build(asset);
+        } catch (Exception e) {
+            log.error(String.format("An error occurred while building the timeline [ guid :: %s ]", asset.getGuid()), e);
+        }
+
+        // Drop (and reload, if configured) the cached fragments and timeline of the asset.
+        timelineService.invalidate(asset.getGuid());
 
     }
 
     /**
-     * Parse the value using the NPT pattern and save a {@link SequenceFragment}
+     * Run an extractor on the extractors stage. When the stage is full, the extractor runs on the calling thread.
      *
-     * @param value The NPT string value.
-     * @param part  The {@link Part} owner of the {@link SequenceFragment}.
+     * @param part      The {@link Part}.
+     * @param kind      The kind of fragments (for logging).
+     * @param extractor The {@link Extractor}.
+     * @param <T>       The fragment type.
+     * @return A future with the fragments, or empty if the extractor failed. The future never completes exceptionally.
      * @since 0.2.0
      */
-    private void saveFragment(final String value, final Part part) {
-
-        val matcher = NPT_PATTERN.matcher(value);
-
-        if (!matcher.find()) {
-
-            log.info(String.format("No match found [ value :: %s ]", value));
-            return;
-        }
-
-        log.info(String.format("[ start :: %s ][ end :: %s ]", matcher.group(1), matcher.group(2)));
+    private <T extends Fragment> CompletableFuture<Optional<List<T>>> extractAsync(final Part part, final String kind, final Extractor<T> extractor) {
 
-        val fragment = new SequenceFragment(Long.valueOf(matcher.group(1)), Long.valueOf(matcher.group(2)), part);
-        sequenceFragmentRepository.save(fragment);
-
-    }
-
-    private List<PartMMM> query(final Part part, final String bodyType) throws RepositoryConfigException, RepositoryException, ParseException, MalformedQueryException, QueryEvaluationException {
-
-        val contentPartId = part.getUri();
-
-        // Getting the QueryService to query for Annotation objects, setting the mico namespace and adding a criteria.
-        final QueryService queryService = queryServiceFactory.create()
-                .addCriteria("^mmm:hasPart", contentPartId)
-                .addCriteria("mmm:hasBody[is-a mmmterms:" + bodyType + "]");
+        final Supplier<Optional<List<T>>> supplier = () -> {
+            try {
+                final List<T> fragments = extractor.extract(part);
+                log.info(String.format("Extracted %d %s fragment(s) [ uri :: %s ]", fragments.size(), kind, part.getUri()));
+                return Optional.of(fragments);
+            } catch (Exception e) {
+                log.error(String.format("An error occurred while extracting the %s fragments [ uri :: %s ]", kind, part.getUri()), e);
+                return Optional.empty();
+            }
+        };
 
         try {
-
-            return queryService.execute(PartMMM.class);
-
-        } catch (Exception e) {
-
-            log.error(String.format("An error occurred querying the remote service [ 1st criteria :: %s, %s ][ 2nd criteria :: %s ]", "^mmm:hasPart", contentPartId, "[is-a mmmterms:" + bodyType + "]"), e);
-
+            return CompletableFuture.supplyAsync(supplier, extractorExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(supplier.get());
         }
-
-        // An error occurred if we got here, let's return an empty list then.
-        return Collections.emptyList();
     }
 
-    private List<FragmentSelector> getTemporalFragment(final Annotation faceAnnotation) throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException, RepositoryConfigException {
-
-        final List<PartMMM> parts = queryServiceFactory.create()
+    /**
+     * Replace the existing fragments of one kind with the extracted ones: the existing fragments are deleted and the
+     * extracted ones are added to the fragments to write. Nothing is changed if the extractor failed.
+     *
+     * @param part      The {@link Part} owner of the fragments.
+     * @param existing  The fragments of the {@link Part} already in the database.
+     * @param kind      A {@link Predicate} selecting the existing fragments of the same kind.
+     * @param fragments The extracted fragments, or empty if the extractor failed.
+     * @param writes    The fragments to write.
+     * @param <T>       The fragment type.
+     * @since 0.2.0
+     */
+    private <T extends Fragment> void replace(final Part part, final List<Fragment> existing, final Predicate<Fragment> kind, final Optional<List<T>> fragments, final List<Fragment> writes) {
 
-                .addCriteria("^mmm:hasPart", faceAnnotation.getResource().toString()) // Where itemID is the ID of your item
-                .addCriteria("mmm:hasBody[is-a mmmterms:TVSShotBoundaryFrameBody] | mmm:hasBody[is-a mmmterms:TVSKeyFrameBody]")
+        if (!fragments.isPresent())
+            return;
 
-//                .addCriteria("mmm:hasBody[is-a mmmterms:TVSShotBoundaryFrameBody] | mmmterms:hasBody[is-a mmmterms:TVSKeyFrameBody]")
-//                .addCriteria("^mmm:hasContent/^dct:source/^oa:hasSource/^oa:hasTarget", faceAnnotation.getResource().toString())
-//                .setAnnotationCriteria("oa:hasBody[is-a mico:TVSShotBoundaryFrameBody] | oa:hasBody[is-a mico:TVSKeyFrameBody]")
-//                .setAnnotationCriteria("^mico:hasContent/^dct:source/^oa:hasSource/^oa:hasTarget", faceAnnotation.getResource().toString())
-                .execute(PartMMM.class);
+        val stale = existing.stream().filter(kind).collect(Collectors.toList());
 
-        final List<FragmentSelector> results = new ArrayList<>();
-        for (final Annotation annotation : parts) {
-            final SpecificResource resource = (SpecificResource) AnnotationHelper.target(annotation);
-            results.add((FragmentSelector) resource.getSelector());
-//            results.add((FragmentSelector) ((SpecificResource) anno.getTarget()).getSelector());
+        if (!stale.isEmpty()) {
+            log.info(String.format("Replacing %d existing fragment(s) [ uri :: %s ]", stale.size(), part.getUri()));
+            fragmentRepository.delete(stale);
         }
 
-        return results;
+        writes.addAll(fragments.get());
     }
 
 //    /**
@@ -366,4 +494,17 @@ public class PartService {
 //
 //    }
 
+    /**
+     * Extracts a kind of fragments of a {@link Part} from MICO.
+     *
+     * @param <T> The fragment type.
+     * @since 0.2.0
+     */
+    @FunctionalInterface
+    private interface Extractor<T extends Fragment> {
+
+        List<T> extract(Part part) throws Exception;
+
+    }
+
 }
@@ -0,0 +1,111 @@
+package tv.helixware.mico.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A stage of the ingestion pipeline: a fixed number of threads fed by a bounded queue. Tasks submitted to a full
+ * stage are rejected with a {@link RejectedExecutionException}, callers are expected to check {@link #hasCapacity()}
+ * first and to retry later.
+ * <p>
+ * The queue depth, the active threads and the number of completed, failed and rejected tasks are published on
+ * `/metrics` as `pipeline.{name}.*`.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+public class PipelineStage implements Executor, PublicMetrics, DisposableBean {
+
+    private final String name;
+
+    private final int threads;
+
+    private final int capacity;
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Create a {@link PipelineStage}.
+     *
+     * @param name     The stage name, used for the thread names and the metrics.
+     * @param threads  The number of threads.
+     * @param capacity The maximum number of queued tasks.
+     * @since 0.2.0
+     */
+    public PipelineStage(final String name, final int threads, final int capacity) {
+
+        this.name = name;
+        this.threads = threads;
+        this.capacity = capacity;
+
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity),
+                r -> new Thread(r, String.format("mico-%s-%d", name, count.incrementAndGet())));
+    }
+
+    /**
+     * Whether a task can be submitted without being rejected.
+     *
+     * @return True if there is an idle thread or room in the queue.
+     * @since 0.2.0
+     */
+    public boolean hasCapacity() {
+
+        return executor.getActiveCount() + executor.getQueue().size() < threads + capacity;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+
+        try {
+            executor.execute(() -> {
+                try {
+                    command.run();
+                    completed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    log.error(String.format("An error occurred in a pipeline stage [ stage :: %s ]", name), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+
+        final String prefix = "pipeline." + name + ".";
+
+        final Collection<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(prefix + "threads", threads));
+        metrics.add(new Metric<>(prefix + "active", executor.getActiveCount()));
+        metrics.add(new Metric<>(prefix + "queue", executor.getQueue().size()));
+        metrics.add(new Metric<>(prefix + "capacity", capacity));
+        metrics.add(new Metric<>(prefix + "completed", completed.get()));
+        metrics.add(new Metric<>(prefix + "failed", failed.get()));
+        metrics.add(new Metric<>(prefix + "rejected", rejected.get()));
+
+        return metrics;
+    }
+
+    @Override
+    public void destroy() {
+
+        executor.shutdownNow();
+    }
+
+}
@@ -1,18 +1,30 @@
 package tv.helixware.mico.services;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.apache.commons.io.IOUtils;
-import org.apache.http.Header;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.message.BasicHeader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Query the remote MICO server using SPARQL.
@@ -38,6 +50,92 @@ public class QueryService {
     @Value("${mico.sparql.select-url}")
     private String url;
 
+    /**
+     * The response format requested by {@link #select(String, String[], Consumer)}, `tsv` or `json`.
+     *
+     * @since 0.2.0
+     */
+    @Value("${mico.sparql.format:tsv}")
+    private String format;
+
+    /**
+     * The number of rows of each page requested by {@link #selectPaged(String, String[], Consumer)}, 0 to disable
+     * paging.
+     *
+     * @since 0.2.0
+     */
+    @Value("${mico.sparql.page-size:10000}")
+    private int pageSize;
+
+    /**
+     * The number of pages requested in parallel.
+     *
+     * @since 0.2.0
+     */
+    @Value("${mico.sparql.parallelism:4}")
+    private int parallelism;
+
+    /**
+     * The number of times a failed page is requested again.
+     *
+     * @since 0.2.0
+     */
+    @Value("${mico.sparql.page-retries:2}")
+    private int pageRetries;
+
+    /**
+     * The delay in milliseconds before requesting again a failed page, multiplied by the attempt number.
+     *
+     * @since 0.2.0
+     */
+    @Value("${mico.sparql.page-retry-delay:1000}")
+    private long pageRetryDelay;
+
+    /**
+     * The {@link PipelineStage} requesting the pages.
+     *
+     * @since 0.2.0
+     */
+    private final Executor pageExecutor;
+
+    /**
+     * The shared {@link HttpTransport}.
+     *
+     * @since 0.2.0
+     */
+    private final HttpTransport transport;
+
+    /**
+     * The factory of the streaming JSON parsers.
+     *
+     * @since 0.2.0
+     */
+    private final static JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Create an instance of the {@link QueryService}.
+     *
+     * @param transport    The shared {@link HttpTransport}.
+     * @param pageExecutor The {@link PipelineStage} requesting the pages.
+     * @since 0.2.0
+     */
+    @Autowired
+    public QueryService(final HttpTransport transport, @Qualifier("queryStage") final Executor pageExecutor) {
+
+        this.transport = transport;
+        this.pageExecutor = pageExecutor;
+    }
+
+    /**
+     * The XML Schema numeric datatypes, whose literals are written without quotes in the TSV format.
+     *
+     * @since 0.2.0
+     */
+    private final static Set<String> NUMERIC_DATATYPES = new HashSet<>(Arrays.asList(
+            "http://www.w3.org/2001/XMLSchema#integer",
+            "http://www.w3.org/2001/XMLSchema#decimal",
+            "http://www.w3.org/2001/XMLSchema#double"));
+
     public String query(final String statement) {
 
         return query(statement, "application/sparql-results+json");
@@ -52,6 +150,22 @@ public class QueryService {
      */
     public String query(final String statement, final String accept) {
 
+        return query(statement, accept, in -> IOUtils.toString(in, StandardCharsets.UTF_8)).orElse(null);
+    }
+
+    /**
+     * Query the remote SPARQL endpoint and let the {@link ResponseReader} consume the response stream as it arrives,
+     * without buffering the whole response in memory.
+     *
+     * @param statement The SPARQL query.
+     * @param accept    The requested response format.
+     * @param reader    The {@link ResponseReader}.
+     * @param <T>       The result type.
+     * @return The value returned by the {@link ResponseReader} or empty in case of errors.
+     * @since 0.2.0
+     */
+    public <T> Optional<T> query(final String statement, final String accept, final ResponseReader<T> reader) {
+
         // Request:
         // * method: POST
         // * URL: `url`
@@ -59,27 +173,363 @@ public class QueryService {
         //  * Accept: application/sparql-results+json
         //  * Content-Type: application/sparql-query;charset=UTF-8
 
-        // Open the Http client.
-        try (val client = HttpClients.createDefault()) {
+        // Create the POST request.
+        val post = new HttpPost(this.url);
+        post.setEntity(new StringEntity(statement, CONTENT_TYPE));
+        post.setHeader("Accept", accept);
 
-            // Create the POST request.
-            val post = new HttpPost(this.url);
-            post.setEntity(new StringEntity(statement, CONTENT_TYPE));
-            post.setHeader("Accept", accept);
+        // Execute the request using the shared client, closing the response releases the connection to the pool.
+        try (val response = transport.getClient().execute(post)) {
 
-            // Execute the request.
-            try (val response = client.execute(post)) {
+            if (200 != response.getStatusLine().getStatusCode()) {
+                log.error(String.format("An error occurred while querying the remote SPARQL endpoint [ status line :: %s ]", response.getStatusLine()));
+                return Optional.empty();
+            }
 
-                // Return the response as String.
-                return IOUtils.toString(response.getEntity().getContent());
+            try (val in = response.getEntity().getContent()) {
+                return Optional.ofNullable(reader.read(in));
             }
 
         } catch (IOException e) {
             log.error("An error occurred while querying the remote SPARQL endpoint.", e);
         }
 
-        // An error occurred return null.
-        return null;
+        // An error occurred return an empty.
+        return Optional.empty();
+    }
+
+    /**
+     * Run a SELECT query and hand the rows to the consumer as they are read from the response, the response is never
+     * held in memory as a whole.
+     * <p>
+     * Each row holds the values of the requested variables, in the requested order, written in the SPARQL TSV term
+     * syntax (e.g. `&lt;http://example.org&gt;`, `"label"@en`, `0.5`) whatever the response format, and an empty
+     * string for the unbound variables.
+     *
+     * @param statement The SPARQL SELECT query.
+     * @param vars      The variable names, without the question mark.
+     * @param consumer  The rows {@link Consumer}.
+     * @return The number of rows or empty in case of errors.
+     * @since 0.2.0
+     */
+    public Optional<Long> select(final String statement, final String[] vars, final Consumer<String[]> consumer) {
+
+        return "json".equalsIgnoreCase(format)
+                ? query(statement, "application/sparql-results+json", in -> readJson(in, vars, consumer))
+                : query(statement, "text/tab-separated-values", in -> readTsv(in, vars, consumer));
+    }
+
+    /**
+     * Run a SELECT query page by page and hand the rows to the consumer, in order, on the calling thread.
+     * <p>
+     * Each page is the statement followed by `ORDER BY` all the variables (so that the pages are stable), `LIMIT` and
+     * `OFFSET`, therefore the statement must not have solution modifiers of its own. The first page is requested alone,
+     * since most results fit in it; if it's full, the next pages are requested in waves of {@link #parallelism} pages
+     * until a page is not full. A failed page is requested again on its own. At most a wave of pages is held in memory.
+     *
+     * @param statement The SPARQL SELECT query.
+     * @param vars      The variable names, without the question mark.
+     * @param consumer  The rows {@link Consumer}.
+     * @return The number of rows or empty if a page failed.
+     * @since 0.2.0
+     */
+    public Optional<Long> selectPaged(final String statement, final String[] vars, final Consumer<String[]> consumer) {
+
+        if (0 >= pageSize)
+            return select(statement, vars, consumer);
+
+        final String orderBy = Arrays.stream(vars).map(v -> "?" + v).collect(Collectors.joining(" "));
+
+        long count = 0;
+        long page = 0;
+
+        // The first wave is the first page alone.
+        for (int size = 1; ; size = parallelism) {
+
+            final List<CompletableFuture<Optional<List<String[]>>>> wave = new ArrayList<>(size);
+            for (int i = 0; i < size; i++, page++)
+                wave.add(fetchPageAsync(String.format("%s ORDER BY %s LIMIT %d OFFSET %d", statement, orderBy, pageSize, page * pageSize), vars));
+
+            for (val future : wave) {
+
+                final Optional<List<String[]>> rows = future.join();
+
+                if (!rows.isPresent())
+                    return Optional.empty();
+
+                rows.get().forEach(consumer);
+                count += rows.get().size();
+
+                // The last page, the next ones in the wave are empty.
+                if (rows.get().size() < pageSize) {
+                    log.debug(String.format("Paged query completed [ rows :: %d ][ pages :: %d ]", count, page));
+                    return Optional.of(count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Request a page on the query stage, or on the calling thread when the stage is full.
+     *
+     * @param statement The page statement.
+     * @param vars      The variable names.
+     * @return A future with the page rows, or empty if the page failed.
+     * @since 0.2.0
+     */
+    private CompletableFuture<Optional<List<String[]>>> fetchPageAsync(final String statement, final String[] vars) {
+
+        try {
+            return CompletableFuture.supplyAsync(() -> fetchPage(statement, vars), pageExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(fetchPage(statement, vars));
+        }
+    }
+
+    /**
+     * Request a page, retrying on errors.
+     *
+     * @param statement The page statement.
+     * @param vars      The variable names.
+     * @return The page rows, or empty if all the attempts failed.
+     * @since 0.2.0
+     */
+    private Optional<List<String[]>> fetchPage(final String statement, final String[] vars) {
+
+        for (int attempt = 1; ; attempt++) {
+
+            final List<String[]> rows = new ArrayList<>(pageSize);
+
+            if (select(statement, vars, rows::add).isPresent())
+                return Optional.of(rows);
+
+            if (attempt > pageRetries) {
+                log.error(String.format("The page failed [ attempts :: %d ][ statement :: %s ]", attempt, statement));
+                return Optional.empty();
+            }
+
+            log.warn(String.format("The page failed, retrying [ attempt :: %d ]", attempt));
+
+            try {
+                Thread.sleep(pageRetryDelay * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * Read a SPARQL TSV response line by line.
+     *
+     * @param in       The response {@link InputStream}.
+     * @param vars     The variable names.
+     * @param consumer The rows {@link Consumer}.
+     * @return The number of rows.
+     * @throws IOException
+     * @since 0.2.0
+     */
+    private long readTsv(final InputStream in, final String[] vars, final Consumer<String[]> consumer) throws IOException {
+
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        val header = reader.readLine();
+
+        if (null == header)
+            return 0;
+
+        // Map each requested variable to its column.
+        final List<String> columns = Arrays.asList(header.split("\t", -1));
+        final int[] indexes = new int[vars.length];
+        for (int i = 0; i < vars.length; i++)
+            indexes[i] = columns.indexOf("?" + vars[i]);
+
+        long count = 0;
+        String line;
+        while (null != (line = reader.readLine())) {
+
+            if (line.isEmpty())
+                continue;
+
+            final String[] cells = line.split("\t", -1);
+            final String[] row = new String[vars.length];
+            for (int i = 0; i < vars.length; i++)
+                row[i] = 0 <= indexes[i] && indexes[i] < cells.length ? cells[indexes[i]] : "";
+
+            consumer.accept(row);
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Read a SPARQL JSON response binding by binding, using a streaming parser.
+     *
+     * @param in       The response {@link InputStream}.
+     * @param vars     The variable names.
+     * @param consumer The rows {@link Consumer}.
+     * @return The number of rows.
+     * @throws IOException
+     * @since 0.2.0
+     */
+    private long readJson(final InputStream in, final String[] vars, final Consumer<String[]> consumer) throws IOException {
+
+        final Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < vars.length; i++)
+            indexes.put(vars[i], i);
+
+        long count = 0;
+
+        try (val parser = JSON_FACTORY.createParser(in)) {
+
+            // Move to the bindings array, skipping the head.
+            JsonToken token;
+            while (null != (token = parser.nextToken()))
+                if (JsonToken.FIELD_NAME == token && "bindings".equals(parser.getCurrentName()))
+                    break;
+
+            if (null == token || JsonToken.START_ARRAY != parser.nextToken())
+                return 0;
+
+            // Each binding is an object of terms by variable name.
+            while (JsonToken.START_OBJECT == parser.nextToken()) {
+
+                final String[] row = new String[vars.length];
+                Arrays.fill(row, "");
+
+                while (JsonToken.FIELD_NAME == parser.nextToken()) {
+
+                    val index = indexes.get(parser.getCurrentName());
+                    val term = readTerm(parser);
+
+                    if (null != index)
+                        row[index] = term;
+                }
+
+                consumer.accept(row);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Read a SPARQL JSON term and write it in the SPARQL TSV syntax.
+     *
+     * @param parser The {@link JsonParser}, positioned on the term field name.
+     * @return The term in the TSV syntax.
+     * @throws IOException
+     * @since 0.2.0
+     */
+    private static String readTerm(final JsonParser parser) throws IOException {
+
+        String type = null, value = "", lang = null, datatype = null;
+
+        if (JsonToken.START_OBJECT != parser.nextToken()) {
+            parser.skipChildren();
+            return "";
+        }
+
+        while (JsonToken.FIELD_NAME == parser.nextToken()) {
+
+            val name = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (name) {
+                case "type":
+                    type = parser.getText();
+                    break;
+                case "value":
+                    value = parser.getText();
+                    break;
+                case "xml:lang":
+                    lang = parser.getText();
+                    break;
+                case "datatype":
+                    datatype = parser.getText();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if ("uri".equals(type))
+            return "<" + value + ">";
+
+        if ("bnode".equals(type))
+            return "_:" + value;
+
+        if (null != lang)
+            return "\"" + escape(value) + "\"@" + lang;
+
+        if (null != datatype)
+            return NUMERIC_DATATYPES.contains(datatype) ? value : "\"" + escape(value) + "\"^^<" + datatype + ">";
+
+        return "\"" + escape(value) + "\"";
+    }
+
+    /**
+     * Escape a literal as in the SPARQL TSV format.
+     *
+     * @param value The literal value.
+     * @return The escaped value.
+     * @since 0.2.0
+     */
+    private static String escape(final String value) {
+
+        final StringBuilder builder = new StringBuilder(value.length());
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Runs SELECT queries and hands the rows to a consumer, see {@link #select(String, String[], Consumer)}.
+     *
+     * @since 0.2.0
+     */
+    @FunctionalInterface
+    public interface Selector {
+
+        Optional<Long> select(String statement, String[] vars, Consumer<String[]> consumer);
+
+    }
+
+    /**
+     * Reads a SPARQL response stream.
+     *
+     * @param <T> The result type.
+     * @since 0.2.0
+     */
+    @FunctionalInterface
+    public interface ResponseReader<T> {
+
+        T read(InputStream in) throws IOException;
+
     }
 
 }
@@ -0,0 +1,257 @@
+package tv.helixware.mico.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tv.helixware.mico.model.Asset;
+import tv.helixware.mico.model.Fragment;
+import tv.helixware.mico.model.Item;
+import tv.helixware.mico.model.Mention;
+import tv.helixware.mico.model.Part;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings the data of an existing database in line with the current schema at startup, before the ingestion starts.
+ * The schema itself is updated by Hibernate (`spring.jpa.hibernate.ddl-auto: update`), the steps below only change
+ * the data and do nothing once they've been applied. The steps which can't tell by the data whether they've been
+ * applied are recorded in the {@link #STEPS_TABLE}.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@Service
+public class SchemaUpgrade {
+
+    /**
+     * The sequence (or table, where sequences aren't supported) of the {@link Fragment} ids.
+     *
+     * @since 0.2.0
+     */
+    private final static String FRAGMENT_SEQUENCE = "fragment_seq";
+
+    /**
+     * The size of the blocks of ids reserved from the {@link #FRAGMENT_SEQUENCE}, as configured on {@link Fragment}.
+     *
+     * @since 0.2.0
+     */
+    private final static long FRAGMENT_INCREMENT = 50;
+
+    /**
+     * The number of rows updated at a time by the backfills.
+     *
+     * @since 0.2.0
+     */
+    private final static int BATCH_SIZE = 1000;
+
+    /**
+     * The table of the applied one-time steps.
+     *
+     * @since 0.2.0
+     */
+    private final static String STEPS_TABLE = "schema_upgrade";
+
+    /**
+     * The step converting the times of the existing sequence and face {@link Fragment}s from seconds to milliseconds.
+     *
+     * @since 0.2.0
+     */
+    private final static String MILLISECONDS_STEP = "fragment_times_in_milliseconds";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Dialect dialect;
+
+    /**
+     * Create a {@link SchemaUpgrade} instance.
+     *
+     * @param dataSource           The {@link DataSource}.
+     * @param entityManagerFactory The {@link EntityManagerFactory}, which creates or updates the schema first.
+     * @since 0.2.0
+     */
+    @Autowired
+    public SchemaUpgrade(final DataSource dataSource, final EntityManagerFactory entityManagerFactory) {
+
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getDialect();
+    }
+
+    @PostConstruct
+    public void upgrade() {
+
+        alignFragmentSequence();
+        convertFragmentTimesToMilliseconds();
+        backfillGuidHashes();
+        backfillFragmentAssetIds();
+        normalizeMentionReferences();
+    }
+
+    /**
+     * Move the {@link #FRAGMENT_SEQUENCE} past the highest {@link Fragment} id. The fragments inserted before the ids
+     * came from the sequence (e.g. with an identity column) have ids the new sequence, starting at 1, would hand out
+     * again.
+     * <p>
+     * The ids are reserved in blocks ending at the sequence value, therefore the sequence is set to the highest id plus
+     * a block. If the sequence can't be changed, it must be set by hand before inserting new fragments.
+     *
+     * @since 0.2.0
+     */
+    void alignFragmentSequence() {
+
+        final Long max = jdbcTemplate.queryForObject("select max(id) from fragment", Long.class);
+
+        if (null == max)
+            return;
+
+        final long next = max + FRAGMENT_INCREMENT;
+
+        try {
+            if (dialect.supportsSequences() && dialect.supportsPooledSequences()) {
+
+                // The next block starts past the highest id.
+                if (jdbcTemplate.queryForObject(dialect.getSequenceNextValString(FRAGMENT_SEQUENCE), Long.class) - FRAGMENT_INCREMENT >= max)
+                    return;
+
+                jdbcTemplate.execute(String.format("alter sequence %s restart with %d", FRAGMENT_SEQUENCE, next));
+
+            } else if (0 == jdbcTemplate.update(String.format("update %s set next_val = ? where next_val < ?", FRAGMENT_SEQUENCE), next, next)) {
+                return;
+            }
+
+            log.info(String.format("Fragment ids sequence moved past the existing fragments [ sequence :: %s ][ next :: %d ]", FRAGMENT_SEQUENCE, next));
+
+        } catch (DataAccessException e) {
+            log.error(String.format("Cannot move the fragment ids sequence, set it to %d before inserting fragments [ sequence :: %s ]", next, FRAGMENT_SEQUENCE), e);
+        }
+    }
+
+    /**
+     * Convert the `start` and `end` of the sequence and face {@link Fragment}s extracted when they were in seconds to
+     * milliseconds. The step is recorded in the {@link #STEPS_TABLE} in the same transaction as the update, before
+     * it: the fragments are converted exactly once, even when several instances start together.
+     *
+     * @since 0.2.0
+     */
+    void convertFragmentTimesToMilliseconds() {
+
+        jdbcTemplate.execute(String.format("create table if not exists %s (step varchar(64) not null primary key)", STEPS_TABLE));
+
+        try {
+            final int count = transactionTemplate.execute(status -> {
+                jdbcTemplate.update(String.format("insert into %s (step) values (?)", STEPS_TABLE), MILLISECONDS_STEP);
+                return jdbcTemplate.update("update fragment set start = start * 1000, end = end * 1000"
+                        + " where fragment_type in ('sequence', 'face')");
+            });
+
+            log.info(String.format("Fragment times converted to milliseconds [ fragments :: %d ]", count));
+
+        } catch (DataIntegrityViolationException e) {
+            // Already applied.
+        }
+    }
+
+    /**
+     * Set the `guid_hash` of the {@link Asset}s created before it was introduced, the hash is computed with
+     * {@link Asset#hash(String)}. The {@link Asset}s are updated in batches.
+     *
+     * @since 0.2.0
+     */
+    void backfillGuidHashes() {
+
+        long count = 0;
+
+        while (true) {
+
+            final List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            jdbcTemplate.query("select id, guid from asset where guid_hash is null and guid is not null order by id",
+                    (ResultSetExtractor<Void>) rs -> {
+                        while (batch.size() < BATCH_SIZE && rs.next())
+                            batch.add(new Object[]{Asset.hash(rs.getString(2)), rs.getLong(1)});
+                        return null;
+                    });
+
+            if (batch.isEmpty())
+                break;
+
+            jdbcTemplate.batchUpdate("update asset set guid_hash = ? where id = ?", batch);
+            count += batch.size();
+        }
+
+        if (0 < count)
+            log.info(String.format("Asset GUID hashes set [ assets :: %d ]", count));
+    }
+
+    /**
+     * Set the `asset_id` of the {@link Fragment}s inserted before it was introduced, from their {@link Part} and
+     * {@link Item}. The {@link Fragment}s are updated by ranges of ids.
+     *
+     * @since 0.2.0
+     */
+    void backfillFragmentAssetIds() {
+
+        final Map<String, Object> range = jdbcTemplate.queryForMap("select min(id) as min_id, max(id) as max_id from fragment where asset_id is null");
+
+        if (null == range.get("min_id"))
+            return;
+
+        final long min = ((Number) range.get("min_id")).longValue();
+        final long max = ((Number) range.get("max_id")).longValue();
+
+        long count = 0;
+        for (long from = min; from <= max; from += BATCH_SIZE)
+            count += jdbcTemplate.update("update fragment set asset_id = (select i.asset_id from part p join item i on i.id = p.item_id where p.id = fragment.part_id)"
+                    + " where asset_id is null and id >= ? and id < ?", from, from + BATCH_SIZE);
+
+        log.info(String.format("Fragment asset ids set [ fragments :: %d ]", count));
+    }
+
+    /**
+     * Normalize the references of the {@link Mention}s indexed before they were normalized, see
+     * {@link Mention#normalize(String)}, and their hashes. The {@link Mention}s are updated in batches.
+     *
+     * @since 0.2.0
+     */
+    void normalizeMentionReferences() {
+
+        long count = 0;
+
+        while (true) {
+
+            final List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            jdbcTemplate.query("select id, reference from mention where reference like '<%>' order by id",
+                    (ResultSetExtractor<Void>) rs -> {
+                        while (batch.size() < BATCH_SIZE && rs.next()) {
+                            final String reference = Mention.normalize(rs.getString(2));
+                            batch.add(new Object[]{reference, Mention.hash(reference), rs.getLong(1)});
+                        }
+                        return null;
+                    });
+
+            if (batch.isEmpty())
+                break;
+
+            jdbcTemplate.batchUpdate("update mention set reference = ?, reference_hash = ? where id = ?", batch);
+            count += batch.size();
+        }
+
+        if (0 < count)
+            log.info(String.format("Mention references normalized [ mentions :: %d ]", count));
+    }
+
+}
@@ -0,0 +1,104 @@
+package tv.helixware.mico.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import tv.helixware.mico.helpers.MediaFragmentParser;
+import tv.helixware.mico.model.Part;
+import tv.helixware.mico.model.SequenceFragment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@link SequenceService} queries MICO for the temporal video segmentation (shot boundaries) of a {@link Part}.
+ * <p>
+ * The fragment selector values are selected with a single SPARQL query and the response is parsed row by row while
+ * it's received, no Anno4j object (and no lazy remote lookup) is involved.
+ *
+ * @since 0.2.0
+ */
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+@Service
+@Slf4j
+public class SequenceService {
+
+    /**
+     * The query statement template.
+     *
+     * @since 0.2.0
+     */
+    private final static String STATEMENT = "PREFIX mmm: <http://www.mico-project.eu/ns/mmm/2.0/schema#>\n"
+            + "PREFIX mmmterms: <http://www.mico-project.eu/ns/mmmterms/2.0/schema#>\n"
+            + "PREFIX oa: <http://www.w3.org/ns/oa#>\n"
+            + "PREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#>\n"
+            + "\n"
+            + "SELECT DISTINCT ?npt WHERE {"
+            + "  <%1$s> mmm:hasPart ?annotation ."
+            + "  ?annotation mmm:hasBody [ a mmmterms:TVSShotBoundaryFrameBody ] ;"
+            + "    mmm:hasTarget [ (oa:hasSelector|mmm:hasSelector) [ rdf:value ?npt ] ] ."
+            + "}";
+
+    /**
+     * The variables selected by the statement.
+     *
+     * @since 0.2.0
+     */
+    private final static String[] VARS = {"npt"};
+
+    /**
+     * A {@link QueryService} instance used to post queries to MICO.
+     *
+     * @since 0.2.0
+     */
+    private final QueryService queryService;
+
+    /**
+     * Retrieves the {@link SequenceFragment}s of the {@link Part} from the remote MICO server, without persisting
+     * them.
+     *
+     * @param part The {@link Part}.
+     * @return A list of {@link SequenceFragment}s, not yet persisted.
+     * @since 0.2.0
+     */
+    public List<SequenceFragment> extract(final Part part) {
+
+        return extract(part, queryService::selectPaged);
+    }
+
+    /**
+     * Retrieves the {@link SequenceFragment}s of the {@link Part} using the specified {@link QueryService.Selector},
+     * e.g. an {@link ItemSnapshot}, without persisting them.
+     *
+     * @param part     The {@link Part}.
+     * @param selector The {@link QueryService.Selector}.
+     * @return A list of {@link SequenceFragment}s, not yet persisted.
+     * @since 0.2.0
+     */
+    public List<SequenceFragment> extract(final Part part, final QueryService.Selector selector) {
+
+        val uri = part.getUri();
+
+        log.trace(String.format("Retrieving sequences [ uri :: %s ]", uri));
+
+        final List<SequenceFragment> fragments = new ArrayList<>();
+        final MediaFragmentParser parser = new MediaFragmentParser();
+
+        // The rows are parsed as they are received.
+        selector.select(String.format(STATEMENT, uri), VARS, x -> {
+
+            if (!parser.parseTemporal(x[0]) || MediaFragmentParser.UNBOUNDED == parser.getEnd()) {
+                log.info(String.format("No match found [ value :: %s ]", x[0]));
+                return;
+            }
+
+            fragments.add(new SequenceFragment(parser.getStart(), parser.getEnd(), part));
+
+        }).orElseThrow(() -> new IllegalStateException("Cannot query the sequences"));
+
+        return fragments;
+    }
+
+}
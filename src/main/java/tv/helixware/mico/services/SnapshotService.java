@@ -0,0 +1,91 @@
+package tv.helixware.mico.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.sail.SailRepository;
+import org.openrdf.repository.util.RDFInserter;
+import org.openrdf.sail.memory.MemoryStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import tv.helixware.mico.model.Part;
+
+import java.util.Optional;
+
+/**
+ * Copies the annotations of an {@link tv.helixware.mico.model.Item} from MICO to an in-memory store with a single
+ * CONSTRUCT query, so that the extractors query the local copy instead of going over the network for each query.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class SnapshotService {
+
+    /**
+     * The statement template: all the triples of the item, of the part and of the resources reachable from them
+     * through the annotation parts, bodies, targets and selectors.
+     *
+     * @since 0.2.0
+     */
+    private final static String STATEMENT = "PREFIX mmm: <http://www.mico-project.eu/ns/mmm/2.0/schema#>\n"
+            + "PREFIX oa: <http://www.w3.org/ns/oa#>\n"
+            + "\n"
+            + "CONSTRUCT { ?s ?p ?o } WHERE {"
+            + "  VALUES ?root { <%1$s> <%2$s> }"
+            + "  ?root (mmm:hasPart|mmm:hasBody|mmm:hasTarget|oa:hasSelector|mmm:hasSelector)* ?s ."
+            + "  ?s ?p ?o ."
+            + "}";
+
+    /**
+     * The remote MICO {@link Repository}.
+     *
+     * @since 0.2.0
+     */
+    private final Repository repository;
+
+    /**
+     * Copy the annotations of the {@link Part}'s item to an in-memory store.
+     *
+     * @param part The {@link Part}.
+     * @return An {@link ItemSnapshot}, which must be closed, or empty in case of errors.
+     * @since 0.2.0
+     */
+    public Optional<ItemSnapshot> create(final Part part) {
+
+        val statement = String.format(STATEMENT, part.getItem().getUri(), part.getUri());
+        val start = System.currentTimeMillis();
+
+        try {
+            final Repository local = new SailRepository(new MemoryStore());
+            local.initialize();
+
+            final RepositoryConnection remoteConnection = repository.getConnection();
+            final RepositoryConnection localConnection = local.getConnection();
+            try {
+                // Add all the triples in one transaction, as they are received.
+                localConnection.begin();
+                remoteConnection.prepareGraphQuery(QueryLanguage.SPARQL, statement).evaluate(new RDFInserter(localConnection));
+                localConnection.commit();
+
+                log.info(String.format("Snapshot created [ uri :: %s ][ triples :: %d ][ elapsed :: %d ms ]",
+                        part.getItem().getUri(), localConnection.size(), System.currentTimeMillis() - start));
+            } finally {
+                localConnection.close();
+                remoteConnection.close();
+            }
+
+            return Optional.of(new ItemSnapshot(local));
+
+        } catch (Exception e) {
+            log.error(String.format("Cannot create the snapshot [ uri :: %s ]", part.getItem().getUri()), e);
+        }
+
+        return Optional.empty();
+    }
+
+}
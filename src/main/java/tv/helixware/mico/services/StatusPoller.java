@@ -0,0 +1,390 @@
+package tv.helixware.mico.services;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Service;
+import tv.helixware.mico.model.Item;
+import tv.helixware.mico.response.CheckStatusResponse;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Polls MICO for the status of the in-flight {@link Item}s, completing a future when an {@link Item} is finished.
+ * <p>
+ * A single scheduler thread drives a hashed timer wheel: each {@link Item} sits in the slot of its next poll and the
+ * status checks are sent using the {@link AsyncMicoClient}, therefore no thread is held while waiting. The delay
+ * between polls grows exponentially (with jitter, to avoid synchronized bursts) up to a maximum.
+ * <p>
+ * Due {@link Item}s are collected in a batch which is checked with a single request when it reaches the batch size or
+ * when the flush interval elapsed. In `all` batch mode the broker is asked for the status of all its items instead of
+ * listing the URIs.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@Service
+public class StatusPoller implements PublicMetrics, DisposableBean {
+
+    /**
+     * The {@link AsyncMicoClient} used to check the status.
+     *
+     * @since 0.2.0
+     */
+    private final AsyncMicoClient client;
+
+    /**
+     * The registry of in-flight {@link Item}s by URI.
+     *
+     * @since 0.2.0
+     */
+    private final ConcurrentMap<String, Pending> pending = new ConcurrentHashMap<>();
+
+    /**
+     * The scheduler thread, the only one which reads and writes the wheel.
+     *
+     * @since 0.2.0
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * The wheel slots.
+     *
+     * @since 0.2.0
+     */
+    private final List<ArrayDeque<Pending>> wheel;
+
+    /**
+     * The due items waiting to be checked, only accessed by the scheduler thread.
+     *
+     * @since 0.2.0
+     */
+    private final List<Pending> batch = new ArrayList<>();
+
+    /**
+     * When the first item has been added to the current batch, only accessed by the scheduler thread.
+     *
+     * @since 0.2.0
+     */
+    private long batchStarted;
+
+    private final int batchSize;
+    private final long flushInterval;
+    private final boolean batchAll;
+
+    private final long tick;
+    private final long initialDelay;
+    private final long maxDelay;
+    private final double multiplier;
+    private final double jitter;
+    private final long timeout;
+
+    /**
+     * The number of ticks elapsed since start, only accessed by the scheduler thread.
+     *
+     * @since 0.2.0
+     */
+    private long currentTick = 0;
+
+    /**
+     * Create an instance of the {@link StatusPoller}.
+     *
+     * @param client        The {@link AsyncMicoClient}.
+     * @param tick          The wheel tick duration in milliseconds.
+     * @param wheelSize     The number of slots in the wheel.
+     * @param initialDelay  The delay in milliseconds before the first poll.
+     * @param maxDelay      The maximum delay in milliseconds between polls.
+     * @param multiplier    The delay multiplier applied after each unfinished poll.
+     * @param jitter        The random jitter applied to each delay, as a fraction of the delay (e.g. 0.2 means ±20%).
+     * @param timeout       The maximum time in milliseconds to wait for an {@link Item}.
+     * @param batchSize     The maximum number of {@link Item}s checked with one request.
+     * @param flushInterval The maximum time in milliseconds a due {@link Item} waits for its batch to fill.
+     * @param batchMode     `uris` to list the {@link Item}s in the request, `all` to get the status of all the items.
+     * @since 0.2.0
+     */
+    @Autowired
+    public StatusPoller(final AsyncMicoClient client,
+                        @Value("${mico.poller.tick:250}") final long tick,
+                        @Value("${mico.poller.wheel-size:512}") final int wheelSize,
+                        @Value("${mico.poller.initial-delay:1000}") final long initialDelay,
+                        @Value("${mico.poller.max-delay:60000}") final long maxDelay,
+                        @Value("${mico.poller.multiplier:2.0}") final double multiplier,
+                        @Value("${mico.poller.jitter:0.2}") final double jitter,
+                        @Value("${mico.poller.timeout:86400000}") final long timeout,
+                        @Value("${mico.poller.batch-size:50}") final int batchSize,
+                        @Value("${mico.poller.flush-interval:500}") final long flushInterval,
+                        @Value("${mico.poller.batch-mode:uris}") final String batchMode) {
+
+        this.client = client;
+        this.tick = tick;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.timeout = timeout;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.batchAll = "all".equalsIgnoreCase(batchMode);
+
+        this.wheel = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++)
+            this.wheel.add(new ArrayDeque<>());
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "mico-status-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate(this::advance, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Wait for the {@link Item} to be finished. Calling this method again for an {@link Item} which is already being
+     * waited for returns the same future.
+     *
+     * @param item The {@link Item}.
+     * @return A future completed with the final {@link CheckStatusResponse}, or exceptionally with a
+     * {@link TimeoutException} if the item didn't finish in time.
+     * @since 0.2.0
+     */
+    public CompletableFuture<CheckStatusResponse> await(final Item item) {
+
+        val created = new Pending(item, System.currentTimeMillis() + timeout);
+        val existing = pending.putIfAbsent(item.getUri(), created);
+
+        if (null != existing)
+            return existing.future;
+
+        log.debug(String.format("Waiting for item [ uri :: %s ]", item.getUri()));
+
+        schedule(created, initialDelay);
+
+        return created.future;
+    }
+
+    /**
+     * Complete the wait for an {@link Item} which is known to be finished (e.g. because of a notification), without
+     * waiting for the next poll. Polling remains the fallback for notifications which never arrive.
+     *
+     * @param uri The {@link Item} URI.
+     * @return True if an {@link Item} was being waited for, otherwise false.
+     * @since 0.2.0
+     */
+    public boolean finished(final String uri) {
+
+        val item = pending.remove(uri);
+
+        if (null == item)
+            return false;
+
+        log.info(String.format("Item is finished (notified) [ uri :: %s ]", uri));
+
+        val response = new CheckStatusResponse();
+        response.setUri(uri);
+        response.setFinished(true);
+
+        // The item may still be in the wheel, it'll be discarded since it's not pending anymore.
+        return item.future.complete(response);
+    }
+
+    /**
+     * Get the number of in-flight {@link Item}s.
+     *
+     * @return The number of in-flight {@link Item}s.
+     * @since 0.2.0
+     */
+    public int size() {
+
+        return pending.size();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+
+        final Collection<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("mico.poller.pending", pending.size()));
+
+        return metrics;
+    }
+
+    @Override
+    public void destroy() {
+
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Schedule the next poll for the {@link Pending} item after the specified delay.
+     *
+     * @param item  The {@link Pending} item.
+     * @param delay The delay in milliseconds.
+     * @since 0.2.0
+     */
+    private void schedule(final Pending item, final long delay) {
+
+        item.delay = delay;
+
+        // The wheel is only touched by the scheduler thread.
+        scheduler.execute(() -> {
+            item.deadline = currentTick + Math.max(1, (long) Math.ceil((double) withJitter(delay) / tick));
+            wheel.get((int) (item.deadline % wheel.size())).add(item);
+        });
+    }
+
+    /**
+     * Advance the wheel by one tick, add the items whose deadline expired to the batch and flush the batch when it's
+     * full or old enough.
+     *
+     * @since 0.2.0
+     */
+    private void advance() {
+
+        try {
+            currentTick++;
+
+            val slot = wheel.get((int) (currentTick % wheel.size()));
+
+            // Items which are due in a later round of the wheel are put back in the slot.
+            for (int i = slot.size(); i > 0; i--) {
+                val item = slot.poll();
+
+                if (item.deadline > currentTick)
+                    slot.add(item);
+                else
+                    enqueue(item);
+            }
+
+            if (!batch.isEmpty() && System.currentTimeMillis() - batchStarted >= flushInterval)
+                flush();
+
+        } catch (Exception e) {
+            // Never let an exception cancel the scheduled task.
+            log.error("An error occurred while advancing the status poller", e);
+        }
+    }
+
+    /**
+     * Add a due {@link Pending} item to the batch, unless it timed out.
+     *
+     * @param item The {@link Pending} item.
+     * @since 0.2.0
+     */
+    private void enqueue(final Pending item) {
+
+        // The item has been completed meanwhile (e.g. by a notification).
+        if (item.future.isDone())
+            return;
+
+        if (System.currentTimeMillis() > item.expiry) {
+            log.error(String.format("Timeout while waiting for item [ uri :: %s ]", item.item.getUri()));
+            pending.remove(item.item.getUri(), item);
+            item.future.completeExceptionally(new TimeoutException("Timeout while waiting for item " + item.item.getUri()));
+            return;
+        }
+
+        if (batch.isEmpty())
+            batchStarted = System.currentTimeMillis();
+
+        batch.add(item);
+
+        if (batch.size() >= batchSize)
+            flush();
+    }
+
+    /**
+     * Check the status of the items in the batch with one request and dispatch the responses to each item.
+     *
+     * @since 0.2.0
+     */
+    private void flush() {
+
+        final Map<String, Pending> items = new HashMap<>(batch.size());
+        batch.forEach(item -> items.put(item.item.getUri(), item));
+        batch.clear();
+
+        final List<Item> request = batchAll
+                ? Collections.<Item>emptyList()
+                : items.values().stream().map(item -> item.item).collect(Collectors.toList());
+
+        client.checkStatus(request, true).whenComplete((responses, e) -> {
+
+            // Index the finished items by URI.
+            final Set<String> finished = new HashSet<>();
+            final Map<String, CheckStatusResponse> byUri = new HashMap<>();
+            if (null == e)
+                responses.stream()
+                        .filter(response -> null != response.getUri())
+                        .forEach(response -> {
+                            byUri.put(response.getUri(), response);
+                            if (response.isFinished())
+                                finished.add(response.getUri());
+                        });
+
+            items.forEach((uri, item) -> {
+
+                // Already completed meanwhile (e.g. by a notification).
+                if (item.future.isDone())
+                    return;
+
+                if (finished.contains(uri)) {
+                    log.info(String.format("Item is finished [ uri :: %s ]", uri));
+                    pending.remove(uri, item);
+                    item.future.complete(byUri.get(uri));
+                    return;
+                }
+
+                log.debug(String.format("Still running [ uri :: %s ]", uri));
+
+                schedule(item, Math.min(maxDelay, (long) (item.delay * multiplier)));
+            });
+        });
+    }
+
+    /**
+     * Apply a random jitter to the delay.
+     *
+     * @param delay The delay.
+     * @return The delay with jitter.
+     * @since 0.2.0
+     */
+    private long withJitter(final long delay) {
+
+        return (long) (delay * (1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1)));
+    }
+
+    /**
+     * An {@link Item} being waited for.
+     *
+     * @since 0.2.0
+     */
+    private static class Pending {
+
+        private final Item item;
+        private final long expiry;
+        private final CompletableFuture<CheckStatusResponse> future = new CompletableFuture<>();
+
+        /**
+         * The current delay between polls.
+         */
+        private volatile long delay;
+
+        /**
+         * The tick of the next poll, only accessed by the scheduler thread.
+         */
+        private long deadline;
+
+        private Pending(final Item item, final long expiry) {
+
+            this.item = item;
+            this.expiry = expiry;
+        }
+
+    }
+
+}
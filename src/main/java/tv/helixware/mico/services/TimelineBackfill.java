@@ -0,0 +1,197 @@
+package tv.helixware.mico.services;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import tv.helixware.mico.model.Asset;
+import tv.helixware.mico.model.Timeline;
+import tv.helixware.mico.persist.AssetRepository;
+import tv.helixware.mico.persist.TimelineRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds the {@link Timeline} documents of the existing {@link Asset}s, e.g. after an upgrade or a change of the
+ * document format.
+ * <p>
+ * The {@link Asset}s are walked by id in batches, the {@link Timeline}s of each batch are built in parallel on the
+ * backfill stage and the next batch is read once the current one completed, so that the memory is bounded by the batch
+ * size. The {@link Asset}s whose {@link Timeline} is already in the current format are skipped, unless forced.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@Service
+public class TimelineBackfill implements PublicMetrics {
+
+    private final AssetRepository assetRepository;
+    private final TimelineRepository timelineRepository;
+    private final TimelineBuilder timelineBuilder;
+
+    /**
+     * The {@link PipelineStage} building the {@link Timeline}s.
+     *
+     * @since 0.2.0
+     */
+    private final Executor executor;
+
+    private final int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong built = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Create a {@link TimelineBackfill} instance.
+     *
+     * @param assetRepository    The {@link AssetRepository}.
+     * @param timelineRepository The {@link TimelineRepository}.
+     * @param timelineBuilder    The {@link TimelineBuilder}.
+     * @param executor           The backfill {@link PipelineStage}.
+     * @param batchSize          The number of {@link Asset}s read at a time.
+     * @since 0.2.0
+     */
+    @Autowired
+    public TimelineBackfill(final AssetRepository assetRepository,
+                            final TimelineRepository timelineRepository,
+                            final TimelineBuilder timelineBuilder,
+                            @Qualifier("backfillStage") final Executor executor,
+                            @Value("${mico.timeline.backfill.batch-size:100}") final int batchSize) {
+
+        this.assetRepository = assetRepository;
+        this.timelineRepository = timelineRepository;
+        this.timelineBuilder = timelineBuilder;
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Start the backfill on a background thread, unless it's already running.
+     *
+     * @param force Whether to rebuild the {@link Timeline}s which are already in the current format.
+     * @return True if the backfill started, false if it's already running.
+     * @since 0.2.0
+     */
+    public boolean start(final boolean force) {
+
+        if (!running.compareAndSet(false, true))
+            return false;
+
+        final Thread thread = new Thread(() -> {
+            try {
+                run(force);
+            } catch (Exception e) {
+                log.error("An error occurred while running the timeline backfill", e);
+            } finally {
+                running.set(false);
+            }
+        }, "mico-timeline-backfill");
+        thread.setDaemon(true);
+        thread.start();
+
+        return true;
+    }
+
+    /**
+     * Whether the backfill is running.
+     *
+     * @return True if the backfill is running.
+     * @since 0.2.0
+     */
+    public boolean isRunning() {
+
+        return running.get();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+
+        final Collection<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("timeline.backfill.running", running.get() ? 1 : 0));
+        metrics.add(new Metric<>("timeline.backfill.built", built.get()));
+        metrics.add(new Metric<>("timeline.backfill.skipped", skipped.get()));
+        metrics.add(new Metric<>("timeline.backfill.failed", failed.get()));
+
+        return metrics;
+    }
+
+    /**
+     * Walk all the {@link Asset}s in batches and build their {@link Timeline}s.
+     *
+     * @param force Whether to rebuild the {@link Timeline}s which are already in the current format.
+     * @since 0.2.0
+     */
+    private void run(final boolean force) {
+
+        val start = System.currentTimeMillis();
+        val before = built.get();
+
+        log.info(String.format("Timeline backfill started [ force :: %b ][ batch size :: %d ]", force, batchSize));
+
+        Long after = 0L;
+        List<Asset> assets;
+        while (!(assets = assetRepository.findByIdGreaterThanOrderByIdAsc(after, new PageRequest(0, batchSize))).isEmpty()) {
+
+            final List<CompletableFuture<Void>> futures = new ArrayList<>(assets.size());
+            for (final Asset asset : assets)
+                futures.add(buildAsync(asset, force));
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).join();
+
+            after = assets.get(assets.size() - 1).getId();
+        }
+
+        log.info(String.format("Timeline backfill completed [ built :: %d ][ elapsed :: %d ms ]",
+                built.get() - before, System.currentTimeMillis() - start));
+    }
+
+    /**
+     * Build the {@link Timeline} of an {@link Asset} on the backfill stage. When the stage is full, the
+     * {@link Timeline} is built on the calling thread.
+     *
+     * @param asset The {@link Asset}.
+     * @param force Whether to rebuild a {@link Timeline} which is already in the current format.
+     * @return A future completed when the {@link Timeline} has been built, it never completes exceptionally.
+     * @since 0.2.0
+     */
+    private CompletableFuture<Void> buildAsync(final Asset asset, final boolean force) {
+
+        final Runnable runnable = () -> {
+            try {
+                final Timeline existing = timelineRepository.findByAsset(asset);
+                if (!force && null != existing && Timeline.FORMAT <= existing.getFormat()) {
+                    skipped.incrementAndGet();
+                    return;
+                }
+
+                timelineBuilder.build(asset);
+                built.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.error(String.format("An error occurred while building the timeline [ guid :: %s ]", asset.getGuid()), e);
+            }
+        };
+
+        try {
+            return CompletableFuture.runAsync(runnable, executor);
+        } catch (RejectedExecutionException e) {
+            runnable.run();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+}
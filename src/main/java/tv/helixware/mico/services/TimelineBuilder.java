@@ -0,0 +1,224 @@
+package tv.helixware.mico.services;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tv.helixware.mico.model.*;
+import tv.helixware.mico.persist.AssetRepository;
+import tv.helixware.mico.persist.FragmentRepository;
+import tv.helixware.mico.persist.TimelineRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * Builds and stores the {@link Timeline} document of an {@link Asset}:
+ * <p>
+ * `{"asset":"...","format":1,"revision":3,"shots":[...],"faces":[...],"entities":[...],"topics":[...]}`
+ * <p>
+ * The fragments are streamed from the database sorted by start and each one is appended to the array of its type, so
+ * that the arrays are sorted by start as well. The fragments are detached once written, so that the persistence context
+ * doesn't grow, but the document is built in memory: the memory used grows with the number of fragments, up to about
+ * twice the size of the document while the arrays are copied into it.
+ * <p>
+ * The document replaces the previous one of the {@link Asset}, if any, and its revision is incremented. The builds of
+ * an {@link Asset} are serialized by locking the {@link Asset} row, so that two concurrent builds (e.g. the extraction
+ * of two parts, or an extraction and the backfill) don't both insert a document.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class TimelineBuilder {
+
+    private final static JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final AssetRepository assetRepository;
+    private final FragmentRepository<Fragment> fragmentRepository;
+    private final TimelineRepository timelineRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Build the {@link Timeline} of an {@link Asset} from its fragments and save it.
+     *
+     * @param asset The {@link Asset}.
+     * @return The saved {@link Timeline}.
+     * @since 0.2.0
+     */
+    @Transactional
+    public Timeline build(final Asset asset) {
+
+        val start = System.currentTimeMillis();
+
+        // Wait for the other builds of the asset, then read the document they saved.
+        assetRepository.findOneForUpdate(asset.getId());
+
+        final Timeline existing = timelineRepository.findByAsset(asset);
+        final Timeline timeline = null != existing ? existing : new Timeline(asset);
+        final long revision = timeline.getRevision() + 1;
+
+        try {
+            val shots = new Array();
+            val faces = new Array();
+            val entities = new Array();
+            val topics = new Array();
+
+            long count = 0;
+            try (final Stream<Fragment> fragments = fragmentRepository.streamAllByAssetId(asset.getId())) {
+                for (final Fragment fragment : (Iterable<Fragment>) fragments::iterator) {
+                    if (fragment instanceof SequenceFragment)
+                        shot(shots.start(fragment));
+                    else if (fragment instanceof FaceFragment)
+                        face(faces.start(fragment), (FaceFragment) fragment);
+                    else if (fragment instanceof EntityFragment)
+                        entity(entities.start(fragment), (EntityFragment) fragment);
+                    else if (fragment instanceof TopicFragment)
+                        topic(topics.start(fragment), (TopicFragment) fragment);
+
+                    entityManager.detach(fragment);
+                    count++;
+                }
+            }
+
+            val output = new ByteArrayOutputStream();
+            try (final JsonGenerator generator = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8)) {
+                generator.writeStartObject();
+                generator.writeStringField("asset", asset.getGuid());
+                generator.writeNumberField("format", Timeline.FORMAT);
+                generator.writeNumberField("revision", revision);
+                generator.writeFieldName("shots");
+                generator.writeRawValue(shots.end());
+                generator.writeFieldName("faces");
+                generator.writeRawValue(faces.end());
+                generator.writeFieldName("entities");
+                generator.writeRawValue(entities.end());
+                generator.writeFieldName("topics");
+                generator.writeRawValue(topics.end());
+                generator.writeEndObject();
+            }
+
+            timeline.setFormat(Timeline.FORMAT);
+            timeline.setRevision(revision);
+            timeline.setFragments(count);
+            timeline.setDocument(output.toByteArray());
+
+            log.info(String.format("Timeline built [ guid :: %s ][ revision :: %d ][ fragments :: %d ][ bytes :: %d ][ elapsed :: %d ms ]",
+                    asset.getGuid(), revision, count, timeline.getDocument().length, System.currentTimeMillis() - start));
+
+        } catch (IOException e) {
+            // Writing to memory doesn't fail, unless something's really wrong.
+            throw new UncheckedIOException(e);
+        }
+
+        return timelineRepository.save(timeline);
+    }
+
+    private static void shot(final JsonGenerator generator) throws IOException {
+
+        generator.writeEndObject();
+    }
+
+    private static void face(final JsonGenerator generator, final FaceFragment face) throws IOException {
+
+        number(generator, "x", face.getX());
+        number(generator, "y", face.getY());
+        number(generator, "width", face.getWidth());
+        number(generator, "height", face.getHeight());
+        generator.writeEndObject();
+    }
+
+    private static void entity(final JsonGenerator generator, final EntityFragment entity) throws IOException {
+
+        string(generator, "label", entity.getLabel());
+        string(generator, "reference", entity.getReference());
+        string(generator, "type", entity.getType());
+        generator.writeNumberField("confidence", entity.getConfidence());
+        generator.writeEndObject();
+    }
+
+    private static void topic(final JsonGenerator generator, final TopicFragment topic) throws IOException {
+
+        string(generator, "label", topic.getLabel());
+        string(generator, "reference", topic.getReference());
+        generator.writeNumberField("confidence", topic.getConfidence());
+        generator.writeEndObject();
+    }
+
+    private static void number(final JsonGenerator generator, final String name, final Long value) throws IOException {
+
+        if (null != value)
+            generator.writeNumberField(name, value);
+    }
+
+    private static void string(final JsonGenerator generator, final String name, final String value) throws IOException {
+
+        if (null != value)
+            generator.writeStringField(name, value);
+    }
+
+    /**
+     * A JSON array of fragments of one type, written to memory.
+     *
+     * @since 0.2.0
+     */
+    private static class Array {
+
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final JsonGenerator generator;
+
+        private Array() throws IOException {
+
+            generator = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8);
+            generator.writeStartArray();
+        }
+
+        /**
+         * Start the object of a fragment, with the fields shared by all the types.
+         *
+         * @param fragment The {@link Fragment}.
+         * @return The {@link JsonGenerator}, to write the other fields and end the object.
+         * @throws IOException
+         * @since 0.2.0
+         */
+        private JsonGenerator start(final Fragment fragment) throws IOException {
+
+            generator.writeStartObject();
+            generator.writeNumberField("id", fragment.getId());
+            generator.writeNumberField("start", fragment.getStart());
+            generator.writeNumberField("end", fragment.getEnd());
+
+            return generator;
+        }
+
+        /**
+         * End the array.
+         *
+         * @return The JSON array.
+         * @throws IOException
+         * @since 0.2.0
+         */
+        private String end() throws IOException {
+
+            generator.writeEndArray();
+            generator.close();
+
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+    }
+
+}
@@ -0,0 +1,172 @@
+package tv.helixware.mico.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Service;
+import tv.helixware.mico.helpers.TimelineCodec;
+import tv.helixware.mico.model.*;
+import tv.helixware.mico.persist.TimelineRepository;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Answers time-range queries over the fragments of an asset ("which shots, faces, entities are active between t0 and
+ * t1") and provides the binary timeline of an asset.
+ * <p>
+ * The fragments are taken from the {@link FragmentCache}, where each type of fragments of an asset is kept in an
+ * {@link tv.helixware.mico.helpers.IntervalIndex}, so that a query doesn't hit the database. The binary timelines are
+ * encoded once and cached as immutable blobs until the fragments of the asset change. The {@link Timeline} documents,
+ * built when the extraction ends, are read with a single lookup of the {@link TimelineRepository}.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@Service
+public class TimelineService implements PublicMetrics {
+
+    private final FragmentCache fragmentCache;
+    private final TimelineRepository timelineRepository;
+
+    /**
+     * The binary timelines by asset GUID.
+     *
+     * @since 0.2.0
+     */
+    private final Cache<String, byte[]> timelines;
+
+    /**
+     * Create a {@link TimelineService} instance.
+     *
+     * @param fragmentCache      The {@link FragmentCache}.
+     * @param timelineRepository The {@link TimelineRepository}.
+     * @param maxBytes           The maximum size in bytes of the cached binary timelines.
+     * @since 0.2.0
+     */
+    @Autowired
+    public TimelineService(final FragmentCache fragmentCache,
+                           final TimelineRepository timelineRepository,
+                           @Value("${mico.cache.timelines.max-bytes:67108864}") final long maxBytes) {
+
+        this.fragmentCache = fragmentCache;
+        this.timelineRepository = timelineRepository;
+        this.timelines = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String guid, byte[] timeline) -> timeline.length)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Find the fragments of an asset which overlap a time range.
+     *
+     * @param guid  The asset GUID.
+     * @param start The range start in milliseconds (inclusive).
+     * @param end   The range end in milliseconds (inclusive).
+     * @return The overlapping fragments, sorted by start.
+     * @since 0.2.0
+     */
+    public List<Fragment> overlapping(final String guid, final long start, final long end) {
+
+        final List<Fragment> fragments = new ArrayList<>();
+        fragmentCache.getAll(guid).values().forEach(index -> fragments.addAll(index.overlapping(start, end)));
+        fragments.sort(Comparator.comparing(Fragment::getStart));
+
+        return fragments;
+    }
+
+    /**
+     * Find the fragments of an asset of one type which overlap a time range.
+     *
+     * @param guid  The asset GUID.
+     * @param type  The fragment type.
+     * @param start The range start in milliseconds (inclusive).
+     * @param end   The range end in milliseconds (inclusive).
+     * @return The overlapping fragments, sorted by start.
+     * @since 0.2.0
+     */
+    public List<Fragment> overlapping(final String guid, final Class<? extends Fragment> type, final long start, final long end) {
+
+        return fragmentCache.get(guid, type).overlapping(start, end);
+    }
+
+    /**
+     * Get the binary timeline of an asset, see {@link TimelineCodec}.
+     *
+     * @param guid The asset GUID.
+     * @return The binary timeline, which must not be modified.
+     * @since 0.2.0
+     */
+    public byte[] binary(final String guid) {
+
+        return timelines.get(guid, this::encode);
+    }
+
+    /**
+     * Get the {@link Timeline} document of an asset.
+     *
+     * @param guid The asset GUID.
+     * @return The {@link Timeline}, or empty if it hasn't been built yet.
+     * @since 0.2.0
+     */
+    public Optional<Timeline> document(final String guid) {
+
+        return timelineRepository.findByGuid(guid).stream().findFirst();
+    }
+
+    /**
+     * Invalidate the binary timeline and the cached fragments of an asset, e.g. because a part has been extracted
+     * again.
+     *
+     * @param guid The asset GUID.
+     * @since 0.2.0
+     */
+    public void invalidate(final String guid) {
+
+        // The fragments first: a binary timeline encoded in between would otherwise be built from the stale fragments
+        // and stay cached.
+        fragmentCache.invalidate(guid);
+        timelines.invalidate(guid);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+
+        val stats = timelines.stats();
+
+        final Collection<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("cache.timelines.size", timelines.estimatedSize()));
+        metrics.add(new Metric<>("cache.timelines.hits", stats.hitCount()));
+        metrics.add(new Metric<>("cache.timelines.misses", stats.missCount()));
+        metrics.add(new Metric<>("cache.timelines.evictions", stats.evictionCount()));
+
+        return metrics;
+    }
+
+    private byte[] encode(final String guid) {
+
+        val fragments = fragmentCache.getAll(guid);
+
+        final byte[] timeline = TimelineCodec.encode(
+                of(fragments.get(SequenceFragment.class).elements(), SequenceFragment.class),
+                of(fragments.get(FaceFragment.class).elements(), FaceFragment.class),
+                of(fragments.get(EntityFragment.class).elements(), EntityFragment.class),
+                of(fragments.get(TopicFragment.class).elements(), TopicFragment.class));
+
+        log.debug(String.format("Timeline encoded [ guid :: %s ][ bytes :: %d ]", guid, timeline.length));
+
+        return timeline;
+    }
+
+    private static <T extends Fragment> List<T> of(final List<Fragment> fragments, final Class<T> type) {
+
+        return fragments.stream().map(type::cast).collect(Collectors.toList());
+    }
+
+}
@@ -18,6 +18,7 @@ import tv.helixware.mico.persist.ItemRepository;
 import tv.helixware.mico.persist.PartRepository;
 import tv.helixware.mico.services.MicoClient;
 import tv.helixware.mico.services.PartService;
+import tv.helixware.mico.services.StatusPoller;
 
 import java.io.File;
 import java.util.UUID;
@@ -51,6 +52,9 @@ public class MicoClientTest {
     @Autowired
     private PartService partService;
 
+    @Autowired
+    private StatusPoller statusPoller;
+
     /**
      * Test creating a MICO {@link Item} and a {@link Part}.
      *
@@ -88,8 +92,9 @@ public class MicoClientTest {
         // Check that submission was positive.
         assertTrue(result);
 
-        // Finally process the part.
-        partService.process(part);
+        // Finally wait for MICO to finish and extract the part, as the ingestion worker does.
+        statusPoller.await(item).join();
+        partService.extract(part);
 
     }
 
@@ -0,0 +1,68 @@
+package tv.helixware.mico.config;
+
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tv.helixware.mico.services.IngestionWorker;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test that the {@link WebConfig.BackpressureInterceptor} refuses new assets only while the {@link IngestionWorker} is
+ * saturated.
+ *
+ * @since 0.2.0
+ */
+public class BackpressureInterceptorTest {
+
+    private IngestionWorker worker;
+
+    private WebConfig.BackpressureInterceptor interceptor;
+
+    @Before
+    public void setUp() {
+
+        worker = mock(IngestionWorker.class);
+        interceptor = new WebConfig.BackpressureInterceptor(worker);
+    }
+
+    @Test
+    public void testRefusedWhenSaturated() throws Exception {
+
+        when(worker.isSaturated()).thenReturn(true);
+
+        val response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(new MockHttpServletRequest("POST", "/assets"), response, null));
+
+        assertEquals(503, response.getStatus());
+        assertEquals("60", response.getHeader("Retry-After"));
+    }
+
+    @Test
+    public void testAcceptedWhenNotSaturated() throws Exception {
+
+        when(worker.isSaturated()).thenReturn(false);
+
+        val response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("POST", "/assets"), response, null));
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("Retry-After"));
+    }
+
+    @Test
+    public void testReadsAreNotRefused() throws Exception {
+
+        when(worker.isSaturated()).thenReturn(true);
+
+        val response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/assets"), response, null));
+
+        assertEquals(200, response.getStatus());
+    }
+
+}
@@ -0,0 +1,130 @@
+package tv.helixware.mico.events;
+
+import lombok.val;
+import org.apache.qpid.server.Broker;
+import org.apache.qpid.server.BrokerOptions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import tv.helixware.mico.model.Item;
+import tv.helixware.mico.services.AsyncMicoClient;
+import tv.helixware.mico.services.StatusPoller;
+
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test the {@link ItemFinishedListener} against an in-process AMQP broker (Apache Qpid).
+ *
+ * @since 0.2.0
+ */
+public class ItemFinishedListenerTest {
+
+    private final static String QUEUE = "mico-gateway.item-finished";
+
+    private Broker broker;
+
+    private CachingConnectionFactory connectionFactory;
+
+    private SimpleMessageListenerContainer container;
+
+    private StatusPoller statusPoller;
+
+    @Before
+    public void setUp() throws Exception {
+
+        // Find a free port for the broker.
+        final int port;
+        try (val socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        val options = new BrokerOptions();
+        options.setConfigProperty("qpid.amqp_port", String.valueOf(port));
+        options.setConfigProperty("qpid.work_dir", Files.createTempDirectory("qpid-").toString());
+        options.setConfigurationStoreType("Memory");
+        options.setInitialConfigurationLocation(getClass().getClassLoader().getResource("qpid-config.json").toExternalForm());
+        options.setStartupLoggedToSystemOut(false);
+
+        broker = new Broker();
+        broker.startup(options);
+
+        connectionFactory = new CachingConnectionFactory("localhost", port);
+        connectionFactory.setUsername("guest");
+        connectionFactory.setPassword("guest");
+
+        new RabbitAdmin(connectionFactory).declareQueue(new Queue(QUEUE, true));
+
+        // A MICO client which never reports the items as finished: only the notifications can complete them.
+        val client = mock(AsyncMicoClient.class);
+        when(client.checkStatus(anyCollectionOf(Item.class), anyBoolean())).thenReturn(CompletableFuture.completedFuture(Collections.emptyList()));
+
+        statusPoller = new StatusPoller(client, 50, 64, 100, 1000, 2.0, 0.2, 60000, 50, 100, "uris");
+
+        container = new SimpleMessageListenerContainer(connectionFactory);
+        container.setQueueNames(QUEUE);
+        container.setMessageListener(new ItemFinishedListener(statusPoller));
+        container.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        container.stop();
+        connectionFactory.destroy();
+        statusPoller.destroy();
+        broker.shutdown();
+    }
+
+    @Test
+    public void testPlainUriNotification() throws Exception {
+
+        val uri = "http://demo.mico-project.eu/marmotta/1a7f0c3e-1c5b-4b8e-9a11-2f6d1c2b0e01";
+        val future = statusPoller.await(new Item(null, uri, "1a7f0c3e-1c5b-4b8e-9a11-2f6d1c2b0e01"));
+
+        new RabbitTemplate(connectionFactory).convertAndSend(QUEUE, uri);
+
+        val response = future.get(10, TimeUnit.SECONDS);
+        assertTrue(response.isFinished());
+        assertEquals(uri, response.getUri());
+        assertEquals(0, statusPoller.size());
+    }
+
+    @Test
+    public void testJsonNotification() throws Exception {
+
+        val uri = "http://demo.mico-project.eu/marmotta/5d2e9b7a-3f4c-4e1d-8b6a-0c9f7e5d3a21";
+        val future = statusPoller.await(new Item(null, uri, "5d2e9b7a-3f4c-4e1d-8b6a-0c9f7e5d3a21"));
+
+        new RabbitTemplate(connectionFactory).convertAndSend(QUEUE, "{\"itemUri\":\"" + uri + "\",\"finished\":true}");
+
+        assertTrue(future.get(10, TimeUnit.SECONDS).isFinished());
+    }
+
+    @Test
+    public void testUnknownItemIsIgnored() throws Exception {
+
+        val uri = "http://demo.mico-project.eu/marmotta/9c8b7a6d-5e4f-4a3b-2c1d-0e9f8a7b6c5d";
+        val future = statusPoller.await(new Item(null, uri, "9c8b7a6d-5e4f-4a3b-2c1d-0e9f8a7b6c5d"));
+
+        new RabbitTemplate(connectionFactory).convertAndSend(QUEUE, "http://demo.mico-project.eu/marmotta/unknown");
+
+        Thread.sleep(1000L);
+        assertFalse(future.isDone());
+    }
+
+}
@@ -0,0 +1,68 @@
+package tv.helixware.mico.helpers;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the encoding and the decoding of the {@link FragmentCursor} tokens.
+ *
+ * @since 0.2.0
+ */
+public class FragmentCursorTest {
+
+    @Test
+    public void testRoundTrip() {
+
+        final String token = FragmentCursor.encode(4500, 42);
+
+        assertEquals(4500, FragmentCursor.start(token));
+        assertEquals(42, FragmentCursor.id(token));
+
+        // Negative starts (entity and topic fragments) and the bounds survive as well.
+        final String negative = FragmentCursor.encode(-1, Long.MAX_VALUE);
+        assertEquals(-1, FragmentCursor.start(negative));
+        assertEquals(Long.MAX_VALUE, FragmentCursor.id(negative));
+
+        // The token is URL safe, without padding.
+        assertFalse(token.contains("="));
+        assertFalse(token.contains("+"));
+        assertFalse(token.contains("/"));
+    }
+
+    @Test
+    public void testFirstPage() {
+
+        assertEquals(Long.MIN_VALUE, FragmentCursor.start(null));
+        assertEquals(Long.MIN_VALUE, FragmentCursor.id(null));
+        assertEquals(Long.MIN_VALUE, FragmentCursor.start(""));
+        assertEquals(Long.MIN_VALUE, FragmentCursor.id(""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGarbage() {
+
+        FragmentCursor.start("!!not base64!!");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingSeparator() {
+
+        FragmentCursor.start(encode("4500"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotNumeric() {
+
+        FragmentCursor.id(encode("4500:abc"));
+    }
+
+    private static String encode(final String value) {
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+}
@@ -0,0 +1,56 @@
+package tv.helixware.mico.helpers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the {@link IntervalIndex} against a linear scan.
+ *
+ * @since 0.2.0
+ */
+public class IntervalIndexTest {
+
+    @Test
+    public void testOverlapping() {
+
+        final Random random = new Random(42);
+
+        // Mostly short intervals and a few long ones.
+        final List<long[]> intervals = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            final long start = random.nextInt(10_000_000);
+            intervals.add(new long[]{start, start + random.nextInt(0 == i % 100 ? 500_000 : 5_000)});
+        }
+
+        final IntervalIndex<long[]> index = new IntervalIndex<>(intervals, x -> x[0], x -> x[1]);
+
+        for (int i = 0; i < 100; i++) {
+            final long from = random.nextInt(10_000_000);
+            final long to = from + random.nextInt(20_000);
+
+            final List<long[]> expected = intervals.stream()
+                    .filter(x -> x[0] <= to && x[1] >= from)
+                    .collect(Collectors.toList());
+            final List<long[]> actual = index.overlapping(from, to);
+
+            assertEquals(expected.size(), actual.size());
+            assertTrue(actual.containsAll(expected));
+            for (int j = 1; j < actual.size(); j++)
+                assertTrue(actual.get(j - 1)[0] <= actual.get(j)[0]);
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+
+        assertTrue(new IntervalIndex<long[]>(new ArrayList<>(), x -> x[0], x -> x[1]).overlapping(0, Long.MAX_VALUE).isEmpty());
+    }
+
+}
@@ -0,0 +1,87 @@
+package tv.helixware.mico.helpers;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compare the {@link MediaFragmentParser} with the regular expressions previously used by the extractors.
+ * <p>
+ * Run with `mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=tv.helixware.mico.helpers.MediaFragmentParserBenchmark`, add `-prof gc` to the options to compare
+ * the allocations.
+ *
+ * @since 0.2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MediaFragmentParserBenchmark {
+
+    private final static Pattern NPT_PATTERN = Pattern.compile("npt:(\\d+)(?:\\.\\d+)?,(\\d+)(?:\\.\\d+)?");
+    private final static Pattern XYWH_PATTERN = Pattern.compile("#xywh=(\\d+),(\\d+),(\\d+),(\\d+)");
+
+    private final String npt = "http://demo2.mico-project.eu:8080/marmotta/e6f5c01e-2e1f-4d2b-a9a4-0c0fb5f7b5a1#t=npt:1234.56,1240.04";
+    private final String xywh = "http://demo2.mico-project.eu:8080/marmotta/e6f5c01e-2e1f-4d2b-a9a4-0c0fb5f7b5a1#xywh=160,120,320,240";
+
+    private final MediaFragmentParser parser = new MediaFragmentParser();
+
+    @Benchmark
+    public void nptRegex(final Blackhole blackhole) {
+
+        final Matcher matcher = NPT_PATTERN.matcher(npt);
+        if (matcher.find()) {
+            blackhole.consume(Long.valueOf(matcher.group(1)));
+            blackhole.consume(Long.valueOf(matcher.group(2)));
+        }
+    }
+
+    @Benchmark
+    public void nptParser(final Blackhole blackhole) {
+
+        if (parser.parseTemporal(npt)) {
+            blackhole.consume(parser.getStart());
+            blackhole.consume(parser.getEnd());
+        }
+    }
+
+    @Benchmark
+    public void xywhRegex(final Blackhole blackhole) {
+
+        final Matcher matcher = XYWH_PATTERN.matcher(xywh);
+        if (matcher.find()) {
+            blackhole.consume(Long.valueOf(matcher.group(1)));
+            blackhole.consume(Long.valueOf(matcher.group(2)));
+            blackhole.consume(Long.valueOf(matcher.group(3)));
+            blackhole.consume(Long.valueOf(matcher.group(4)));
+        }
+    }
+
+    @Benchmark
+    public void xywhParser(final Blackhole blackhole) {
+
+        if (parser.parseSpatial(xywh)) {
+            blackhole.consume(parser.getX());
+            blackhole.consume(parser.getY());
+            blackhole.consume(parser.getWidth());
+            blackhole.consume(parser.getHeight());
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+
+        new Runner(new OptionsBuilder()
+                .include(MediaFragmentParserBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
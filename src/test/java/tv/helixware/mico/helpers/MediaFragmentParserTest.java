@@ -0,0 +1,71 @@
+package tv.helixware.mico.helpers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the {@link MediaFragmentParser}.
+ *
+ * @since 0.2.0
+ */
+public class MediaFragmentParserTest {
+
+    private final MediaFragmentParser parser = new MediaFragmentParser();
+
+    @Test
+    public void testTemporal() {
+
+        assertTemporal("http://example.org/video.mp4#t=npt:10,20", 10000, 20000);
+        assertTemporal("npt:12.32,14.5", 12320, 14500);
+        assertTemporal("t=npt:0.0416,1.9999", 41, 1999);
+        assertTemporal("#t=10,1:02:03.25", 10000, 3723250);
+        assertTemporal("#t=npt:01:30,02:00", 90000, 120000);
+        assertTemporal("#t=npt:,20", 0, 20000);
+        assertTemporal("#t=npt:20", 20000, MediaFragmentParser.UNBOUNDED);
+    }
+
+    @Test
+    public void testTemporalInvalid() {
+
+        assertFalse(parser.parseTemporal("http://example.org/video.mp4"));
+        assertFalse(parser.parseTemporal("#t=smpte:00:00:10:00,00:00:20:00"));
+        assertFalse(parser.parseTemporal("#t=npt:20,10"));
+        assertFalse(parser.parseTemporal("#t=npt:10.,20"));
+        assertFalse(parser.parseTemporal("http://example.org/start=10"));
+    }
+
+    @Test
+    public void testSpatial() {
+
+        assertTrue(parser.parseSpatial("http://example.org/video.mp4#xywh=160,120,320,240"));
+        assertBox(160, 120, 320, 240, false);
+
+        assertTrue(parser.parseSpatial("#t=npt:10,20&xywh=pixel:1,2,3,4"));
+        assertBox(1, 2, 3, 4, false);
+
+        assertTrue(parser.parseSpatial("xywh=percent:25,25,50,50"));
+        assertBox(25, 25, 50, 50, true);
+
+        assertFalse(parser.parseSpatial("#xywh=160,120,320"));
+        assertFalse(parser.parseSpatial("#xywh=inch:1,2,3,4"));
+        assertFalse(parser.parseSpatial("#t=npt:10,20"));
+    }
+
+    private void assertTemporal(final String value, final long start, final long end) {
+
+        assertTrue(value, parser.parseTemporal(value));
+        assertEquals(value, start, parser.getStart());
+        assertEquals(value, end, parser.getEnd());
+    }
+
+    private void assertBox(final long x, final long y, final long width, final long height, final boolean percent) {
+
+        assertEquals(x, parser.getX());
+        assertEquals(y, parser.getY());
+        assertEquals(width, parser.getWidth());
+        assertEquals(height, parser.getHeight());
+        assertEquals(percent, parser.isPercent());
+    }
+
+}
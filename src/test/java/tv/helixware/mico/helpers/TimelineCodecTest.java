@@ -0,0 +1,67 @@
+package tv.helixware.mico.helpers;
+
+import lombok.val;
+import org.junit.Test;
+import tv.helixware.mico.model.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the {@link TimelineCodec}.
+ *
+ * @since 0.2.0
+ */
+public class TimelineCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+
+        final List<SequenceFragment> sequences = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            sequences.add(new SequenceFragment(i * 4000L + 40, i * 4000L + 4000, null));
+
+        val face = new FaceFragment(1200L, 2400L, 160L, 120L, 320L, 240L, null);
+        val entity = new EntityFragment("Roma", "http://dbpedia.org/resource/Rome", null, 0.75, null);
+        val topic = new TopicFragment("Città", "http://dbpedia.org/resource/City", 0.5, null);
+
+        val bytes = TimelineCodec.encode(sequences, Collections.singletonList(face), Collections.singletonList(entity),
+                Collections.singletonList(topic));
+
+        // About 4 bytes per shot, instead of hundreds in JSON.
+        assertTrue(bytes.length < 5000);
+
+        val fragments = TimelineCodec.decode(bytes);
+        assertEquals(1003, fragments.size());
+
+        val sequence = (SequenceFragment) fragments.stream().filter(f -> f instanceof SequenceFragment).reduce((a, b) -> b).get();
+        assertEquals(3996040L, (long) sequence.getStart());
+        assertEquals(4000000L, (long) sequence.getEnd());
+
+        val decodedFace = (FaceFragment) fragments.stream().filter(f -> f instanceof FaceFragment).findFirst().get();
+        assertEquals(1200L, (long) decodedFace.getStart());
+        assertEquals(2400L, (long) decodedFace.getEnd());
+        assertEquals(320L, (long) decodedFace.getWidth());
+
+        val decodedEntity = (EntityFragment) fragments.stream().filter(f -> f instanceof EntityFragment).findFirst().get();
+        assertEquals("Roma", decodedEntity.getLabel());
+        assertEquals("http://dbpedia.org/resource/Rome", decodedEntity.getReference());
+        assertNull(decodedEntity.getType());
+        assertEquals(0.75, decodedEntity.getConfidence(), 0.0001);
+        assertEquals(-1L, (long) decodedEntity.getStart());
+
+        val decodedTopic = (TopicFragment) fragments.stream().filter(f -> f instanceof TopicFragment).findFirst().get();
+        assertEquals("Città", decodedTopic.getLabel());
+        assertEquals(0.5, decodedTopic.getConfidence(), 0.0001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalid() {
+
+        TimelineCodec.decode(new byte[]{'H', 'X', 'T'});
+    }
+
+}
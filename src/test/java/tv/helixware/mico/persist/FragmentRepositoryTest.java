@@ -0,0 +1,123 @@
+package tv.helixware.mico.persist;
+
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.junit4.SpringRunner;
+import tv.helixware.mico.helpers.FragmentCursor;
+import tv.helixware.mico.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the queries of the {@link FragmentRepository} by asset GUID.
+ *
+ * @since 0.2.0
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class FragmentRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private FragmentRepository<Fragment> fragmentRepository;
+
+    private Asset asset;
+
+    private Part part;
+
+    @Before
+    public void setUp() {
+
+        asset = entityManager.persist(new Asset("http://example.org/asset.mp4", UUID.randomUUID().toString()));
+        val item = entityManager.persist(new Item(asset, "http://example.org/item", UUID.randomUUID().toString()));
+        part = entityManager.persist(new Part(item, "http://example.org/item/part", UUID.randomUUID().toString(), "video/mp4", "asset.mp4"));
+        entityManager.flush();
+    }
+
+    @Test
+    public void testFindByAssetGUID() {
+
+        fragmentRepository.save(fragments(100));
+
+        // The asset id is set on insert and the asset is found by the hash of its GUID.
+        val page = fragmentRepository.findByAssetGUID(asset.getGuid(), new PageRequest(0, 10));
+        assertEquals(100, page.getTotalElements());
+        assertEquals(asset.getId(), page.getContent().get(0).getAssetId());
+
+        assertEquals(0, fragmentRepository.findByAssetGUID(UUID.randomUUID().toString(), new PageRequest(0, 10)).getTotalElements());
+    }
+
+    @Test
+    public void testFindByAssetGUIDAfter() {
+
+        fragmentRepository.save(fragments(95));
+
+        // Walk all the pages following the cursor of the last fragment of each page.
+        final List<Fragment> fragments = new ArrayList<>();
+        String after = null;
+        Slice<Fragment> slice;
+        do {
+            slice = fragmentRepository.findByAssetGUIDAfter(asset.getGuid(), FragmentCursor.start(after), FragmentCursor.id(after), new PageRequest(0, 10));
+            fragments.addAll(slice.getContent());
+            after = slice.getContent().isEmpty() ? after : slice.getContent().get(slice.getNumberOfElements() - 1).getCursor();
+        } while (slice.hasNext());
+
+        assertEquals(95, fragments.size());
+        for (int i = 1; i < fragments.size(); i++) {
+            val previous = fragments.get(i - 1);
+            val current = fragments.get(i);
+            assertTrue(previous.getStart() < current.getStart()
+                    || (previous.getStart().equals(current.getStart()) && previous.getId() < current.getId()));
+        }
+
+        assertFalse(fragmentRepository.findByAssetGUIDAfter(UUID.randomUUID().toString(), Long.MIN_VALUE, Long.MIN_VALUE, new PageRequest(0, 10)).hasContent());
+    }
+
+    @Test
+    public void testFindByAssetGUIDOverlapping() {
+
+        fragmentRepository.save(fragments(10));
+
+        // The fragments from 1000 to 3000 and the ones ending at 1000.
+        val fragments = fragmentRepository.findByAssetGUIDOverlapping(asset.getGuid(), 1000L, 3000L);
+        assertEquals(8, fragments.size());
+        assertEquals(0L, fragments.get(0).getStart().longValue());
+        assertEquals(3000L, fragments.get(7).getStart().longValue());
+
+        assertTrue(fragmentRepository.findByAssetGUIDOverlapping(asset.getGuid(), 5001L, 6000L).isEmpty());
+    }
+
+    /**
+     * Create a mix of sequence and face fragments, two per start so that the pages are ordered by id as well.
+     *
+     * @param count The number of fragments.
+     * @return A list of {@link Fragment}s.
+     * @since 0.2.0
+     */
+    private List<Fragment> fragments(final int count) {
+
+        final List<Fragment> fragments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final long start = (i / 2) * 1000L;
+            fragments.add(0 == i % 2
+                    ? new SequenceFragment(start, start + 1000, part)
+                    : new FaceFragment(start, start + 1000, 160L, 120L, 320L, 240L, part));
+        }
+
+        return fragments;
+    }
+
+}
@@ -0,0 +1,115 @@
+package tv.helixware.mico.persist;
+
+import lombok.val;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import tv.helixware.mico.model.Asset;
+import tv.helixware.mico.model.IngestionJob;
+import tv.helixware.mico.model.IngestionJob.State;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the claims and the leases of the {@link IngestionJobRepository}.
+ *
+ * @since 0.2.0
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class IngestionJobRepositoryTest {
+
+    private final static Collection<State> TERMINAL = Arrays.asList(State.DONE, State.FAILED);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private IngestionJobRepository jobRepository;
+
+    private IngestionJob job;
+
+    @Before
+    public void setUp() {
+
+        job = entityManager.persistFlushFind(new IngestionJob(entityManager.persist(
+                new Asset("http://example.org/asset.mp4", UUID.randomUUID().toString()))));
+    }
+
+    @Test
+    public void testClaim() {
+
+        val now = DateTime.now();
+        val version = job.getVersion();
+
+        assertEquals(Collections.singletonList(job.getId()), ids(jobRepository.findDue(TERMINAL, now, new PageRequest(0, 10))));
+
+        // The first worker claims the job, the second one doesn't.
+        assertEquals(1, jobRepository.claim(job.getId(), "a", now, now.plusMinutes(1)));
+        assertEquals(0, jobRepository.claim(job.getId(), "b", now, now.plusMinutes(1)));
+
+        entityManager.clear();
+        val claimed = jobRepository.findOne(job.getId());
+        assertEquals("a", claimed.getOwner());
+        assertEquals(version + 1, (long) claimed.getVersion());
+
+        // A claimed job isn't due.
+        assertTrue(jobRepository.findDue(TERMINAL, now, new PageRequest(0, 10)).isEmpty());
+    }
+
+    @Test
+    public void testLeaseExpiry() {
+
+        val now = DateTime.now();
+        assertEquals(1, jobRepository.claim(job.getId(), "a", now, now.plusMinutes(1)));
+
+        // The owner renews its claim, another worker can't.
+        assertEquals(1, jobRepository.renew(Collections.singleton(job.getId()), "a", now.plusMinutes(2)));
+        assertEquals(0, jobRepository.renew(Collections.singleton(job.getId()), "b", now.plusMinutes(2)));
+
+        // Once the claim expired (the owner died) the job is due again and another worker claims it.
+        val later = now.plusMinutes(3);
+        assertEquals(1, jobRepository.findDue(TERMINAL, later, new PageRequest(0, 10)).size());
+        assertEquals(1, jobRepository.claim(job.getId(), "b", later, later.plusMinutes(1)));
+
+        // The previous owner can't renew it anymore.
+        assertEquals(0, jobRepository.renew(Collections.singleton(job.getId()), "a", later.plusMinutes(2)));
+
+        entityManager.clear();
+        assertEquals("b", jobRepository.findOne(job.getId()).getOwner());
+    }
+
+    @Test
+    public void testBackoffAndTerminalJobsAreNotDue() {
+
+        val now = DateTime.now();
+
+        job.setNextAttemptAt(now.plusMinutes(1));
+        job = jobRepository.save(job);
+        assertTrue(jobRepository.findDue(TERMINAL, now, new PageRequest(0, 10)).isEmpty());
+        assertEquals(1, jobRepository.findDue(TERMINAL, now.plusMinutes(2), new PageRequest(0, 10)).size());
+
+        job.setState(State.DONE);
+        jobRepository.save(job);
+        assertTrue(jobRepository.findDue(TERMINAL, now.plusMinutes(2), new PageRequest(0, 10)).isEmpty());
+    }
+
+    private static List<Long> ids(final Collection<IngestionJob> jobs) {
+
+        return jobs.stream().map(IngestionJob::getId).collect(Collectors.toList());
+    }
+
+}
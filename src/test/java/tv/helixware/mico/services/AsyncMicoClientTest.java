@@ -0,0 +1,151 @@
+package tv.helixware.mico.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tv.helixware.mico.model.Asset;
+import tv.helixware.mico.model.Item;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the {@link AsyncMicoClient} against a local stub of the MICO broker.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+public class AsyncMicoClientTest {
+
+    private final static String ITEM_URI = "http://localhost/marmotta/0b3d1c9e-8f5b-4d3a-9a52-7a1f5e2c8d10";
+
+    private HttpServer server;
+
+    private HttpTransport transport;
+
+    private AsyncMicoClient client;
+
+    /**
+     * The number of bytes received by the stub when adding a content part.
+     *
+     * @since 0.2.0
+     */
+    private final AtomicLong uploaded = new AtomicLong();
+
+    @Before
+    public void setUp() throws Exception {
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/broker/inject/create", exchange -> respond(exchange, 200, "{\"itemUri\":\"" + ITEM_URI + "\"}"));
+        server.createContext("/broker/inject/add", exchange -> {
+            uploaded.set(IOUtils.copyLarge(exchange.getRequestBody(), NullOutputStream.NULL_OUTPUT_STREAM));
+            respond(exchange, 200, "{\"itemUri\":\"" + ITEM_URI + "/part\"}");
+        });
+        server.createContext("/broker/inject/submit", exchange -> respond(exchange, 200, ""));
+        server.createContext("/broker/status/items", exchange -> respond(exchange, 200, "[{\"finished\":true,\"uri\":\"" + ITEM_URI + "\",\"parts\":[]}]"));
+        server.createContext("/error/", exchange -> respond(exchange, 500, "Internal Server Error"));
+        server.start();
+
+        transport = new HttpTransport(10, 10, 1000, 5000, 1000, 1000, 1000, 1);
+
+        client = client("broker/");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        server.stop(0);
+        transport.destroy();
+    }
+
+    @Test
+    public void testCreateAddSubmitCheckStatus() throws Exception {
+
+        // Create the item.
+        val item = client.create(asset()).get(5, TimeUnit.SECONDS);
+        assertTrue(item.isPresent());
+        assertEquals(ITEM_URI, item.get().getUri());
+
+        // Add the part.
+        val file = File.createTempFile("mico-", ".mp4");
+        try {
+            Files.write(file.toPath(), new byte[64 * 1024]);
+
+            val part = client.addContentPart(item.get(), "mico:Video", "video/mp4", "test.mp4", file).get(5, TimeUnit.SECONDS);
+            assertTrue(part.isPresent());
+            assertEquals(ITEM_URI + "/part", part.get().getUri());
+            assertEquals(file.length(), uploaded.get());
+        } finally {
+            file.delete();
+        }
+
+        // Submit.
+        assertTrue(client.submit(item.get()).get(5, TimeUnit.SECONDS));
+
+        // Check the status.
+        val status = client.checkStatus(item.get(), true).get(5, TimeUnit.SECONDS);
+        assertEquals(1, status.size());
+        assertTrue(status.get(0).isFinished());
+    }
+
+    @Test
+    public void testErrorsCompleteWithEmpty() throws Exception {
+
+        val errorClient = client("error/");
+        val item = new Item(asset(), ITEM_URI, "0b3d1c9e-8f5b-4d3a-9a52-7a1f5e2c8d10");
+
+        // A non-200 status code completes with an empty, not exceptionally.
+        assertFalse(errorClient.create(asset()).get(5, TimeUnit.SECONDS).isPresent());
+        assertFalse(errorClient.submit(item).get(5, TimeUnit.SECONDS));
+        assertTrue(errorClient.checkStatus(item, true).get(5, TimeUnit.SECONDS).isEmpty());
+
+        // A connection error completes with an empty as well.
+        server.stop(0);
+        assertFalse(client.create(asset()).get(5, TimeUnit.SECONDS).isPresent());
+    }
+
+    /**
+     * Create an {@link AsyncMicoClient} pointing to the stub server.
+     *
+     * @param path The broker path.
+     * @return An {@link AsyncMicoClient} instance.
+     * @since 0.2.0
+     */
+    private AsyncMicoClient client(final String path) {
+
+        val micoClient = new MicoClient("localhost:" + server.getAddress().getPort(), path, "username", "password", transport);
+        ReflectionTestUtils.setField(micoClient, "routeId", "6");
+
+        return new AsyncMicoClient(micoClient, transport);
+    }
+
+    private Asset asset() {
+
+        return new Asset("http://example.org/asset.mp4", UUID.randomUUID().toString());
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+
+        val bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, 0 == bytes.length ? -1 : bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+}
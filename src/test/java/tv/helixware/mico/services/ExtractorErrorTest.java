@@ -0,0 +1,53 @@
+package tv.helixware.mico.services;
+
+import lombok.val;
+import org.junit.Test;
+import tv.helixware.mico.model.Item;
+import tv.helixware.mico.model.Part;
+
+import java.util.Optional;
+
+/**
+ * Test that the extractors throw when the remote query fails, instead of returning no fragments: an empty list would
+ * replace (i.e. delete) the fragments already stored for the part.
+ *
+ * @since 0.2.0
+ */
+public class ExtractorErrorTest {
+
+    /**
+     * A {@link QueryService.Selector} failing after a row, as when the connection drops in the middle of a response.
+     */
+    private final static QueryService.Selector FAILING = (statement, vars, consumer) -> {
+        final String[] row = new String[vars.length];
+        for (int i = 0; i < row.length; i++)
+            row[i] = "";
+        consumer.accept(row);
+        return Optional.empty();
+    };
+
+    @Test(expected = IllegalStateException.class)
+    public void testSequences() {
+
+        new SequenceService(null).extract(part(), FAILING);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFaces() {
+
+        new FaceService(null).extract(part(), FAILING);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEntityMentions() {
+
+        new EntityMentionService(null, null, null).extract(part(), FAILING);
+    }
+
+    private static Part part() {
+
+        val item = new Item(null, "http://localhost/marmotta/item", "item");
+        return new Part(item, "http://localhost/marmotta/item/part", "part", "video/mp4", "test.mp4");
+    }
+
+}
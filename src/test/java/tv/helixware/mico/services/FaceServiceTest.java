@@ -0,0 +1,66 @@
+package tv.helixware.mico.services;
+
+import lombok.val;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import tv.helixware.mico.model.FaceFragment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test the join of the face boxes with their temporal fragments by the {@link FaceService}, against the recorded
+ * annotations of an item.
+ *
+ * @since 0.2.0
+ */
+public class FaceServiceTest {
+
+    private ItemSnapshot fixture;
+
+    @Before
+    public void setUp() throws Exception {
+
+        fixture = new ItemSnapshot(Fixtures.repository());
+    }
+
+    @After
+    public void tearDown() {
+
+        fixture.close();
+    }
+
+    @Test
+    public void testJoin() {
+
+        // Record the statements sent to the store.
+        final List<String> statements = new ArrayList<>();
+        final QueryService.Selector selector = (statement, vars, consumer) -> {
+            statements.add(statement);
+            return fixture.select(statement, vars, consumer);
+        };
+
+        val faces = new FaceService(null).extract(Fixtures.part(), selector);
+
+        // One box joined with its shot boundary frame and its key frame. The frame of another type, the box in percent
+        // and the box without frames are skipped.
+        assertEquals(Arrays.asList("0,4500 160,120,320,240", "5000,5040 160,120,320,240"), keys(faces));
+
+        // Two queries per part, whatever the number of faces.
+        assertEquals(2, statements.size());
+    }
+
+    private static List<String> keys(final List<FaceFragment> faces) {
+
+        return faces.stream()
+                .map(f -> String.format("%d,%d %d,%d,%d,%d", f.getStart(), f.getEnd(), f.getX(), f.getY(), f.getWidth(), f.getHeight()))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,59 @@
+package tv.helixware.mico.services;
+
+import lombok.val;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.sail.SailRepository;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.sail.memory.MemoryStore;
+import tv.helixware.mico.model.Item;
+import tv.helixware.mico.model.Part;
+
+/**
+ * The recorded annotations of an item (`fixtures/item.nt`), loaded in an in-memory store.
+ *
+ * @since 0.2.0
+ */
+final class Fixtures {
+
+    final static String ITEM_URI = "http://localhost/marmotta/item";
+
+    final static String PART_URI = "http://localhost/marmotta/item/part";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Load the fixture in a new in-memory {@link Repository}, which must be shut down.
+     *
+     * @return A {@link Repository} instance.
+     * @throws Exception
+     * @since 0.2.0
+     */
+    static Repository repository() throws Exception {
+
+        final Repository repository = new SailRepository(new MemoryStore());
+        repository.initialize();
+
+        val connection = repository.getConnection();
+        try {
+            connection.add(Fixtures.class.getResourceAsStream("/fixtures/item.nt"), ITEM_URI, RDFFormat.NTRIPLES);
+        } finally {
+            connection.close();
+        }
+
+        return repository;
+    }
+
+    /**
+     * The {@link Part} of the fixture (not persisted).
+     *
+     * @return A {@link Part} instance.
+     * @since 0.2.0
+     */
+    static Part part() {
+
+        val item = new Item(null, ITEM_URI, "item");
+        return new Part(item, PART_URI, "part", "video/mp4", "test.mp4");
+    }
+
+}
@@ -0,0 +1,110 @@
+package tv.helixware.mico.services;
+
+import org.junit.Before;
+import org.junit.Test;
+import tv.helixware.mico.model.*;
+import tv.helixware.mico.persist.FragmentRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test the loading, the invalidation and the warm reload of the {@link FragmentCache} with a mock
+ * {@link FragmentRepository}.
+ *
+ * @since 0.2.0
+ */
+public class FragmentCacheTest {
+
+    private final static String GUID = "0b3d1c9e-8f5b-4d3a-9a52-7a1f5e2c8d10";
+
+    private FragmentRepository<Fragment> fragmentRepository;
+
+    /**
+     * The sequences returned by the repository, changed by the tests to simulate a new extraction.
+     *
+     * @since 0.2.0
+     */
+    private List<Fragment> sequences;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+
+        sequences = Collections.singletonList(new SequenceFragment(0L, 1000L, null));
+
+        fragmentRepository = mock(FragmentRepository.class);
+        when(fragmentRepository.findAllByAssetGUIDAndType(anyString(), any())).thenReturn(Collections.emptyList());
+        when(fragmentRepository.findAllByAssetGUIDAndType(GUID, SequenceFragment.class)).then(invocation -> sequences);
+        when(fragmentRepository.findAllByAssetGUIDAndType(GUID, EntityFragment.class)).thenReturn(Collections.singletonList(
+                new EntityFragment("Rome", "http://dbpedia.org/resource/Rome", "http://dbpedia.org/ontology/Place", 0.9, null)));
+    }
+
+    @Test
+    public void testReadThrough() {
+
+        final FragmentCache cache = new FragmentCache(fragmentRepository, 1000, 60000, false);
+
+        assertEquals(1, cache.get(GUID, SequenceFragment.class).size());
+        assertEquals(1, cache.get(GUID, SequenceFragment.class).size());
+        verify(fragmentRepository, times(1)).findAllByAssetGUIDAndType(GUID, SequenceFragment.class);
+
+        // The entities and the topics aren't bound to a time range: they're found from the minimum start only.
+        assertEquals(1, cache.get(GUID, EntityFragment.class).overlapping(Long.MIN_VALUE, Long.MAX_VALUE).size());
+        assertTrue(cache.get(GUID, EntityFragment.class).overlapping(0, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testInvalidate() {
+
+        final FragmentCache cache = new FragmentCache(fragmentRepository, 1000, 60000, false);
+        cache.getAll(GUID);
+
+        // The part is extracted again: without warming nothing is loaded until the fragments are requested.
+        sequences = sequences(3);
+        cache.invalidate(GUID);
+        verify(fragmentRepository, times(1)).findAllByAssetGUIDAndType(GUID, SequenceFragment.class);
+
+        assertEquals(3, cache.get(GUID, SequenceFragment.class).size());
+        verify(fragmentRepository, times(2)).findAllByAssetGUIDAndType(GUID, SequenceFragment.class);
+        verify(fragmentRepository, times(1)).findAllByAssetGUIDAndType(GUID, FaceFragment.class);
+    }
+
+    @Test
+    public void testWarmReload() {
+
+        final FragmentCache cache = new FragmentCache(fragmentRepository, 1000, 60000, true);
+        cache.getAll(GUID);
+
+        // All the types are loaded again as soon as they're invalidated, the next request is a hit.
+        sequences = sequences(3);
+        cache.invalidate(GUID);
+        for (final Class<? extends Fragment> type : FragmentCache.TYPES)
+            verify(fragmentRepository, times(2)).findAllByAssetGUIDAndType(GUID, type);
+
+        assertEquals(3, cache.get(GUID, SequenceFragment.class).size());
+        verify(fragmentRepository, times(2)).findAllByAssetGUIDAndType(GUID, SequenceFragment.class);
+
+        // Other assets aren't affected.
+        cache.invalidate("other");
+        verify(fragmentRepository, times(1)).findAllByAssetGUIDAndType("other", SequenceFragment.class);
+        verify(fragmentRepository, times(2)).findAllByAssetGUIDAndType(GUID, SequenceFragment.class);
+    }
+
+    private static List<Fragment> sequences(final int count) {
+
+        final List<Fragment> fragments = new ArrayList<>(count);
+        for (long i = 0; i < count; i++)
+            fragments.add(new SequenceFragment(i * 1000, (i + 1) * 1000, null));
+
+        return fragments;
+    }
+
+}
@@ -0,0 +1,130 @@
+package tv.helixware.mico.services;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.IfProfileValue;
+import org.springframework.test.context.junit4.SpringRunner;
+import tv.helixware.mico.model.Asset;
+import tv.helixware.mico.model.Item;
+import tv.helixware.mico.model.Part;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Check that the memory used by the {@link FragmentExporter} doesn't grow with the number of fragments, by exporting
+ * 500k fragments on H2 and measuring the used heap (after a GC) every 50k fragments written.
+ * <p>
+ * Writing the fragments takes a while, therefore the test runs only when asked for with
+ * `mvn test -Dbenchmarks=true -Dtest=FragmentExporterMemoryTest`.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import({FragmentWriter.class, FragmentExporter.class})
+@IfProfileValue(name = "benchmarks", value = "true")
+public class FragmentExporterMemoryTest {
+
+    private final static int FRAGMENTS = 500_000;
+
+    /**
+     * The number of fragments written at a time, so that the fragments to write don't fill the heap.
+     *
+     * @since 0.2.0
+     */
+    private final static int CHUNK = 50_000;
+
+    /**
+     * The maximum growth in KB of the used heap between the first and the last block of fragments written: the
+     * fragments take about 0.4 KB each in the persistence context, i.e. about 170 MB if they were all kept.
+     *
+     * @since 0.2.0
+     */
+    private final static long MAX_GROWTH = 8 * 1024;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private FragmentWriter fragmentWriter;
+
+    @Autowired
+    private FragmentExporter fragmentExporter;
+
+    private Asset asset;
+
+    @Before
+    public void setUp() {
+
+        asset = entityManager.persist(new Asset("http://example.org/asset.mp4", UUID.randomUUID().toString()));
+        val item = entityManager.persist(new Item(asset, "http://example.org/item", UUID.randomUUID().toString()));
+        final Part part = entityManager.persist(new Part(item, "http://example.org/item/part", UUID.randomUUID().toString(), "video/mp4", "asset.mp4"));
+        entityManager.flush();
+
+        for (int i = 0; i < FRAGMENTS; i += CHUNK)
+            fragmentWriter.write(FragmentWriterTest.fragments(part, CHUNK));
+    }
+
+    @Test
+    public void testExport() throws Exception {
+
+        final HeapSampler output = new HeapSampler();
+
+        val start = System.currentTimeMillis();
+        assertEquals(FRAGMENTS, fragmentExporter.export(asset.getGuid(), FragmentExporter.Format.NDJSON, output));
+        val elapsed = System.currentTimeMillis() - start;
+
+        log.info(String.format("Fragments exported [ fragments :: %d ][ elapsed :: %d ms ][ bytes :: %d ][ heap before :: %d KB ][ heap growth :: %s KB ]",
+                FRAGMENTS, elapsed, output.bytes, output.baseline / 1024, output.growth));
+
+        // The fetched rows take a fixed amount of memory from the first block on, it doesn't grow afterwards.
+        val growth = output.growth.get(output.growth.size() - 1) - output.growth.get(0);
+        assertTrue(String.format("The used heap grew by %d KB", growth), growth < MAX_GROWTH);
+    }
+
+    /**
+     * Discards the export and samples the used heap (after a GC) each time a block of fragments has been flushed.
+     *
+     * @since 0.2.0
+     */
+    private static class HeapSampler extends OutputStream {
+
+        private final long baseline = used();
+
+        private long bytes;
+
+        private long lines;
+
+        private final List<Long> growth = new ArrayList<>();
+
+        @Override
+        public void write(final int b) {
+
+            bytes++;
+            if ('\n' == b && 0 == ++lines % CHUNK)
+                growth.add((used() - baseline) / 1024);
+        }
+
+        private static long used() {
+
+            System.gc();
+            return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+package tv.helixware.mico.services;
+
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+import tv.helixware.mico.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the {@link FragmentExporter} on H2.
+ *
+ * @since 0.2.0
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import({FragmentWriter.class, FragmentExporter.class})
+public class FragmentExporterTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private FragmentWriter fragmentWriter;
+
+    @Autowired
+    private FragmentExporter fragmentExporter;
+
+    private Asset asset;
+
+    @Before
+    public void setUp() {
+
+        asset = entityManager.persist(new Asset("http://example.org/asset.mp4", UUID.randomUUID().toString()));
+        val item = entityManager.persist(new Item(asset, "http://example.org/item", UUID.randomUUID().toString()));
+        val part = entityManager.persist(new Part(item, "http://example.org/item/part", UUID.randomUUID().toString(), "video/mp4", "asset.mp4"));
+        entityManager.flush();
+
+        final List<Fragment> fragments = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            fragments.add(new SequenceFragment(i * 1000L, i * 1000L + 1000, part));
+        fragments.add(new FaceFragment(0L, 1000L, 1L, 2L, 3L, 4L, part));
+        fragments.add(new EntityFragment("Rome, Italy", "http://example.org/Rome", "http://example.org/Place", 0.9, part));
+
+        fragmentWriter.write(fragments);
+    }
+
+    @Test
+    public void testNdjson() throws Exception {
+
+        val lines = export(FragmentExporter.Format.NDJSON);
+
+        assertEquals(1002, lines.length);
+        assertTrue(lines[0].startsWith("{\"type\":"));
+        assertTrue(lines[0].contains("\"label\":\"Rome, Italy\""));
+    }
+
+    @Test
+    public void testCsv() throws Exception {
+
+        val lines = export(FragmentExporter.Format.CSV);
+
+        // The header and one line per fragment, the label with a comma is quoted.
+        assertEquals(1003, lines.length);
+        assertEquals("type,id,part,start,end,x,y,width,height,label,reference,entityType,confidence", lines[0]);
+        assertTrue(lines[1].contains(",\"Rome, Italy\","));
+    }
+
+    private String[] export(final FragmentExporter.Format format) throws Exception {
+
+        val output = new ByteArrayOutputStream();
+        fragmentExporter.export(asset.getGuid(), format, output);
+
+        return new String(output.toByteArray(), StandardCharsets.UTF_8).split("\r?\n");
+    }
+
+}
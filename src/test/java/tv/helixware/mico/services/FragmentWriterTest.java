@@ -0,0 +1,103 @@
+package tv.helixware.mico.services;
+
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import tv.helixware.mico.model.*;
+import tv.helixware.mico.persist.FragmentRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the {@link FragmentWriter} on H2, the throughput is measured by the {@link FragmentWriterThroughputTest}.
+ *
+ * @since 0.2.0
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(FragmentWriter.class)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+public class FragmentWriterTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private FragmentWriter fragmentWriter;
+
+    @Autowired
+    private FragmentRepository<Fragment> fragmentRepository;
+
+    private Asset asset;
+
+    private Part part;
+
+    @Before
+    public void setUp() {
+
+        asset = entityManager.persist(new Asset("http://example.org/asset.mp4", UUID.randomUUID().toString()));
+        val item = entityManager.persist(new Item(asset, "http://example.org/item", UUID.randomUUID().toString()));
+        part = entityManager.persist(new Part(item, "http://example.org/item/part", UUID.randomUUID().toString(), "video/mp4", "asset.mp4"));
+        entityManager.flush();
+    }
+
+    @Test
+    public void testWrite() {
+
+        // Two full batches and a partial one.
+        val fragments = fragments(part, 120);
+        assertEquals(120, fragmentWriter.write(fragments));
+
+        // All the fragments have an id and the persistence context has been cleared.
+        assertEquals(120, fragments.stream().map(Fragment::getId).distinct().count());
+        for (final Fragment fragment : fragments)
+            assertFalse(entityManager.getEntityManager().contains(fragment));
+        assertFalse(entityManager.getEntityManager().contains(part));
+
+        assertEquals(120, fragmentRepository.count());
+        assertEquals(asset.getId(), fragmentRepository.findOne(fragments.get(0).getId()).getAssetId());
+    }
+
+    /**
+     * Create a mix of sequence, face and entity fragments.
+     *
+     * @param part  The {@link Part} of the fragments.
+     * @param count The number of fragments.
+     * @return A list of {@link Fragment}s.
+     * @since 0.2.0
+     */
+    static List<Fragment> fragments(final Part part, final int count) {
+
+        final List<Fragment> fragments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final long start = i * 1000L;
+            switch (i % 3) {
+                case 0:
+                    fragments.add(new SequenceFragment(start, start + 1000, part));
+                    break;
+                case 1:
+                    fragments.add(new FaceFragment(start, start + 1000, 160L, 120L, 320L, 240L, part));
+                    break;
+                default:
+                    fragments.add(new EntityFragment("Label", "http://example.org/entity", "http://example.org/Type", 0.9, part));
+            }
+        }
+
+        return fragments;
+    }
+
+}
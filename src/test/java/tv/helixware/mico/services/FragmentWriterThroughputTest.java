@@ -0,0 +1,121 @@
+package tv.helixware.mico.services;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.IfProfileValue;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import tv.helixware.mico.model.Asset;
+import tv.helixware.mico.model.Fragment;
+import tv.helixware.mico.model.Item;
+import tv.helixware.mico.model.Part;
+import tv.helixware.mico.persist.FragmentRepository;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measure the throughput of the {@link FragmentWriter} on H2, compared with saving the fragments with the repository.
+ * <p>
+ * The timings depend on the machine, therefore the test runs only when asked for with
+ * `mvn test -Dbenchmarks=true -Dtest=FragmentWriterThroughputTest`. The in-memory H2 has no round-trips, so that the
+ * timings don't show the cost of one identity round-trip per fragment on a remote database.
+ *
+ * @since 0.2.0
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(FragmentWriter.class)
+@IfProfileValue(name = "benchmarks", value = "true")
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+public class FragmentWriterThroughputTest {
+
+    /**
+     * The number of fragments written before each measurement, so that the timings don't depend on the order of the
+     * tests.
+     *
+     * @since 0.2.0
+     */
+    private final static int WARM_UP = 10_000;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private FragmentWriter fragmentWriter;
+
+    @Autowired
+    private FragmentRepository<Fragment> fragmentRepository;
+
+    private Part part;
+
+    @Before
+    public void setUp() {
+
+        val asset = entityManager.persist(new Asset("http://example.org/asset.mp4", UUID.randomUUID().toString()));
+        val item = entityManager.persist(new Item(asset, "http://example.org/item", UUID.randomUUID().toString()));
+        part = entityManager.persist(new Part(item, "http://example.org/item/part", UUID.randomUUID().toString(), "video/mp4", "asset.mp4"));
+        entityManager.flush();
+    }
+
+    @Test
+    public void testWrite10k() {
+
+        write(10_000);
+    }
+
+    @Test
+    public void testWrite100k() {
+
+        write(100_000);
+    }
+
+    @Test
+    public void testSave10k() {
+
+        fragmentRepository.save(FragmentWriterTest.fragments(part, WARM_UP));
+        entityManager.flush();
+        entityManager.clear();
+
+        val fragments = FragmentWriterTest.fragments(part, 10_000);
+
+        val start = System.currentTimeMillis();
+        fragmentRepository.save(fragments);
+        entityManager.flush();
+        val elapsed = Math.max(1, System.currentTimeMillis() - start);
+
+        log.info(String.format("Saved with the repository [ fragments :: %d ][ elapsed :: %d ms ][ fragments/s :: %d ]",
+                fragments.size(), elapsed, fragments.size() * 1000L / elapsed));
+
+        assertEquals(WARM_UP + fragments.size(), fragmentRepository.count());
+    }
+
+    private void write(final int count) {
+
+        fragmentWriter.write(FragmentWriterTest.fragments(part, WARM_UP));
+
+        val fragments = FragmentWriterTest.fragments(part, count);
+
+        val start = System.currentTimeMillis();
+        assertEquals(count, fragmentWriter.write(fragments));
+        val elapsed = Math.max(1, System.currentTimeMillis() - start);
+
+        log.info(String.format("Written with the writer [ fragments :: %d ][ elapsed :: %d ms ][ fragments/s :: %d ]",
+                count, elapsed, count * 1000L / elapsed));
+
+        assertEquals(WARM_UP + count, fragmentRepository.count());
+    }
+
+}
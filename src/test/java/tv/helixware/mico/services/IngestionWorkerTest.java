@@ -0,0 +1,332 @@
+package tv.helixware.mico.services;
+
+import lombok.val;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tv.helixware.mico.model.*;
+import tv.helixware.mico.model.IngestionJob.State;
+import tv.helixware.mico.persist.AssetRepository;
+import tv.helixware.mico.persist.IngestionJobRepository;
+import tv.helixware.mico.persist.ItemRepository;
+import tv.helixware.mico.persist.PartRepository;
+import tv.helixware.mico.response.CheckStatusResponse;
+
+import java.net.URL;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test that the {@link IngestionWorker} claims the due jobs and resumes them from their last completed stage. The
+ * remote calls are mocked, the jobs are stored on H2.
+ * <p>
+ * The test isn't transactional, since the jobs are saved by the stage threads.
+ *
+ * @since 0.2.0
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class IngestionWorkerTest {
+
+    @Autowired
+    private IngestionJobRepository jobRepository;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    private ItemService itemService;
+    private PartService partService;
+    private StatusPoller statusPoller;
+
+    private PipelineStage uploadStage;
+    private PipelineStage submitStage;
+    private PipelineStage extractionStage;
+
+    private IngestionWorker worker;
+
+    @Before
+    public void setUp() {
+
+        itemService = mock(ItemService.class);
+        partService = mock(PartService.class);
+        statusPoller = mock(StatusPoller.class);
+
+        val response = new CheckStatusResponse();
+        response.setFinished(true);
+        when(statusPoller.await(any(Item.class))).thenReturn(CompletableFuture.completedFuture(response));
+
+        uploadStage = new PipelineStage("upload", 1, 10);
+        submitStage = new PipelineStage("submit", 1, 10);
+        extractionStage = new PipelineStage("extraction", 1, 10);
+
+        // Two attempts per stage, the retry is 1 minute later.
+        worker = new IngestionWorker(jobRepository, assetRepository, new AssetService(jobRepository), itemService,
+                partService, statusPoller, uploadStage, submitStage, extractionStage, 10, 10, 10, 60000, 2, 60000, 60000, 60000);
+    }
+
+    @After
+    public void tearDown() {
+
+        worker.destroy();
+        uploadStage.destroy();
+        submitStage.destroy();
+        extractionStage.destroy();
+
+        jobRepository.deleteAll();
+        partRepository.deleteAll();
+        itemRepository.deleteAll();
+        assetRepository.deleteAll();
+    }
+
+    @Test
+    public void testResumeFromLastCompletedStage() throws Exception {
+
+        when(itemService.submit(any(Item.class))).thenReturn(true);
+
+        // The part had been uploaded by a worker which died: its claim expired.
+        val job = job(State.UPLOADED, "dead", DateTime.now().minusSeconds(1));
+
+        worker.poll();
+        val done = await(job.getId(), j -> State.DONE == j.getState());
+
+        // The item isn't created nor uploaded again.
+        verify(itemService, never()).create(any(Asset.class));
+        verify(partService, never()).create(any(Item.class), anyString(), anyString(), anyString(), any(URL.class));
+        verify(itemService, times(1)).submit(any(Item.class));
+        verify(partService, times(1)).extract(any(Part.class));
+
+        assertNull(done.getOwner());
+        assertEquals(0, done.getAttempts());
+    }
+
+    @Test
+    public void testClaimedJobIsNotRun() throws Exception {
+
+        // Another worker holds a valid claim.
+        val job = job(State.UPLOADED, "other", DateTime.now().plusMinutes(1));
+
+        worker.poll();
+        Thread.sleep(200);
+
+        verifyZeroInteractions(itemService, partService, statusPoller);
+        val current = jobRepository.findOne(job.getId());
+        assertEquals(State.UPLOADED, current.getState());
+        assertEquals("other", current.getOwner());
+    }
+
+    @Test
+    public void testFailedAttemptIsRetriedAfterBackoff() throws Exception {
+
+        when(partService.create(any(Item.class), anyString(), anyString(), anyString(), any(URL.class))).thenReturn(Optional.empty());
+
+        val job = job(State.DOWNLOADING, null, null);
+
+        // The first attempt fails: the job is released and scheduled for a later attempt.
+        worker.poll();
+        val failed = await(job.getId(), j -> 1 == j.getAttempts());
+        assertEquals(State.DOWNLOADING, failed.getState());
+        assertNull(failed.getOwner());
+        assertTrue(failed.getNextAttemptAt().isAfterNow());
+
+        // It's not attempted again before the backoff elapsed.
+        worker.poll();
+        Thread.sleep(200);
+        verify(partService, times(1)).create(any(Item.class), anyString(), anyString(), anyString(), any(URL.class));
+
+        // The second (and last) attempt fails the job.
+        failed.setNextAttemptAt(null);
+        jobRepository.save(failed);
+        worker.poll();
+        assertNotNull(await(job.getId(), j -> State.FAILED == j.getState()).getLastError());
+    }
+
+    @Test
+    public void testJobIsReleasedWhenTheNextStageIsFull() throws Exception {
+
+        when(itemService.submit(any(Item.class))).thenReturn(true);
+
+        val job = job(State.DOWNLOADING, null, null);
+        val part = partRepository.save(new Part(job.getItem(), "http://example.org/item/part", UUID.randomUUID().toString(), "video/mp4", "asset.mp4"));
+        when(partService.create(any(Item.class), anyString(), anyString(), anyString(), any(URL.class))).thenReturn(Optional.of(part));
+
+        // Fill the submit stage: one running task and 10 queued ones.
+        final CountDownLatch latch = new CountDownLatch(1);
+        for (int i = 0; i < 11; i++)
+            submitStage.execute(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+        // The part is uploaded, the submission is rejected: the job is released, without counting a failed attempt.
+        worker.poll();
+        val released = await(job.getId(), j -> State.UPLOADED == j.getState());
+        assertEquals(0, released.getAttempts());
+        for (int i = 0; i < 100 && 0L != metric(worker.metrics(), "pipeline.running"); i++)
+            Thread.sleep(10);
+        assertEquals(0L, metric(worker.metrics(), "pipeline.running"));
+        assertEquals(1L, metric(submitStage.metrics(), "pipeline.submit.rejected"));
+
+        // Once the stage has room the job is claimed again and resumed from the submission.
+        latch.countDown();
+        while (!submitStage.hasCapacity())
+            Thread.sleep(10);
+
+        worker.poll();
+        await(job.getId(), j -> State.DONE == j.getState());
+        verify(partService, times(1)).create(any(Item.class), anyString(), anyString(), anyString(), any(URL.class));
+    }
+
+    @Test
+    public void testJobIsReleasedWhenTheExtractionStageIsFull() throws Exception {
+
+        final CompletableFuture<CheckStatusResponse> status = new CompletableFuture<>();
+        when(statusPoller.await(any(Item.class))).thenReturn(status);
+
+        val job = job(State.POLLING, null, null);
+
+        // Fill the extraction stage: one running task and 10 queued ones.
+        final CountDownLatch latch = new CountDownLatch(1);
+        for (int i = 0; i < 11; i++)
+            extractionStage.execute(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+        // MICO finishes while the stage is full: the poller thread only hands over the outcome, the job is released
+        // by the worker without counting a failed attempt.
+        worker.poll();
+        val response = new CheckStatusResponse();
+        response.setFinished(true);
+        val poller = new Thread(() -> status.complete(response), "poller");
+        poller.start();
+        poller.join(1000);
+
+        val released = await(job.getId(), j -> 0L == metric(worker.metrics(), "pipeline.running"));
+        assertEquals(State.POLLING, released.getState());
+        assertEquals(0, released.getAttempts());
+        verify(partService, never()).extract(any(Part.class));
+
+        latch.countDown();
+    }
+
+    @Test
+    public void testLostJobIsQueued() {
+
+        // The job of the asset has been lost, a recent asset may still get its job from the event handler and an asset
+        // ingested before the jobs were introduced has an item.
+        val lost = assetRepository.save(asset(DateTime.now().minusMinutes(2)));
+        assetRepository.save(asset(DateTime.now()));
+        val ingested = assetRepository.save(asset(DateTime.now().minusMinutes(2)));
+        itemRepository.save(new Item(ingested, "http://example.org/item", UUID.randomUUID().toString()));
+
+        worker.reconcile();
+
+        assertEquals(1L, jobRepository.count());
+        val job = jobRepository.findAll().iterator().next();
+        assertEquals(lost.getId(), job.getAsset().getId());
+        assertEquals(State.DOWNLOADING, job.getState());
+
+        // The event handler eventually runs: the job isn't queued twice.
+        new AssetService(jobRepository).upload(lost);
+        worker.reconcile();
+        assertEquals(1L, jobRepository.count());
+    }
+
+    private static Asset asset(final DateTime createdDate) {
+
+        val asset = new Asset("http://example.org/asset.mp4", UUID.randomUUID().toString());
+        asset.setCreatedDate(createdDate);
+
+        return asset;
+    }
+
+    private static long metric(final Collection<Metric<?>> metrics, final String name) {
+
+        for (final Metric<?> metric : metrics)
+            if (name.equals(metric.getName()))
+                return metric.getValue().longValue();
+
+        fail("Metric not found: " + name);
+        return -1;
+    }
+
+    /**
+     * Create a job for a new asset, with its item and part.
+     *
+     * @param state       The job {@link State}.
+     * @param owner       The worker owning the claim, or null.
+     * @param lockedUntil When the claim expires, or null.
+     * @return The saved {@link IngestionJob}.
+     * @since 0.2.0
+     */
+    private IngestionJob job(final State state, final String owner, final DateTime lockedUntil) {
+
+        val asset = assetRepository.save(new Asset("http://example.org/asset.mp4", UUID.randomUUID().toString()));
+        val item = itemRepository.save(new Item(asset, "http://example.org/item", UUID.randomUUID().toString()));
+        val part = partRepository.save(new Part(item, "http://example.org/item/part", UUID.randomUUID().toString(), "video/mp4", "asset.mp4"));
+
+        val job = new IngestionJob(asset);
+        job.setState(state);
+        job.setItem(item);
+        if (State.DOWNLOADING != state)
+            job.setPart(part);
+        job.setOwner(owner);
+        job.setLockedUntil(lockedUntil);
+
+        return jobRepository.save(job);
+    }
+
+    /**
+     * Wait for the job to match the condition.
+     *
+     * @param id        The job id.
+     * @param condition The condition.
+     * @return The job.
+     * @throws InterruptedException
+     * @since 0.2.0
+     */
+    private IngestionJob await(final Long id, final Predicate<IngestionJob> condition) throws InterruptedException {
+
+        for (int i = 0; i < 100; i++) {
+            val job = jobRepository.findOne(id);
+            // Wait for the claim to be released as well.
+            if (condition.test(job) && null == job.getOwner())
+                return job;
+            Thread.sleep(50);
+        }
+
+        fail("The job didn't reach the expected state in time");
+        return null;
+    }
+
+}
@@ -0,0 +1,147 @@
+package tv.helixware.mico.services;
+
+import com.sun.net.httpserver.HttpServer;
+import lombok.val;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.OpenRDFException;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.resultio.sparqljson.SPARQLResultsJSONWriter;
+import org.openrdf.repository.Repository;
+import org.springframework.test.util.ReflectionTestUtils;
+import tv.helixware.mico.model.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test that the extractors get the same fragments from an {@link ItemSnapshot} and from the remote SPARQL endpoint. The
+ * endpoint is a local stub answering the queries over the recorded annotations of an item.
+ *
+ * @since 0.2.0
+ */
+public class ItemSnapshotTest {
+
+    private Repository repository;
+
+    private HttpServer server;
+
+    private HttpTransport transport;
+
+    private QueryService queryService;
+
+    private ItemSnapshot snapshot;
+
+    @Before
+    public void setUp() throws Exception {
+
+        repository = Fixtures.repository();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/sparql/select", exchange -> {
+            val statement = IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/sparql-results+json");
+            exchange.sendResponseHeaders(200, 0);
+            try (val out = exchange.getResponseBody()) {
+                evaluate(statement, out);
+            }
+        });
+        server.start();
+
+        transport = new HttpTransport(10, 10, 1000, 5000, 1000, 1000, 1000, 1);
+
+        queryService = new QueryService(transport, null);
+        ReflectionTestUtils.setField(queryService, "url", "http://localhost:" + server.getAddress().getPort() + "/sparql/select");
+        ReflectionTestUtils.setField(queryService, "format", "json");
+
+        snapshot = new SnapshotService(repository).create(Fixtures.part()).get();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        snapshot.close();
+        server.stop(0);
+        transport.destroy();
+        repository.shutDown();
+    }
+
+    @Test
+    public void testSequences() {
+
+        val sequenceService = new SequenceService(queryService);
+
+        val remote = keys(sequenceService.extract(Fixtures.part()));
+
+        assertEquals(2, remote.size());
+        assertEquals(remote, keys(sequenceService.extract(Fixtures.part(), snapshot)));
+    }
+
+    @Test
+    public void testFaces() {
+
+        val faceService = new FaceService(queryService);
+
+        val remote = keys(faceService.extract(Fixtures.part()));
+
+        assertEquals(2, remote.size());
+        assertEquals(remote, keys(faceService.extract(Fixtures.part(), snapshot)));
+    }
+
+    @Test
+    public void testEntityMentions() {
+
+        val entityMentionService = new EntityMentionService(queryService, null, null);
+
+        val remote = keys(entityMentionService.extract(Fixtures.part()));
+
+        assertEquals(2, remote.size());
+        assertEquals(remote, keys(entityMentionService.extract(Fixtures.part(), snapshot)));
+    }
+
+    /**
+     * Answer a SELECT query over the fixture, as the remote SPARQL endpoint does.
+     */
+    private void evaluate(final String statement, final OutputStream out) throws IOException {
+
+        try {
+            val connection = repository.getConnection();
+            try {
+                connection.prepareTupleQuery(QueryLanguage.SPARQL, statement).evaluate(new SPARQLResultsJSONWriter(out));
+            } finally {
+                connection.close();
+            }
+        } catch (OpenRDFException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * The comparable fields of the fragments, sorted since the rows have no order.
+     */
+    private static List<String> keys(final List<? extends Fragment> fragments) {
+
+        return fragments.stream().map(f -> {
+            if (f instanceof FaceFragment) {
+                val face = (FaceFragment) f;
+                return String.format("face %d,%d %d,%d,%d,%d", f.getStart(), f.getEnd(), face.getX(), face.getY(), face.getWidth(), face.getHeight());
+            } else if (f instanceof EntityFragment) {
+                val entity = (EntityFragment) f;
+                return String.format("entity %s %s %s %s", entity.getLabel(), entity.getReference(), entity.getType(), entity.getConfidence());
+            } else if (f instanceof TopicFragment) {
+                val topic = (TopicFragment) f;
+                return String.format("topic %s %s %s", topic.getLabel(), topic.getReference(), topic.getConfidence());
+            }
+            return String.format("sequence %d,%d", f.getStart(), f.getEnd());
+        }).sorted().collect(Collectors.toList());
+    }
+
+}
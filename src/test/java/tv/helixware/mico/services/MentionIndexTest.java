@@ -0,0 +1,123 @@
+package tv.helixware.mico.services;
+
+import lombok.val;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import tv.helixware.mico.model.*;
+import tv.helixware.mico.persist.MentionRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the {@link MentionIndex} and the ranked lookups of the {@link MentionRepository} on H2.
+ *
+ * @since 0.2.0
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(MentionIndex.class)
+public class MentionIndexTest {
+
+    private final static String ROME = "http://dbpedia.org/resource/Rome";
+
+    private final static String TRAVEL = "http://example.org/topic/travel";
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MentionIndex mentionIndex;
+
+    @Autowired
+    private MentionRepository mentionRepository;
+
+    private Part first;
+
+    private Part second;
+
+    @Before
+    public void setUp() {
+
+        first = part();
+        second = part();
+    }
+
+    @Test
+    public void testRanking() {
+
+        // One mention per reference with the highest confidence, whether or not the reference is enclosed in brackets.
+        assertEquals(2, mentionIndex.replace(first, Arrays.asList(
+                entity(ROME, 0.4, first), entity("<" + ROME + ">", 0.8, first), topic(TRAVEL, 0.5, first),
+                new SequenceFragment(0L, 1000L, first))));
+        assertEquals(1, mentionIndex.replace(second, Collections.singletonList(entity(ROME, 0.9, second))));
+
+        // The most confident part first, the reference may be enclosed in brackets.
+        for (final String reference : Arrays.asList(ROME, "<" + ROME + ">")) {
+            val mentions = mentionRepository.findByReference(reference, new PageRequest(0, 10));
+            assertEquals(2, mentions.size());
+            assertEquals(second.getId(), mentions.get(0).getPart().getId());
+            assertEquals(0.9, mentions.get(0).getConfidence(), 0);
+            assertEquals(first.getId(), mentions.get(1).getPart().getId());
+            assertEquals(0.8, mentions.get(1).getConfidence(), 0);
+            assertEquals(2, mentions.get(1).getMentions());
+            assertEquals(ROME, mentions.get(1).getReference());
+        }
+
+        // Only the first K are read.
+        assertEquals(1, mentionRepository.findByReference(ROME, new PageRequest(0, 1)).size());
+    }
+
+    @Test
+    public void testReplace() {
+
+        mentionIndex.replace(first, Collections.singletonList(entity(ROME, 0.8, first)));
+        mentionIndex.replace(second, Collections.singletonList(entity(ROME, 0.9, second)));
+
+        // The part is extracted again: its mentions are replaced, the ones of the other part are kept.
+        mentionIndex.replace(first, Collections.singletonList(topic(TRAVEL, 0.5, first)));
+
+        val rome = mentionRepository.findByReference(ROME, new PageRequest(0, 10));
+        assertEquals(1, rome.size());
+        assertEquals(second.getId(), rome.get(0).getPart().getId());
+
+        val travel = mentionRepository.findByReference(TRAVEL, new PageRequest(0, 10));
+        assertEquals(1, travel.size());
+        assertEquals("topic", travel.get(0).getKind());
+        assertEquals(first.getId(), travel.get(0).getPart().getId());
+
+        // No fragments, no mentions.
+        assertEquals(0, mentionIndex.replace(first, Collections.emptyList()));
+        assertTrue(mentionRepository.findByReference(TRAVEL, new PageRequest(0, 10)).isEmpty());
+        assertEquals(1, mentionRepository.count());
+    }
+
+    private Part part() {
+
+        val asset = entityManager.persist(new Asset("http://example.org/asset.mp4", UUID.randomUUID().toString()));
+        val item = entityManager.persist(new Item(asset, "http://example.org/item", UUID.randomUUID().toString()));
+        return entityManager.persistFlushFind(new Part(item, "http://example.org/item/part", UUID.randomUUID().toString(), "video/mp4", "asset.mp4"));
+    }
+
+    private static EntityFragment entity(final String reference, final double confidence, final Part part) {
+
+        return new EntityFragment("Rome", reference, "http://dbpedia.org/ontology/Place", confidence, part);
+    }
+
+    private static TopicFragment topic(final String reference, final double confidence, final Part part) {
+
+        return new TopicFragment("Travel", reference, confidence, part);
+    }
+
+}
@@ -0,0 +1,200 @@
+package tv.helixware.mico.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.val;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tv.helixware.mico.model.Asset;
+import tv.helixware.mico.model.Item;
+import tv.helixware.mico.model.Part;
+import tv.helixware.mico.persist.PartRepository;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test the upload of the HelixWare files to MICO against a local stub of both HelixWare and the MICO broker.
+ *
+ * @since 0.2.0
+ */
+public class PartServiceUploadTest {
+
+    private final static String ITEM_URI = "http://localhost/marmotta/0b3d1c9e-8f5b-4d3a-9a52-7a1f5e2c8d10";
+
+    private final static byte[] FILE = new byte[256 * 1024];
+
+    private HttpServer server;
+
+    private HttpTransport transport;
+
+    /**
+     * The number of downloads of the file.
+     *
+     * @since 0.2.0
+     */
+    private final AtomicInteger downloads = new AtomicInteger();
+
+    /**
+     * The number of bytes received by the stub broker with the last upload.
+     *
+     * @since 0.2.0
+     */
+    private final AtomicLong uploaded = new AtomicLong(-1);
+
+    @Before
+    public void setUp() throws Exception {
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+
+        // The file with a known size, with an unknown size (chunked) and a missing file.
+        server.createContext("/files/sized.mp4", exchange -> download(exchange, FILE.length));
+        server.createContext("/files/chunked.mp4", exchange -> download(exchange, 0));
+        server.createContext("/files/missing.mp4", exchange -> {
+            downloads.incrementAndGet();
+            respond(exchange, 404, "Not Found");
+        });
+
+        server.createContext("/broker/inject/add", exchange -> {
+            uploaded.set(IOUtils.copyLarge(exchange.getRequestBody(), NullOutputStream.NULL_OUTPUT_STREAM));
+            respond(exchange, 200, "{\"itemUri\":\"" + ITEM_URI + "/part\"}");
+        });
+        server.createContext("/error/inject/add", exchange -> {
+            uploaded.set(IOUtils.copyLarge(exchange.getRequestBody(), NullOutputStream.NULL_OUTPUT_STREAM));
+            respond(exchange, 500, "Internal Server Error");
+        });
+        server.start();
+
+        transport = new HttpTransport(10, 10, 1000, 5000, 1000, 1000, 1000, 1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        server.stop(0);
+        transport.destroy();
+    }
+
+    @Test
+    public void testStreamWhenSizeIsKnown() throws Exception {
+
+        val part = partService("broker/", true).create(item(), "mico:Video", "video/mp4", "test.mp4", url("sized.mp4"));
+
+        assertTrue(part.isPresent());
+        assertEquals(ITEM_URI + "/part", part.get().getUri());
+        assertEquals(1, downloads.get());
+        assertEquals(FILE.length, uploaded.get());
+    }
+
+    @Test
+    public void testSpillWhenSizeIsUnknown() throws Exception {
+
+        val part = partService("broker/", true).create(item(), "mico:Video", "video/mp4", "test.mp4", url("chunked.mp4"));
+
+        // The chunked download is copied to disk, without downloading it again.
+        assertTrue(part.isPresent());
+        assertEquals(1, downloads.get());
+        assertEquals(FILE.length, uploaded.get());
+    }
+
+    @Test
+    public void testSpillWhenStreamingIsDisabled() throws Exception {
+
+        val part = partService("broker/", false).create(item(), "mico:Video", "video/mp4", "test.mp4", url("sized.mp4"));
+
+        assertTrue(part.isPresent());
+        assertEquals(1, downloads.get());
+        assertEquals(FILE.length, uploaded.get());
+    }
+
+    @Test
+    public void testFailedUploadIsNotDownloadedAgain() throws Exception {
+
+        val part = partService("error/", true).create(item(), "mico:Video", "video/mp4", "test.mp4", url("sized.mp4"));
+
+        // The broker failed: no spill and no second download.
+        assertFalse(part.isPresent());
+        assertEquals(1, downloads.get());
+    }
+
+    @Test
+    public void testFailedDownloadIsNotUploaded() throws Exception {
+
+        val part = partService("broker/", true).create(item(), "mico:Video", "video/mp4", "test.mp4", url("missing.mp4"));
+
+        assertFalse(part.isPresent());
+        assertEquals(1, downloads.get());
+        assertEquals(-1, uploaded.get());
+    }
+
+    /**
+     * Create a {@link PartService} uploading to the stub broker, with a mock {@link PartRepository}.
+     *
+     * @param path      The broker path.
+     * @param streaming Whether to stream the uploads.
+     * @return A {@link PartService} instance.
+     * @since 0.2.0
+     */
+    private PartService partService(final String path, final boolean streaming) {
+
+        val micoClient = new MicoClient("localhost:" + server.getAddress().getPort(), path, "username", "password", transport);
+        ReflectionTestUtils.setField(micoClient, "routeId", "6");
+
+        final PartRepository partRepository = mock(PartRepository.class);
+        when(partRepository.save(any(Part.class))).then(invocation -> invocation.getArguments()[0]);
+
+        val partService = new PartService(micoClient, null, transport, partRepository, null, null, null, null, null,
+                null, null, null, null, null, null);
+        ReflectionTestUtils.setField(partService, "applicationKey", "key");
+        ReflectionTestUtils.setField(partService, "applicationSecret", "secret");
+        ReflectionTestUtils.setField(partService, "uploadStreaming", streaming);
+        ReflectionTestUtils.setField(partService, "uploadBufferSize", 8192);
+
+        return partService;
+    }
+
+    private URL url(final String name) throws IOException {
+
+        return new URL("http://localhost:" + server.getAddress().getPort() + "/files/" + name);
+    }
+
+    private Item item() {
+
+        return new Item(new Asset("http://example.org/asset.mp4", UUID.randomUUID().toString()), ITEM_URI, "0b3d1c9e-8f5b-4d3a-9a52-7a1f5e2c8d10");
+    }
+
+    /**
+     * Send the file, with the Content-Length header when the length is positive, chunked otherwise.
+     */
+    private void download(final HttpExchange exchange, final long length) throws IOException {
+
+        downloads.incrementAndGet();
+        exchange.sendResponseHeaders(200, length);
+        exchange.getResponseBody().write(FILE);
+        exchange.close();
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+
+        val bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+}
@@ -0,0 +1,114 @@
+package tv.helixware.mico.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the capacity, the rejections and the metrics of a {@link PipelineStage}.
+ *
+ * @since 0.2.0
+ */
+public class PipelineStageTest {
+
+    private PipelineStage stage;
+
+    @Before
+    public void setUp() {
+
+        // One thread and room for one queued task.
+        stage = new PipelineStage("test", 1, 1);
+    }
+
+    @After
+    public void tearDown() {
+
+        stage.destroy();
+    }
+
+    @Test
+    public void testRejectedWhenFull() throws Exception {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+
+        // The first task keeps the thread busy, the second one is queued.
+        assertTrue(stage.hasCapacity());
+        stage.execute(() -> {
+            started.countDown();
+            await(release);
+            done.countDown();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        stage.execute(done::countDown);
+
+        assertFalse(stage.hasCapacity());
+        assertEquals(1L, metric("pipeline.test.active"));
+        assertEquals(1L, metric("pipeline.test.queue"));
+
+        try {
+            stage.execute(() -> fail("A task submitted to a full stage must not run"));
+            fail("A full stage must reject the task");
+        } catch (RejectedExecutionException e) {
+            assertEquals(1L, metric("pipeline.test.rejected"));
+        }
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        // The counters are updated after the task returned.
+        for (int i = 0; i < 100 && 2L != metric("pipeline.test.completed"); i++)
+            Thread.sleep(10);
+
+        assertEquals(2L, metric("pipeline.test.completed"));
+        assertEquals(0L, metric("pipeline.test.failed"));
+        assertTrue(stage.hasCapacity());
+    }
+
+    @Test
+    public void testFailedTaskIsCounted() throws Exception {
+
+        final CountDownLatch done = new CountDownLatch(1);
+
+        stage.execute(() -> {
+            throw new IllegalStateException("Test failure");
+        });
+        stage.execute(done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 100 && 1L != metric("pipeline.test.completed"); i++)
+            Thread.sleep(10);
+
+        // The failure doesn't kill the thread, the next task runs.
+        assertEquals(1L, metric("pipeline.test.failed"));
+        assertEquals(1L, metric("pipeline.test.completed"));
+    }
+
+    private long metric(final String name) {
+
+        for (final Metric<?> metric : stage.metrics())
+            if (name.equals(metric.getName()))
+                return metric.getValue().longValue();
+
+        fail("Metric not found: " + name);
+        return -1;
+    }
+
+    private static void await(final CountDownLatch latch) {
+
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
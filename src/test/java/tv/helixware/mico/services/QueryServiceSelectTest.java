@@ -0,0 +1,183 @@
+package tv.helixware.mico.services;
+
+import com.sun.net.httpserver.HttpServer;
+import lombok.val;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the streaming {@link QueryService#select} decoders against a local stub of the SPARQL endpoint, which responds
+ * with the same results in the TSV and in the JSON formats.
+ *
+ * @since 0.2.0
+ */
+public class QueryServiceSelectTest {
+
+    private final static String TSV = "?label\t?entityReference\t?type\t?confidence\n"
+            + "\"Rome\"@en\t<http://dbpedia.org/resource/Rome>\t<http://dbpedia.org/ontology/Place>\t0.9\n"
+            + "\"Travel\"@en\t<http://dbpedia.org/resource/Travel>\t\t0.5\n";
+
+    private final static String JSON = "{\"head\":{\"vars\":[\"label\",\"entityReference\",\"type\",\"confidence\"]},"
+            + "\"results\":{\"bindings\":["
+            + "{\"label\":{\"type\":\"literal\",\"value\":\"Rome\",\"xml:lang\":\"en\"},"
+            + "\"entityReference\":{\"type\":\"uri\",\"value\":\"http://dbpedia.org/resource/Rome\"},"
+            + "\"type\":{\"type\":\"uri\",\"value\":\"http://dbpedia.org/ontology/Place\"},"
+            + "\"confidence\":{\"type\":\"literal\",\"datatype\":\"http://www.w3.org/2001/XMLSchema#double\",\"value\":\"0.9\"}},"
+            + "{\"confidence\":{\"type\":\"typed-literal\",\"datatype\":\"http://www.w3.org/2001/XMLSchema#double\",\"value\":\"0.5\"},"
+            + "\"label\":{\"type\":\"literal\",\"value\":\"Travel\",\"xml:lang\":\"en\"},"
+            + "\"entityReference\":{\"type\":\"uri\",\"value\":\"http://dbpedia.org/resource/Travel\"}}"
+            + "]}}";
+
+    private final static String[] VARS = {"label", "entityReference", "type", "confidence"};
+
+    private final static int ROWS = 25;
+
+    private final static Pattern PAGE_PATTERN = Pattern.compile("LIMIT (\\d+) OFFSET (\\d+)$");
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+
+    private HttpTransport transport;
+
+    @Before
+    public void setUp() throws Exception {
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/sparql/paged", exchange -> {
+            // Respond with the rows of the requested page, failing the first request of the second page.
+            requests.incrementAndGet();
+            final String statement = IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8);
+            final Matcher matcher = PAGE_PATTERN.matcher(statement);
+            assertTrue(matcher.find());
+
+            final int limit = Integer.parseInt(matcher.group(1));
+            final int offset = Integer.parseInt(matcher.group(2));
+
+            if (limit == offset && 0 == failures.getAndIncrement()) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+
+            final StringBuilder builder = new StringBuilder("?n\n");
+            for (int i = offset; i < Math.min(ROWS, offset + limit); i++)
+                builder.append(i).append('\n');
+
+            final byte[] body = builder.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/sparql/select", exchange -> {
+            final byte[] body = (exchange.getRequestHeaders().getFirst("Accept").contains("json") ? JSON : TSV).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        transport = new HttpTransport(10, 10, 1000, 5000, 1000, 1000, 1000, 1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        server.stop(0);
+        transport.destroy();
+    }
+
+    @Test
+    public void testTsv() {
+
+        val rows = select("tsv");
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[]{"\"Rome\"@en", "<http://dbpedia.org/resource/Rome>", "<http://dbpedia.org/ontology/Place>", "0.9"}, rows.get(0));
+        assertArrayEquals(new String[]{"\"Travel\"@en", "<http://dbpedia.org/resource/Travel>", "", "0.5"}, rows.get(1));
+    }
+
+    @Test
+    public void testJsonMatchesTsv() {
+
+        val tsv = select("tsv");
+        val json = select("json");
+
+        assertEquals(tsv.size(), json.size());
+        for (int i = 0; i < tsv.size(); i++)
+            assertArrayEquals(tsv.get(i), json.get(i));
+    }
+
+    @Test
+    public void testPaged() {
+
+        final List<String> values = new ArrayList<>();
+        val count = pagedQueryService(4).selectPaged("SELECT ?n WHERE { ?s ?p ?n }", new String[]{"n"}, row -> values.add(row[0]));
+
+        // All the rows, in order, although the second page failed once.
+        assertEquals(Long.valueOf(ROWS), count.get());
+        for (int i = 0; i < ROWS; i++)
+            assertEquals(String.valueOf(i), values.get(i));
+        assertEquals(2, failures.get());
+
+        // The first page alone, then two waves of three pages (the second page twice).
+        assertEquals(8, requests.get());
+    }
+
+    @Test
+    public void testPagedSinglePage() {
+
+        final List<String> values = new ArrayList<>();
+        val count = pagedQueryService(30).selectPaged("SELECT ?n WHERE { ?s ?p ?n }", new String[]{"n"}, row -> values.add(row[0]));
+
+        // The first page isn't full: no other page is requested.
+        assertEquals(Long.valueOf(ROWS), count.get());
+        assertEquals(ROWS, values.size());
+        assertEquals(1, requests.get());
+    }
+
+    private QueryService pagedQueryService(final int pageSize) {
+
+        val queryService = new QueryService(transport, Executors.newFixedThreadPool(3));
+        ReflectionTestUtils.setField(queryService, "url", "http://localhost:" + server.getAddress().getPort() + "/sparql/paged");
+        ReflectionTestUtils.setField(queryService, "format", "tsv");
+        ReflectionTestUtils.setField(queryService, "pageSize", pageSize);
+        ReflectionTestUtils.setField(queryService, "parallelism", 3);
+        ReflectionTestUtils.setField(queryService, "pageRetries", 2);
+        ReflectionTestUtils.setField(queryService, "pageRetryDelay", 10L);
+
+        return queryService;
+    }
+
+    private List<String[]> select(final String format) {
+
+        val queryService = new QueryService(transport, null);
+        ReflectionTestUtils.setField(queryService, "url", "http://localhost:" + server.getAddress().getPort() + "/sparql/select");
+        ReflectionTestUtils.setField(queryService, "format", format);
+
+        final List<String[]> rows = new ArrayList<>();
+        val count = queryService.select("SELECT * WHERE { ?s ?p ?o }", VARS, rows::add);
+
+        assertTrue(count.isPresent());
+        assertEquals(rows.size(), (long) count.get());
+
+        return rows;
+    }
+
+}
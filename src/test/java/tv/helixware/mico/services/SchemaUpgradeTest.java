@@ -0,0 +1,163 @@
+package tv.helixware.mico.services;
+
+import lombok.val;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tv.helixware.mico.model.*;
+import tv.helixware.mico.persist.AssetRepository;
+import tv.helixware.mico.persist.FragmentRepository;
+import tv.helixware.mico.persist.ItemRepository;
+import tv.helixware.mico.persist.MentionRepository;
+import tv.helixware.mico.persist.PartRepository;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the {@link SchemaUpgrade} steps on H2.
+ * <p>
+ * The test isn't transactional, since H2 commits the DDL statements.
+ *
+ * @since 0.2.0
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import({FragmentWriter.class, SchemaUpgrade.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SchemaUpgradeTest {
+
+    @Autowired
+    private SchemaUpgrade schemaUpgrade;
+
+    @Autowired
+    private FragmentWriter fragmentWriter;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private FragmentRepository<Fragment> fragmentRepository;
+
+    @Autowired
+    private MentionRepository mentionRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private Asset asset;
+
+    private Part part;
+
+    @Before
+    public void setUp() {
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        asset = assetRepository.save(new Asset("http://example.org/asset.mp4", UUID.randomUUID().toString()));
+        val item = itemRepository.save(new Item(asset, "http://example.org/item", UUID.randomUUID().toString()));
+        part = partRepository.save(new Part(item, "http://example.org/item/part", UUID.randomUUID().toString(), "video/mp4", "asset.mp4"));
+    }
+
+    @After
+    public void tearDown() {
+
+        mentionRepository.deleteAll();
+        fragmentRepository.deleteAll();
+        partRepository.deleteAll();
+        itemRepository.deleteAll();
+        assetRepository.deleteAll();
+    }
+
+    @Test
+    public void testAlignFragmentSequence() {
+
+        fragmentWriter.write(FragmentWriterTest.fragments(part, 120));
+        final long max = jdbcTemplate.queryForObject("select max(id) from fragment", Long.class);
+
+        // The existing fragments got their ids elsewhere, the sequence starts over.
+        jdbcTemplate.execute("alter sequence fragment_seq restart with 1");
+
+        schemaUpgrade.alignFragmentSequence();
+
+        // The next block of ids starts past the existing ones.
+        final long next = jdbcTemplate.queryForObject("call next value for fragment_seq", Long.class);
+        assertTrue(String.format("The block ending at %d overlaps the existing ids up to %d", next, max), next - 50 >= max);
+    }
+
+    @Test
+    public void testConvertFragmentTimesToMilliseconds() {
+
+        fragmentWriter.write(FragmentWriterTest.fragments(part, 3));
+
+        // The fragments extracted before the upgrade, in seconds.
+        jdbcTemplate.update("update fragment set start = start / 1000, end = end / 1000 where fragment_type in ('sequence', 'face')");
+        jdbcTemplate.update("delete from schema_upgrade");
+
+        schemaUpgrade.convertFragmentTimesToMilliseconds();
+        schemaUpgrade.convertFragmentTimesToMilliseconds();
+
+        // The sequences and the faces are converted once, the entities have no time range.
+        val fragments = fragmentRepository.findByAssetGUIDOverlapping(asset.getGuid(), Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(-1L, fragments.get(0).getStart().longValue());
+        assertEquals(0L, fragments.get(1).getStart().longValue());
+        assertEquals(1000L, fragments.get(1).getEnd().longValue());
+        assertEquals(1000L, fragments.get(2).getStart().longValue());
+        assertEquals(2000L, fragments.get(2).getEnd().longValue());
+    }
+
+    @Test
+    public void testBackfill() {
+
+        fragmentWriter.write(FragmentWriterTest.fragments(part, 120));
+
+        // The rows written before the columns were introduced.
+        jdbcTemplate.update("update fragment set asset_id = null");
+        jdbcTemplate.update("update asset set guid_hash = null");
+        assertEquals(0, fragmentRepository.findByAssetGUID(asset.getGuid(), new PageRequest(0, 10)).getTotalElements());
+
+        schemaUpgrade.backfillGuidHashes();
+        schemaUpgrade.backfillFragmentAssetIds();
+
+        assertEquals(Asset.hash(asset.getGuid()), jdbcTemplate.queryForObject("select guid_hash from asset where id = ?", String.class, asset.getId()));
+        assertEquals(120, fragmentRepository.findByAssetGUID(asset.getGuid(), new PageRequest(0, 10)).getTotalElements());
+    }
+
+    @Test
+    public void testNormalizeMentionReferences() {
+
+        val reference = "http://dbpedia.org/resource/Rome";
+        val mention = new Mention(reference, "entity", "Rome", part);
+        mention.add(0.9);
+        mentionRepository.save(mention);
+
+        // A mention indexed with the reference in brackets.
+        jdbcTemplate.update("update mention set reference = ?, reference_hash = ?", "<" + reference + ">", Mention.hash("<" + reference + ">"));
+        assertTrue(mentionRepository.findByReference(reference, new PageRequest(0, 10)).isEmpty());
+
+        schemaUpgrade.normalizeMentionReferences();
+
+        assertEquals(1, mentionRepository.findByReference(reference, new PageRequest(0, 10)).size());
+    }
+
+}
@@ -0,0 +1,76 @@
+package tv.helixware.mico.services;
+
+import com.github.anno4j.Anno4j;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openrdf.repository.Repository;
+import tv.helixware.mico.factories.QueryServiceFactory;
+import tv.helixware.mico.model.Part;
+import tv.helixware.mico.model.SequenceFragment;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the raw SPARQL query of the {@link SequenceService} with the Anno4j object mapping it replaces, over the
+ * recorded annotations of an item in an in-memory store, so that the object mapping is measured without the network.
+ * <p>
+ * Run with `mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=tv.helixware.mico.services.SequenceServiceBenchmark`.
+ *
+ * @since 0.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SequenceServiceBenchmark {
+
+    private final Part part = Fixtures.part();
+
+    private final SequenceService sequenceService = new SequenceService(null);
+
+    private Repository repository;
+
+    private ItemSnapshot fixture;
+
+    private QueryServiceFactory queryServiceFactory;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        repository = Fixtures.repository();
+        fixture = new ItemSnapshot(repository);
+        queryServiceFactory = new QueryServiceFactory(new Anno4j(repository));
+    }
+
+    @TearDown
+    public void tearDown() {
+
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<SequenceFragment> raw() {
+
+        return sequenceService.extract(part, fixture);
+    }
+
+    @Benchmark
+    public List<SequenceFragment> anno4j() throws Exception {
+
+        return SequenceServiceTest.anno4j(queryServiceFactory, part);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+
+        new Runner(new OptionsBuilder()
+                .include(SequenceServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,100 @@
+package tv.helixware.mico.services;
+
+import com.github.anno4j.model.impl.selector.FragmentSelector;
+import eu.mico.platform.anno4j.model.PartMMM;
+import eu.mico.platform.anno4j.model.impl.targetmmm.SpecificResourceMMM;
+import lombok.val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import tv.helixware.mico.MicoGatewayApplication;
+import tv.helixware.mico.factories.QueryServiceFactory;
+import tv.helixware.mico.helpers.MediaFragmentParser;
+import tv.helixware.mico.model.Item;
+import tv.helixware.mico.model.Part;
+import tv.helixware.mico.model.SequenceFragment;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the {@link SequenceService} and compare it with the Anno4j object mapping it replaces.
+ *
+ * @since 0.2.0
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = MicoGatewayApplication.class)
+public class SequenceServiceTest {
+
+    @Autowired
+    private SequenceService sequenceService;
+
+    @Autowired
+    private QueryServiceFactory queryServiceFactory;
+
+    /**
+     * Extract the shot boundaries of the same part with the raw SPARQL query and with the Anno4j object mapping, and
+     * check that the results match. The timings are measured by the {@link SequenceServiceBenchmark}.
+     *
+     * @throws Exception
+     * @since 0.2.0
+     */
+    @Test
+    public void testMatchesAnno4j() throws Exception {
+
+        // Create a mock part (not persisted, the extraction doesn't need it).
+        val item = new Item(null, "http://demo2.mico-project.eu:8080/marmotta/de12b016-17d1-4613-85b9-055b797d1fa3", "de12b016-17d1-4613-85b9-055b797d1fa3");
+        val part = new Part(item, "http://demo2.mico-project.eu:8080/marmotta/e6f5c01e-0498-4a8c-a958-3b723b2bad2a", "e6f5c01e-0498-4a8c-a958-3b723b2bad2a", "video/mp4", "Lorem Ipsum");
+
+        val raw = sequenceService.extract(part);
+
+        assertFalse(raw.isEmpty());
+        assertEquals(keys(anno4j(queryServiceFactory, part)), keys(raw));
+
+    }
+
+    /**
+     * The Anno4j path replaced by the {@link SequenceService}: annotations are materialized as proxies, then targets,
+     * selectors and values are walked.
+     *
+     * @param queryServiceFactory The {@link QueryServiceFactory}.
+     * @param part                The {@link Part}.
+     * @return A list of {@link SequenceFragment}s.
+     * @throws Exception
+     * @since 0.2.0
+     */
+    static List<SequenceFragment> anno4j(final QueryServiceFactory queryServiceFactory, final Part part) throws Exception {
+
+        // The values are converted to milliseconds as the SequenceService does.
+        final MediaFragmentParser parser = new MediaFragmentParser();
+
+        final List<PartMMM> annotations = queryServiceFactory.create()
+                .addCriteria("^mmm:hasPart", part.getUri())
+                .addCriteria("mmm:hasBody[is-a mmmterms:TVSShotBoundaryFrameBody]")
+                .execute(PartMMM.class);
+
+        return annotations.stream()
+                .flatMap(a -> a.getTarget().stream())
+                .filter(t -> t instanceof SpecificResourceMMM)
+                .map(t -> ((SpecificResourceMMM) t).getSelector())
+                .filter(s -> s instanceof FragmentSelector)
+                .map(s -> ((FragmentSelector) s).getValue())
+                .distinct()
+                .filter(v -> parser.parseTemporal(v) && MediaFragmentParser.UNBOUNDED != parser.getEnd())
+                .map(v -> new SequenceFragment(parser.getStart(), parser.getEnd(), part))
+                .collect(Collectors.toList());
+    }
+
+    private static Set<String> keys(final List<SequenceFragment> fragments) {
+
+        return fragments.stream()
+                .map(f -> f.getStart() + "," + f.getEnd())
+                .collect(Collectors.toSet());
+    }
+
+}
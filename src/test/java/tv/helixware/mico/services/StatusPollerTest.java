@@ -0,0 +1,275 @@
+package tv.helixware.mico.services;
+
+import lombok.val;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tv.helixware.mico.model.Asset;
+import tv.helixware.mico.model.Item;
+import tv.helixware.mico.response.CheckStatusResponse;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test the {@link StatusPoller} with a stub {@link AsyncMicoClient} which records the status requests.
+ *
+ * @since 0.2.0
+ */
+public class StatusPollerTest {
+
+    private StatusPoller poller;
+
+    @After
+    public void tearDown() {
+
+        if (null != poller)
+            poller.destroy();
+    }
+
+    @Test
+    public void testCompletesWhenFinished() throws Exception {
+
+        // The item is finished at the third check.
+        val client = new StubClient(3);
+        poller = poller(client, 20, 1000, 1.0, 0.0, 60000, 1, 0);
+
+        val item = item("a");
+        val response = poller.await(item).get(5, TimeUnit.SECONDS);
+
+        assertTrue(response.isFinished());
+        assertEquals(item.getUri(), response.getUri());
+        assertEquals(3, client.checks(item.getUri()));
+        assertEquals(0, poller.size());
+    }
+
+    @Test
+    public void testAwaitTwiceReturnsTheSameFuture() {
+
+        poller = poller(new StubClient(0), 1000, 1000, 1.0, 0.0, 60000, 1, 0);
+
+        val item = item("a");
+        assertSame(poller.await(item), poller.await(item));
+        assertEquals(1, poller.size());
+    }
+
+    @Test
+    public void testBackoff() throws Exception {
+
+        // Without backoff an item would be checked every 20 ms, i.e. ~35 times in 700 ms. With the delay doubling at
+        // each check (20, 40, 80, 160, 320 ms) it's checked ~5 times.
+        val client = new StubClient(0);
+        poller = poller(client, 20, 10000, 2.0, 0.0, 60000, 1, 0);
+
+        val item = item("a");
+        poller.await(item);
+        Thread.sleep(700);
+
+        val checks = client.checks(item.getUri());
+        assertTrue("Too many checks: " + checks, 8 >= checks);
+        assertTrue("Too few checks: " + checks, 3 <= checks);
+
+        // The delay is capped: with a 40 ms maximum the checks go on at the maximum rate.
+        val capped = new StubClient(0);
+        poller.destroy();
+        poller = poller(capped, 20, 40, 2.0, 0.0, 60000, 1, 0);
+        poller.await(item);
+        Thread.sleep(700);
+
+        assertTrue("Too few checks: " + capped.checks(item.getUri()), 10 <= capped.checks(item.getUri()));
+    }
+
+    @Test
+    public void testJitter() {
+
+        poller = poller(new StubClient(0), 1000, 1000, 1.0, 0.2, 60000, 1, 0);
+
+        final Set<Long> delays = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            final long delay = ReflectionTestUtils.invokeMethod(poller, "withJitter", 1000L);
+            assertTrue("Delay out of range: " + delay, 800 <= delay && 1200 >= delay);
+            delays.add(delay);
+        }
+
+        // The delays are spread, not synchronized.
+        assertTrue(100 < delays.size());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+
+        poller = poller(new StubClient(0), 20, 20, 1.0, 0.0, 200, 1, 0);
+
+        val item = item("a");
+        try {
+            poller.await(item).get(5, TimeUnit.SECONDS);
+            fail("The item never finishes, the wait should time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        assertEquals(0, poller.size());
+    }
+
+    @Test
+    public void testFinishedByNotification() throws Exception {
+
+        // The first poll is far in the future, the notification completes the wait.
+        val client = new StubClient(0);
+        poller = poller(client, 20, 60000, 1.0, 0.0, 60000, 1, 0);
+
+        val item = item("a");
+        final CompletableFuture<CheckStatusResponse> future = poller.await(item);
+
+        assertTrue(poller.finished(item.getUri()));
+        assertTrue(future.get(1, TimeUnit.SECONDS).isFinished());
+        assertFalse(poller.finished(item.getUri()));
+        assertEquals(0, client.checks(item.getUri()));
+    }
+
+    @Test
+    public void testBatchIsSentWhenFull() throws Exception {
+
+        // Only `b` is finished. The flush interval is long, therefore the batch is sent because it's full.
+        final StubClient client = new StubClient(0) {
+            @Override
+            public CompletableFuture<List<CheckStatusResponse>> checkStatus(final Collection<Item> items, final boolean parts) {
+                return super.checkStatus(items, parts).thenApply(responses -> {
+                    responses.forEach(response -> response.setFinished(response.getUri().endsWith("/b")));
+                    return responses;
+                });
+            }
+        };
+        poller = poller(client, 20, 60000, 1.0, 0.0, 60000, 3, 60000);
+
+        final CompletableFuture<CheckStatusResponse> a = poller.await(item("a"));
+        final CompletableFuture<CheckStatusResponse> b = poller.await(item("b"));
+        final CompletableFuture<CheckStatusResponse> c = poller.await(item("c"));
+
+        // One request with the three items, the responses (in reverse order) are dispatched by URI.
+        assertEquals("http://localhost/marmotta/b", b.get(5, TimeUnit.SECONDS).getUri());
+        assertEquals(1, client.requests.size());
+        assertEquals(new HashSet<>(Arrays.asList("http://localhost/marmotta/a", "http://localhost/marmotta/b", "http://localhost/marmotta/c")),
+                new HashSet<>(client.requests.get(0)));
+        assertFalse(a.isDone());
+        assertFalse(c.isDone());
+        assertEquals(2, poller.size());
+    }
+
+    @Test
+    public void testBatchIsFlushedAfterInterval() throws Exception {
+
+        // The batch never fills up, it's sent when the flush interval elapsed.
+        val client = new StubClient(1);
+        poller = poller(client, 20, 60000, 1.0, 0.0, 60000, 10, 100);
+
+        final CompletableFuture<CheckStatusResponse> a = poller.await(item("a"));
+        final CompletableFuture<CheckStatusResponse> b = poller.await(item("b"));
+
+        a.get(5, TimeUnit.SECONDS);
+        b.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, client.requests.size());
+        assertEquals(2, client.requests.get(0).size());
+    }
+
+    @Test
+    public void testBatchModeAll() throws Exception {
+
+        // The request lists no items, the broker returns the status of all its items including unknown ones.
+        val client = new StubClient(1);
+        client.known.addAll(Arrays.asList("http://localhost/marmotta/a", "http://localhost/marmotta/other"));
+        poller = poller(client, 20, 60000, 1.0, 0.0, 60000, 1, 0, "all");
+
+        assertTrue(poller.await(item("a")).get(5, TimeUnit.SECONDS).isFinished());
+        assertTrue(client.requests.get(0).isEmpty());
+        assertEquals(0, poller.size());
+    }
+
+    /**
+     * Create a {@link StatusPoller} with a 10 ms tick, checking the {@link Item}s by URI.
+     */
+    private static StatusPoller poller(final AsyncMicoClient client, final long initialDelay, final long maxDelay,
+                                       final double multiplier, final double jitter, final long timeout,
+                                       final int batchSize, final long flushInterval) {
+
+        return poller(client, initialDelay, maxDelay, multiplier, jitter, timeout, batchSize, flushInterval, "uris");
+    }
+
+    static StatusPoller poller(final AsyncMicoClient client, final long initialDelay, final long maxDelay,
+                               final double multiplier, final double jitter, final long timeout,
+                               final int batchSize, final long flushInterval, final String batchMode) {
+
+        return new StatusPoller(client, 10, 64, initialDelay, maxDelay, multiplier, jitter, timeout, batchSize, flushInterval, batchMode);
+    }
+
+    static Item item(final String name) {
+
+        return new Item(new Asset("http://example.org/" + name + ".mp4", UUID.randomUUID().toString()),
+                "http://localhost/marmotta/" + name, name);
+    }
+
+    /**
+     * An {@link AsyncMicoClient} which records the status requests and answers them with the items in the reverse
+     * order, so that the responses are dispatched by URI and not by position.
+     *
+     * @since 0.2.0
+     */
+    static class StubClient extends AsyncMicoClient {
+
+        /**
+         * The number of checks after which an item is finished, 0 for never.
+         */
+        private final int finishedAfter;
+
+        /**
+         * The requested items, one list per request.
+         */
+        final List<List<String>> requests = new CopyOnWriteArrayList<>();
+
+        /**
+         * The number of times each item has been checked.
+         */
+        private final ConcurrentMap<String, Integer> checks = new ConcurrentHashMap<>();
+
+        /**
+         * The URIs known to the broker, returned when the request lists no items.
+         */
+        final List<String> known = new CopyOnWriteArrayList<>();
+
+        StubClient(final int finishedAfter) {
+
+            super(null, null);
+            this.finishedAfter = finishedAfter;
+        }
+
+        int checks(final String uri) {
+
+            return checks.getOrDefault(uri, 0);
+        }
+
+        @Override
+        public CompletableFuture<List<CheckStatusResponse>> checkStatus(final Collection<Item> items, final boolean parts) {
+
+            final List<String> uris = new ArrayList<>();
+            items.forEach(item -> uris.add(item.getUri()));
+            requests.add(uris);
+
+            final List<CheckStatusResponse> responses = new ArrayList<>();
+            for (final String uri : uris.isEmpty() ? known : uris) {
+                final int count = checks.merge(uri, 1, Integer::sum);
+
+                final CheckStatusResponse response = new CheckStatusResponse();
+                response.setUri(uri);
+                response.setFinished(0 < finishedAfter && count >= finishedAfter);
+                responses.add(0, response);
+            }
+
+            return CompletableFuture.completedFuture(responses);
+        }
+
+    }
+
+}
@@ -0,0 +1,155 @@
+package tv.helixware.mico.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.val;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tv.helixware.mico.model.*;
+import tv.helixware.mico.persist.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test the {@link TimelineBuilder} on H2.
+ * <p>
+ * The test isn't transactional, since the concurrent builds run in their own transactions.
+ *
+ * @since 0.2.0
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(TimelineBuilder.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class TimelineBuilderTest {
+
+    private final static ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Autowired
+    private TimelineBuilder timelineBuilder;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private FragmentRepository<Fragment> fragmentRepository;
+
+    @Autowired
+    private TimelineRepository timelineRepository;
+
+    private Asset asset;
+
+    private Part part;
+
+    @Before
+    public void setUp() {
+
+        asset = assetRepository.save(new Asset("http://example.org/asset.mp4", UUID.randomUUID().toString()));
+        val item = itemRepository.save(new Item(asset, "http://example.org/item", UUID.randomUUID().toString()));
+        part = partRepository.save(new Part(item, "http://example.org/item/part", UUID.randomUUID().toString(), "video/mp4", "asset.mp4"));
+
+        fragmentRepository.save(Arrays.asList(
+                new SequenceFragment(4500L, 10250L, part),
+                new SequenceFragment(0L, 4500L, part),
+                new FaceFragment(0L, 4500L, 160L, 120L, 320L, 240L, part),
+                new EntityFragment("Rome", "http://dbpedia.org/resource/Rome", "http://dbpedia.org/ontology/Place", 0.9, part),
+                new TopicFragment("Travel", "http://example.org/topic/travel", 0.5, part)));
+    }
+
+    @After
+    public void tearDown() {
+
+        timelineRepository.deleteAll();
+        fragmentRepository.deleteAll();
+        partRepository.deleteAll();
+        itemRepository.deleteAll();
+        assetRepository.deleteAll();
+    }
+
+    @Test
+    public void testBuild() throws Exception {
+
+        val timeline = timelineBuilder.build(asset);
+
+        assertEquals(1, timeline.getRevision());
+        assertEquals(Timeline.FORMAT, timeline.getFormat());
+        assertEquals(5, timeline.getFragments());
+
+        val document = documentOf(timeline);
+        assertEquals(asset.getGuid(), document.get("asset").asText());
+        assertEquals(1, document.get("revision").asLong());
+
+        // The shots are sorted by start.
+        assertEquals(2, document.get("shots").size());
+        assertEquals(0, document.get("shots").get(0).get("start").asLong());
+        assertEquals(4500, document.get("shots").get(1).get("start").asLong());
+
+        assertEquals(320, document.get("faces").get(0).get("width").asLong());
+        assertEquals("http://dbpedia.org/resource/Rome", document.get("entities").get(0).get("reference").asText());
+        assertEquals("Travel", document.get("topics").get(0).get("label").asText());
+    }
+
+    @Test
+    public void testRebuild() throws Exception {
+
+        val first = timelineBuilder.build(asset);
+
+        // The part is extracted again with one more shot: the document is replaced and its revision incremented.
+        fragmentRepository.save(new SequenceFragment(10250L, 12000L, part));
+        val second = timelineBuilder.build(asset);
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(2, second.getRevision());
+        assertEquals(6, second.getFragments());
+        assertEquals(3, documentOf(second).get("shots").size());
+        assertEquals(1, timelineRepository.count());
+    }
+
+    @Test
+    public void testConcurrentBuilds() throws Exception {
+
+        // The builds of the asset are serialized: none fails on the unique asset and each one is counted.
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<CompletableFuture<Timeline>> builds = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+                builds.add(CompletableFuture.supplyAsync(() -> timelineBuilder.build(asset), executor));
+
+            CompletableFuture.allOf(builds.toArray(new CompletableFuture[builds.size()])).get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, timelineRepository.count());
+        assertEquals(8, timelineRepository.findByAsset(asset).getRevision());
+    }
+
+    private static JsonNode documentOf(final Timeline timeline) throws Exception {
+
+        return OBJECT_MAPPER.readTree(timeline.getDocument());
+    }
+
+}
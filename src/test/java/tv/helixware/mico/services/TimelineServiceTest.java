@@ -0,0 +1,56 @@
+package tv.helixware.mico.services;
+
+import org.junit.Test;
+import tv.helixware.mico.helpers.IntervalIndex;
+import tv.helixware.mico.model.*;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test the caching of the binary timelines of the {@link TimelineService} with a mock {@link FragmentCache}.
+ *
+ * @since 0.2.0
+ */
+public class TimelineServiceTest {
+
+    private final static String GUID = "0b3d1c9e-8f5b-4d3a-9a52-7a1f5e2c8d10";
+
+    @Test
+    public void testInvalidate() {
+
+        final FragmentCache fragmentCache = mock(FragmentCache.class);
+        when(fragmentCache.getAll(GUID)).thenReturn(fragments(), fragments());
+
+        final TimelineService timelineService = new TimelineService(fragmentCache, null, 1 << 20);
+
+        final byte[] timeline = timelineService.binary(GUID);
+        assertSame(timeline, timelineService.binary(GUID));
+
+        // Once invalidated the timeline is encoded again from the fragments.
+        timelineService.invalidate(GUID);
+        verify(fragmentCache).invalidate(GUID);
+
+        assertNotSame(timeline, timelineService.binary(GUID));
+        verify(fragmentCache, times(2)).getAll(GUID);
+    }
+
+    private static Map<Class<? extends Fragment>, IntervalIndex<Fragment>> fragments() {
+
+        final List<Fragment> sequences = Collections.singletonList(new SequenceFragment(0L, 1000L, null));
+
+        final Map<Class<? extends Fragment>, IntervalIndex<Fragment>> fragments = new LinkedHashMap<>();
+        for (final Class<? extends Fragment> type : FragmentCache.TYPES)
+            fragments.put(type, new IntervalIndex<>(SequenceFragment.class == type ? sequences : Collections.<Fragment>emptyList(),
+                    Fragment::getStart, Fragment::getEnd));
+
+        return fragments;
+    }
+
+}